@@ -0,0 +1,319 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shared log of the traceable contacts of all persons, which can replace the contacts stored per person.
+ * The contacts of each person are the same as in {@link TraceableContacts}: ordered by the first contact, with the time of the last one.
+ * <p>
+ * Sealed contacts are stored in primitive columns sorted by the owning person. New contacts are appended to one buffer per thread,
+ * together with a sequence number per owner, which makes the result independent of the threads that added them.
+ * Removals are recorded at the current sequence number of the owner and applied together with the buffered contacts,
+ * when the log is sealed once per day before the tracing phase. Queries do not modify the log.
+ */
+final class ContactLog {
+
+	private final PersonStore store;
+
+	/**
+	 * Buffers of all threads that added contacts.
+	 */
+	private final List<Buffer> buffers = new ArrayList<>();
+	private final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(this::createBuffer);
+
+	/**
+	 * Distinct owners of the sealed contacts and the start of their contacts, with one additional entry for the end.
+	 */
+	private int[] owners = new int[0];
+	private int[] start = {0};
+	private int[] others = new int[0];
+	private double[] times = new double[0];
+
+	/**
+	 * Owners with a pending removal and the time before which contacts are removed.
+	 */
+	private final IntArrayList removals = new IntArrayList();
+	private double removeBefore = Double.NaN;
+
+	/**
+	 * Creates a log for the persons of {@code store}, which keeps the sequence numbers of each person.
+	 */
+	ContactLog(PersonStore store) {
+		this.store = store;
+	}
+
+	private synchronized Buffer createBuffer() {
+		Buffer b = new Buffer();
+		buffers.add(b);
+		return b;
+	}
+
+	/**
+	 * Add a contact of person {@code owner} with person {@code other}. Can be called from multiple threads,
+	 * but contacts of the same owner must not be added concurrently.
+	 */
+	void add(int owner, int other, double time) {
+		buffer.get().add(owner, other, time, store.contactCount[owner]++);
+	}
+
+	/**
+	 * Removes the contacts of {@code owner} whose last contact is before {@code time}, as {@link TraceableContacts#removeBefore(double)}.
+	 * Contacts added afterwards are not affected. Must not be called concurrently to {@link #add(int, int, double)}.
+	 */
+	void removeBefore(int owner, double time) {
+
+		int seq = store.contactCount[owner];
+		if (seq == 0)
+			return;
+
+		// only one removal per owner and one time can be pending
+		if (!removals.isEmpty() && (time != removeBefore || store.contactRemoval[owner] != 0))
+			seal();
+
+		store.contactRemoval[owner] = seq;
+		removals.add(owner);
+		removeBefore = time;
+	}
+
+	/**
+	 * Collects all contacts of a person at or after {@code after}, ordered by the first contact.
+	 * Must not be called concurrently to {@link #add(int, int, double)}.
+	 */
+	void get(int owner, double after, IntArrayList others, DoubleArrayList times) {
+
+		IntArrayList buffered = new IntArrayList();
+		DoubleArrayList bufferedTimes = new DoubleArrayList();
+		IntArrayList seqs = new IntArrayList();
+		for (Buffer b : buffers) {
+			for (int i = 0; i < b.size; i++) {
+				if (b.owners[i] == owner) {
+					buffered.add(b.others[i]);
+					bufferedTimes.add(b.times[i]);
+					seqs.add(b.seqs[i]);
+				}
+			}
+		}
+
+		int[] order = new int[seqs.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+
+		IntArrays.quickSort(order, (a, b) -> Integer.compare(seqs.getInt(a), seqs.getInt(b)));
+
+		int i = Arrays.binarySearch(owners, owner);
+		TraceableContacts contacts = new TraceableContacts();
+		merge(owner, i < 0 ? 0 : start[i], i < 0 ? 0 : start[i + 1], buffered.elements(), bufferedTimes.elements(), seqs.elements(),
+				order, 0, order.length, contacts);
+
+		for (int j = 0; j < contacts.size(); j++) {
+			if (contacts.getTime(j) >= after) {
+				others.add(contacts.getPerson(j));
+				times.add(contacts.getTime(j));
+			}
+		}
+	}
+
+	/**
+	 * Distinct contact persons of a person at or after {@code after}, ordered by the first contact.
+	 */
+	IntList getContacts(int owner, double after) {
+		IntArrayList others = new IntArrayList();
+		get(owner, after, others, new DoubleArrayList());
+		return others;
+	}
+
+	/**
+	 * Number of sealed and buffered contacts. Repeated contacts are counted once after sealing.
+	 */
+	long size() {
+		long n = others.length;
+		for (Buffer b : buffers)
+			n += b.size;
+
+		return n;
+	}
+
+	/**
+	 * Merges all buffered contacts and pending removals into the sealed contacts.
+	 * Must not be called concurrently to {@link #add(int, int, double)}.
+	 */
+	void seal() {
+
+		int n = 0;
+		for (Buffer b : buffers)
+			n += b.size;
+
+		if (n == 0 && removals.isEmpty())
+			return;
+
+		int[] bufferedOwners = new int[n];
+		int[] buffered = new int[n];
+		double[] bufferedTimes = new double[n];
+		int[] seqs = new int[n];
+
+		int k = 0;
+		for (Buffer b : buffers) {
+			System.arraycopy(b.owners, 0, bufferedOwners, k, b.size);
+			System.arraycopy(b.others, 0, buffered, k, b.size);
+			System.arraycopy(b.times, 0, bufferedTimes, k, b.size);
+			System.arraycopy(b.seqs, 0, seqs, k, b.size);
+			k += b.size;
+			b.clear();
+		}
+
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+
+		IntArrays.parallelQuickSort(order, (a, b) -> {
+			int cmp = Integer.compare(bufferedOwners[a], bufferedOwners[b]);
+			return cmp != 0 ? cmp : Integer.compare(seqs[a], seqs[b]);
+		});
+
+		IntArrayList newOwners = new IntArrayList(owners.length);
+		IntArrayList newStart = new IntArrayList(owners.length + 1);
+		IntArrayList newOthers = new IntArrayList(others.length + n);
+		DoubleArrayList newTimes = new DoubleArrayList(others.length + n);
+		TraceableContacts contacts = new TraceableContacts();
+
+		// walk through sealed and buffered owners, which are both sorted
+		int i = 0;
+		int j = 0;
+		while (i < owners.length || j < n) {
+
+			int owner;
+			if (j == n || (i < owners.length && owners[i] <= bufferedOwners[order[j]]))
+				owner = owners[i];
+			else
+				owner = bufferedOwners[order[j]];
+
+			int from = 0, to = 0;
+			if (i < owners.length && owners[i] == owner) {
+				from = start[i];
+				to = start[i + 1];
+				i++;
+			}
+
+			int rawFrom = j;
+			while (j < n && bufferedOwners[order[j]] == owner)
+				j++;
+
+			contacts.clear();
+			merge(owner, from, to, buffered, bufferedTimes, seqs, order, rawFrom, j, contacts);
+
+			if (contacts.size() == 0)
+				continue;
+
+			newOwners.add(owner);
+			newStart.add(newOthers.size());
+			for (int c = 0; c < contacts.size(); c++) {
+				newOthers.add(contacts.getPerson(c));
+				newTimes.add(contacts.getTime(c));
+			}
+		}
+
+		newStart.add(newOthers.size());
+
+		owners = newOwners.toIntArray();
+		start = newStart.toIntArray();
+		others = newOthers.toIntArray();
+		times = newTimes.toDoubleArray();
+
+		for (int r = 0; r < removals.size(); r++)
+			store.contactRemoval[removals.getInt(r)] = 0;
+
+		removals.clear();
+		removeBefore = Double.NaN;
+	}
+
+	/**
+	 * Merges the sealed contacts {@code [from, to)} of an owner with its buffered contacts at {@code order[rawFrom, rawTo)},
+	 * which are sorted by sequence number. A pending removal is applied after the contacts that were added before it.
+	 */
+	private void merge(int owner, int from, int to, int[] buffered, double[] bufferedTimes, int[] seqs,
+					   int[] order, int rawFrom, int rawTo, TraceableContacts contacts) {
+
+		for (int i = from; i < to; i++)
+			contacts.add(others[i], times[i]);
+
+		int removal = store.contactRemoval[owner];
+
+		int i = rawFrom;
+		for (; i < rawTo && (removal == 0 || seqs[order[i]] < removal); i++)
+			contacts.add(buffered[order[i]], bufferedTimes[order[i]]);
+
+		if (removal != 0)
+			contacts.removeBefore(removeBefore);
+
+		for (; i < rawTo; i++)
+			contacts.add(buffered[order[i]], bufferedTimes[order[i]]);
+	}
+
+	/**
+	 * Contacts added by one thread in order of insertion.
+	 */
+	private static final class Buffer {
+
+		private int[] owners = new int[1024];
+		private int[] others = new int[1024];
+		private double[] times = new double[1024];
+		private int[] seqs = new int[1024];
+		private int size = 0;
+
+		private void add(int owner, int other, double time, int seq) {
+			if (size == owners.length) {
+				int capacity = size + (size >> 1);
+				owners = Arrays.copyOf(owners, capacity);
+				others = Arrays.copyOf(others, capacity);
+				times = Arrays.copyOf(times, capacity);
+				seqs = Arrays.copyOf(seqs, capacity);
+			}
+
+			owners[size] = owner;
+			others[size] = other;
+			times[size] = time;
+			seqs[size] = seq;
+			size++;
+		}
+
+		/**
+		 * Removes all contacts and releases large arrays.
+		 */
+		private void clear() {
+			size = 0;
+			if (owners.length > (1 << 20)) {
+				owners = new int[1024];
+				others = new int[1024];
+				times = new double[1024];
+				seqs = new int[1024];
+			}
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Usage statistics of containers collected during {@link InfectionEventHandler#init(java.util.Map)}.
+ * All counters are primitive arrays indexed by the container index and grow as needed.
+ */
+final class ContainerUsage {
+
+	private static final int[] EMPTY = new int[0];
+
+	private int[] groupSize = EMPTY;
+	/**
+	 * Maximum group size, -1 if not known.
+	 */
+	private int[] maxGroupSize = EMPTY;
+	private int[] totalUsers = EMPTY;
+
+	/**
+	 * Pairs of activity type index and count for each container, in order of first usage.
+	 */
+	private int[][] activities = new int[0][];
+	private int[] numActivities = EMPTY;
+
+	/**
+	 * Group size relative to start of the current day, and its maximum.
+	 */
+	private int[] daySize = EMPTY;
+	private int[] dayMax = EMPTY;
+
+	private int size = 0;
+
+	/**
+	 * Number of containers with statistics.
+	 */
+	int size() {
+		return size;
+	}
+
+	private void ensure(int idx) {
+		if (idx < size)
+			return;
+
+		size = idx + 1;
+		if (size <= groupSize.length)
+			return;
+
+		int capacity = Math.max(size, groupSize.length + (groupSize.length >> 1));
+
+		int from = groupSize.length;
+		groupSize = Arrays.copyOf(groupSize, capacity);
+		maxGroupSize = Arrays.copyOf(maxGroupSize, capacity);
+		Arrays.fill(maxGroupSize, from, capacity, -1);
+		totalUsers = Arrays.copyOf(totalUsers, capacity);
+		activities = Arrays.copyOf(activities, capacity);
+		numActivities = Arrays.copyOf(numActivities, capacity);
+		daySize = Arrays.copyOf(daySize, capacity);
+		dayMax = Arrays.copyOf(dayMax, capacity);
+	}
+
+	/**
+	 * Person enters the container, which also updates the maximum group size.
+	 */
+	void enter(int c) {
+		ensure(c);
+		mergeMaxGroupSize(c, ++groupSize[c]);
+	}
+
+	/**
+	 * Person leaves the container.
+	 */
+	void leave(int c) {
+		ensure(c);
+		groupSize[c]--;
+	}
+
+	void addUser(int c) {
+		ensure(c);
+		totalUsers[c]++;
+	}
+
+	void mergeTotalUsers(int c, int n) {
+		ensure(c);
+		totalUsers[c] = Math.max(totalUsers[c], n);
+	}
+
+	int getTotalUsers(int c) {
+		return c < size ? totalUsers[c] : 0;
+	}
+
+	boolean hasMaxGroupSize(int c) {
+		return c < size && maxGroupSize[c] >= 0;
+	}
+
+	void mergeMaxGroupSize(int c, int n) {
+		ensure(c);
+		maxGroupSize[c] = Math.max(maxGroupSize[c], n);
+	}
+
+	/**
+	 * Returns the max group size or -1 if not known.
+	 */
+	int getMaxGroupSize(int c) {
+		return c < size ? maxGroupSize[c] : -1;
+	}
+
+	/**
+	 * Count one usage of an activity type.
+	 */
+	void addActivity(int c, int actType) {
+		ensure(c);
+
+		int[] act = activities[c];
+		int n = numActivities[c];
+		for (int i = 0; i < n; i += 2) {
+			if (act[i] == actType) {
+				act[i + 1]++;
+				return;
+			}
+		}
+
+		if (act == null)
+			act = activities[c] = new int[4];
+		else if (n == act.length)
+			act = activities[c] = Arrays.copyOf(act, n * 2);
+
+		act[n] = actType;
+		act[n + 1] = 1;
+		numActivities[c] = n + 2;
+	}
+
+	void setActivity(int c, int actType, int count) {
+		ensure(c);
+		activities[c] = new int[]{actType, count};
+		numActivities[c] = 2;
+	}
+
+	boolean hasActivities(int c) {
+		return c < size && numActivities[c] > 0;
+	}
+
+	/**
+	 * Creates the activity usage of a container as map. The entries are inserted in order of first usage,
+	 * but the map iterates in hash order, same as a hash map that is filled while the events are processed.
+	 *
+	 * @return usage map or null if no activities were recorded
+	 */
+	Object2IntMap<String> getActivityUsage(int c, List<String> actTypes) {
+		if (!hasActivities(c))
+			return null;
+
+		Object2IntMap<String> usage = new Object2IntOpenHashMap<>();
+		for (int i = 0; i < numActivities[c]; i += 2) {
+			usage.put(actTypes.get(activities[c][i]), activities[c][i + 1]);
+		}
+
+		return usage;
+	}
+
+	/**
+	 * Person starts an activity, only tracked relative to the start of the current day.
+	 */
+	void startActivity(int c) {
+		ensure(c);
+		dayMax[c] = Math.max(dayMax[c], ++daySize[c]);
+	}
+
+	/**
+	 * Person ends an activity, only tracked relative to the start of the current day.
+	 */
+	void endActivity(int c) {
+		ensure(c);
+		daySize[c]--;
+	}
+
+	/**
+	 * Finishes the current day and resets day counters.
+	 *
+	 * @return maximum group size of each container relative to the start of the day
+	 */
+	int[] finishDay() {
+		int[] result = Arrays.copyOf(dayMax, size);
+		Arrays.fill(daySize, 0);
+		Arrays.fill(dayMax, 0);
+		return result;
+	}
+}
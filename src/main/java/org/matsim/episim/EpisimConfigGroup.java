@@ -27,6 +27,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.magnos.trie.Trie;
@@ -72,6 +74,15 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 	private static final String INPUT_DAYS = "inputDays";
 	private static final String AGE_SUSCEPTIBILITY = "ageSusceptibility";
 	private static final String AGE_INFECTIVITY = "ageInfectivity";
+	private static final String CACHE_EVENTS = "cacheEvents";
+	private static final String SINGLE_PASS_INIT = "singlePassInit";
+	private static final String THREADS = "threads";
+	private static final String RANDOM_STREAMS = "randomStreams";
+	private static final String CONTACT_SAMPLING = "contactSampling";
+	private static final String UNORDERED_CONTAINERS = "unorderedContainers";
+	private static final String SKIP_IMPOSSIBLE_INFECTIONS = "skipImpossibleInfections";
+	private static final String FAST_EXP = "fastExp";
+	private static final String BATCH_INFECTIONS = "batchInfections";
 
 	private static final Logger log = LogManager.getLogger(EpisimConfigGroup.class);
 	private static final String GROUPNAME = "episim";
@@ -143,6 +154,39 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 	private String overwritePolicyLocation = null;
 	private Class<? extends ShutdownPolicy> policyClass = FixedPolicy.class;
 	private double maxContacts = 3.;
+	/**
+	 * Whether a binary cache should be written and used for local event files.
+	 */
+	private boolean cacheEvents = false;
+	private boolean singlePassInit = false;
+	/**
+	 * Number of threads used to replay one day. See {@link InfectionEventHandler#replayDay(java.time.DayOfWeek)}.
+	 */
+	private int threads = 1;
+	/**
+	 * Which random streams are used by the models.
+	 */
+	private RandomStreams randomStreams = RandomStreams.shared;
+	/**
+	 * How contact persons are sampled by the symmetric contact model.
+	 */
+	private ContactSampling contactSampling = ContactSampling.bernoulli;
+	/**
+	 * Whether persons in containers are kept in order of entering.
+	 */
+	private boolean unorderedContainers = false;
+	/**
+	 * Skip interactions in containers where no infection is possible.
+	 */
+	private boolean skipImpossibleInfections = false;
+	/**
+	 * Use an approximation of the exponential function for infection probabilities.
+	 */
+	private boolean fastExp = false;
+	/**
+	 * Evaluate the infection probabilities of all contacts of a leaving person at once.
+	 */
+	private boolean batchInfections = false;
 	/**
 	 * Child susceptibility used in AgeDependentInfectionModelWithSeasonality.
 	 * Taken from https://doi.org/10.1101/2020.06.03.20121145
@@ -188,6 +232,140 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 				.addDays(DayOfWeek.values());
 	}
 
+	/**
+	 * Whether local event files will be cached in a binary format next to the original file.
+	 * The cache is validated against size and hash of the event file and rewritten if needed.
+	 * Cached files are decoded in parallel, which is considerably faster when several event files are used.
+	 * Disabled by default, because the cache files (*.episim-cache) are written into the input directory.
+	 */
+	@StringGetter(CACHE_EVENTS)
+	public boolean isCacheEvents() {
+		return cacheEvents;
+	}
+
+	@StringSetter(CACHE_EVENTS)
+	public void setCacheEvents(boolean cacheEvents) {
+		this.cacheEvents = cacheEvents;
+	}
+
+	/**
+	 * Whether container statistics are computed while reading the events for the first time, instead of replaying all days again.
+	 * This reduces the setup time. Container statistics and trajectories of the week are the same, but the trajectories end with the last day,
+	 * whereas the default appends further activities during the second pass. These are reached on the last day of the week,
+	 * so results are not identical to the default.
+	 */
+	@StringGetter(SINGLE_PASS_INIT)
+	public boolean isSinglePassInit() {
+		return singlePassInit;
+	}
+
+	@StringSetter(SINGLE_PASS_INIT)
+	public void setSinglePassInit(boolean singlePassInit) {
+		this.singlePassInit = singlePassInit;
+	}
+
+	@StringGetter(THREADS)
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of threads used to replay one day. With more than one thread, containers are processed concurrently
+	 * and each container draws from its own random stream. Results are then deterministic for a given seed, independent
+	 * of the number of threads. They are the same as with the single threaded replay only if {@link RandomStreams#independent} is used.
+	 */
+	@StringSetter(THREADS)
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	@StringGetter(RANDOM_STREAMS)
+	public RandomStreams getRandomStreams() {
+		return randomStreams;
+	}
+
+	/**
+	 * Sets which random streams are used by the models. See {@link EpisimRandom}.
+	 */
+	@StringSetter(RANDOM_STREAMS)
+	public void setRandomStreams(RandomStreams randomStreams) {
+		this.randomStreams = randomStreams;
+	}
+
+	@StringGetter(CONTACT_SAMPLING)
+	public ContactSampling getContactSampling() {
+		return contactSampling;
+	}
+
+	/**
+	 * Sets how contact persons are sampled by the {@link org.matsim.episim.model.SymmetricContactModel}.
+	 */
+	@StringSetter(CONTACT_SAMPLING)
+	public void setContactSampling(ContactSampling contactSampling) {
+		this.contactSampling = contactSampling;
+	}
+
+	/**
+	 * Whether persons leaving a container are replaced by the last person in the container, instead of keeping all persons
+	 * in order of entering. Removal is then always constant time, and contact models that only visit a few persons,
+	 * e.g. with {@link ContactSampling#geometric}, do not depend on the number of persons in a container anymore.
+	 * Contact models draw random numbers in order of the persons, so results are not identical to the default.
+	 */
+	@StringGetter(UNORDERED_CONTAINERS)
+	public boolean isUnorderedContainers() {
+		return unorderedContainers;
+	}
+
+	@StringSetter(UNORDERED_CONTAINERS)
+	public void setUnorderedContainers(boolean unorderedContainers) {
+		this.unorderedContainers = unorderedContainers;
+	}
+
+	/**
+	 * Whether interactions of a leaving person are skipped when the container holds no person it could infect or be infected by.
+	 * This is only done if contacts are neither traced nor written as events. The skipped interactions would only draw random numbers,
+	 * so results are statistically the same, but not identical to the default.
+	 */
+	@StringGetter(SKIP_IMPOSSIBLE_INFECTIONS)
+	public boolean isSkipImpossibleInfections() {
+		return skipImpossibleInfections;
+	}
+
+	@StringSetter(SKIP_IMPOSSIBLE_INFECTIONS)
+	public void setSkipImpossibleInfections(boolean skipImpossibleInfections) {
+		this.skipImpossibleInfections = skipImpossibleInfections;
+	}
+
+	/**
+	 * Whether infection models use {@link EpisimUtils#fastExp(double)} instead of {@link Math#exp(double)}.
+	 * The relative error of the approximation is below 1e-12, so results are not identical to the default.
+	 */
+	@StringGetter(FAST_EXP)
+	public boolean isFastExp() {
+		return fastExp;
+	}
+
+	@StringSetter(FAST_EXP)
+	public void setFastExp(boolean fastExp) {
+		this.fastExp = fastExp;
+	}
+
+	/**
+	 * Whether the {@link org.matsim.episim.model.SymmetricContactModel} first gathers all contacts of a leaving person and evaluates their
+	 * infection probabilities at once, if the infection model is a {@link org.matsim.episim.model.BatchInfectionModel}.
+	 * Random numbers for the infections are drawn after all contacts were gathered, so results are statistically the same,
+	 * but not identical to the default.
+	 */
+	@StringGetter(BATCH_INFECTIONS)
+	public boolean isBatchInfections() {
+		return batchInfections;
+	}
+
+	@StringSetter(BATCH_INFECTIONS)
+	public void setBatchInfections(boolean batchInfections) {
+		this.batchInfections = batchInfections;
+	}
+
 	@StringGetter(WRITE_EVENTS)
 	public WriteEvents getWriteEvents() {
 		return writeEvents;
@@ -850,6 +1028,38 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 		reseed,
 	}
 
+	/**
+	 * Defines which random streams are used by the models.
+	 */
+	public enum RandomStreams {
+		/**
+		 * All models draw from one random generator, results depend on the order of processing.
+		 */
+		shared,
+
+		/**
+		 * Streams are derived from seed, iteration, container, person and purpose. Results are independent of the processing order.
+		 */
+		independent
+	}
+
+	/**
+	 * Defines how contact persons in a container are sampled.
+	 */
+	public enum ContactSampling {
+		/**
+		 * Draw one random number for every person in the container.
+		 */
+		bernoulli,
+
+		/**
+		 * Skip directly to the next contact person with geometrically distributed gaps. The distribution of contacts is the same,
+		 * but only the selected persons are visited, which is much faster for large containers. Random numbers are drawn differently.
+		 * Should be combined with {@link #setUnorderedContainers(boolean)}, otherwise removed persons are compacted before each leave event.
+		 */
+		geometric
+	}
+
 	/**
 	 * Parameter set for one activity type.
 	 */
@@ -860,6 +1070,17 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 		public static final String MAPPED_NAMES = "mappedNames";
 
 		static final String SET_TYPE = "infectionParams";
+
+		/**
+		 * Indices of all known container names, see {@link #getIndex()}.
+		 */
+		private static final Object2IntMap<String> CONTAINERS = new Object2IntOpenHashMap<>();
+		private static final List<String> CONTAINER_NAMES = new ArrayList<>();
+
+		static {
+			CONTAINERS.defaultReturnValue(-1);
+		}
+
 		/**
 		 * Name of the container as reference by {@link ShutdownPolicy}.
 		 */
@@ -876,6 +1097,11 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 		 */
 		private double spacesPerFacility = 20.;
 
+		/**
+		 * Index of the container name, see {@link #getIndex()}.
+		 */
+		private int index = -1;
+
 
 		/**
 		 * See {@link #InfectionParams(String, String...)}. Name itself will also be used as prefix.
@@ -908,6 +1134,7 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 			this.mappedNames = other.mappedNames;
 			this.contactIntensity = other.contactIntensity;
 			this.spacesPerFacility = other.spacesPerFacility;
+			this.index = other.index;
 		}
 
 		private InfectionParams() {
@@ -932,6 +1159,38 @@ public final class EpisimConfigGroup extends ReflectiveConfigGroup {
 		@StringSetter(ACTIVITY_TYPE)
 		void setContainerName(String actType) {
 			this.containerName = actType;
+			this.index = -1;
+		}
+
+		/**
+		 * Consecutive index of the container, which is the same for all params with the same container name.
+		 * Can be used to store values per container in arrays.
+		 */
+		public int getIndex() {
+			if (index == -1)
+				index = indexOf(containerName);
+
+			return index;
+		}
+
+		/**
+		 * Returns the index of a container name, which is assigned when it is first requested.
+		 */
+		public static synchronized int indexOf(String containerName) {
+			int idx = CONTAINERS.getInt(containerName);
+			if (idx == -1) {
+				idx = CONTAINER_NAMES.size();
+				CONTAINER_NAMES.add(containerName);
+				CONTAINERS.put(containerName, idx);
+			}
+			return idx;
+		}
+
+		/**
+		 * Number of container names that have an index.
+		 */
+		public static synchronized int getNumberOfIndices() {
+			return CONTAINER_NAMES.size();
 		}
 
 		/**
@@ -20,10 +20,6 @@
  */
 package org.matsim.episim;
 
-import it.unimi.dsi.fastutil.ints.Int2DoubleMap;
-import it.unimi.dsi.fastutil.ints.Int2DoubleOpenHashMap;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.gbl.Gbl;
@@ -31,9 +27,14 @@ import org.matsim.core.gbl.Gbl;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
 
 import static org.matsim.episim.EpisimUtils.readChars;
 import static org.matsim.episim.EpisimUtils.writeChars;
@@ -47,16 +48,42 @@ public class EpisimContainer<T> {
 	private final Id<T> containerId;
 
 	/**
-	 * Persons currently in this container. Stored only as Ids.
+	 * Persons currently in this container, each person knows its slot in this array.
+	 * If the container is ordered, persons are kept in order of entering and removed persons leave an empty slot,
+	 * which are compacted lazily before the persons are accessed. Otherwise the last person is moved into the slot.
 	 */
-	private final IntSet persons = new IntOpenHashSet(4);
+	private EpisimPerson[] persons = new EpisimPerson[4];
 
 	/**
-	 * Person list needed to draw random persons within container.
+	 * Enter times of the persons, stored at the same slot.
+	 */
+	private double[] containerEnterTimes = new double[4];
+
+	/**
+	 * Number of used slots, including empty ones.
+	 */
+	private int end = 0;
+
+	/**
+	 * Whether persons are kept in order of entering, see {@link EpisimConfigGroup#isUnorderedContainers()}.
+	 */
+	private boolean ordered = true;
+
+	/**
+	 * Number of persons in the container.
+	 */
+	private int size = 0;
+
+	/**
+	 * Number of susceptible and infectious persons in the container, see {@link #getNumSusceptible()} and {@link #getNumInfectious()}.
 	 */
-	private final List<EpisimPerson> personsAsList = new ArrayList<>();
+	private int susceptible = 0;
+	private int infectious = 0;
 
-	private final Int2DoubleMap containerEnterTimes = new Int2DoubleOpenHashMap(4);
+	/**
+	 * Person list needed to draw random persons within container.
+	 */
+	private final List<EpisimPerson> personsAsList = new PersonList();
 
 	/**
 	 * The maximum number of persons simultaneously in this container. Negative if unknown.
@@ -79,6 +106,21 @@ public class EpisimContainer<T> {
 	 */
 	private double numSpaces = 1;
 
+	/**
+	 * Index of this container in the replayed events, -1 if not known.
+	 */
+	private int index = -1;
+
+	/**
+	 * Random stream of this container, only used during parallel replay.
+	 */
+	private SplittableRandom rnd;
+
+	/**
+	 * Persons that got infected in this container, created when the first person is added.
+	 */
+	private List<EpisimPerson> infected = null;
+
 	EpisimContainer(Id<T> containerId) {
 		this.containerId = containerId;
 	}
@@ -88,16 +130,12 @@ public class EpisimContainer<T> {
 	 */
 	void read(ObjectInput in, Map<Id<Person>, EpisimPerson> persons) throws IOException {
 
-		this.persons.clear();
-		this.personsAsList.clear();
-		this.containerEnterTimes.clear();
+		clearPersons();
 
 		int n = in.readInt();
 		for (int i = 0; i < n; i++) {
 			Id<Person> id = Id.create(readChars(in), Person.class);
-			this.persons.add(id.index());
-			personsAsList.add(persons.get(id));
-			containerEnterTimes.put(id.index(), in.readDouble());
+			insert(persons.get(id), in.readDouble());
 		}
 	}
 
@@ -106,37 +144,116 @@ public class EpisimContainer<T> {
 	 */
 	void write(ObjectOutput out) throws IOException {
 
-		out.writeInt(containerEnterTimes.size());
-		for (EpisimPerson p : personsAsList) {
-			writeChars(out, p.getPersonId().toString());
-			out.writeDouble(containerEnterTimes.get(p.getPersonId().index()));
+		compact();
+
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			writeChars(out, persons[i].getPersonId().toString());
+			out.writeDouble(containerEnterTimes[i]);
 		}
 	}
 
 	void addPerson(EpisimPerson person, double now) {
-		final int index = person.getPersonId().index();
 
-		assert !persons.contains(index) : "Person already contained in this container.";
+		assert person.getCurrentContainer() != this : "Person already contained in this container.";
 
-		persons.add(index);
-		personsAsList.add(person);
-		containerEnterTimes.put(index, now);
 		person.setCurrentContainer(this);
+		insert(person, now);
+	}
+
+	private void insert(EpisimPerson person, double now) {
+
+		if (end == persons.length) {
+			// compact only if it frees enough space, otherwise grow
+			if (end - size > end >> 2)
+				compact();
+			else {
+				persons = Arrays.copyOf(persons, end * 2);
+				containerEnterTimes = Arrays.copyOf(containerEnterTimes, end * 2);
+			}
+		}
+
+		persons[end] = person;
+		containerEnterTimes[end] = now;
+		person.setContainerSlot(end);
+		end++;
+		size++;
+		count(person.getDiseaseStatus(), 1);
 	}
 
 	/**
-	 * Removes a person from this container.
+	 * Removes a person from this container in constant time. In an ordered container, the empty slot is compacted
+	 * the next time the persons are accessed.
 	 *
 	 * @throws RuntimeException if the person was not in the container.
 	 */
 	void removePerson(EpisimPerson person) {
-		int index = person.getPersonId().index();
-
-		containerEnterTimes.remove(index);
-		persons.remove(index);
 		person.removeCurrentContainer(this);
-		boolean wasRemoved = personsAsList.remove(person);
-		Gbl.assertIf(wasRemoved);
+
+		int slot = person.getContainerSlot();
+		Gbl.assertIf(slot < end && persons[slot] == person);
+
+		size--;
+		count(person.getDiseaseStatus(), -1);
+
+		if (!ordered) {
+			EpisimPerson last = persons[--end];
+			persons[slot] = last;
+			containerEnterTimes[slot] = containerEnterTimes[end];
+			last.setContainerSlot(slot);
+			persons[end] = null;
+			return;
+		}
+
+		persons[slot] = null;
+
+		// trailing empty slots can be reused right away
+		while (end > 0 && persons[end - 1] == null)
+			end--;
+	}
+
+	/**
+	 * Updates the counts when the disease status of a person in this container changed.
+	 */
+	void changeDiseaseStatus(EpisimPerson.DiseaseStatus from, EpisimPerson.DiseaseStatus to) {
+		count(from, -1);
+		count(to, 1);
+	}
+
+	private void count(EpisimPerson.DiseaseStatus status, int delta) {
+		switch (status) {
+			case susceptible:
+				susceptible += delta;
+				break;
+			case contagious:
+			case showingSymptoms:
+				infectious += delta;
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Removes empty slots, while keeping the order of persons.
+	 */
+	private void compact() {
+		if (end == size)
+			return;
+
+		int j = 0;
+		for (int i = 0; i < end; i++) {
+			EpisimPerson p = persons[i];
+			if (p != null) {
+				persons[j] = p;
+				containerEnterTimes[j] = containerEnterTimes[i];
+				p.setContainerSlot(j);
+				j++;
+			}
+		}
+
+		Arrays.fill(persons, j, end, null);
+		end = j;
 	}
 
 	public Id<T> getContainerId() {
@@ -191,21 +308,126 @@ public class EpisimContainer<T> {
 		this.numSpaces = numSpaces;
 	}
 
+	/**
+	 * Index of this container, which is consecutive for all containers. -1 if not known.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	void setIndex(int index) {
+		this.index = index;
+	}
+
+	/**
+	 * Sets whether persons are kept in order of entering. Can be changed while persons are in the container.
+	 */
+	void setOrdered(boolean ordered) {
+		compact();
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Random stream of this container during parallel replay, otherwise null.
+	 */
+	public SplittableRandom getRandom() {
+		return rnd;
+	}
+
+	void setRandom(SplittableRandom rnd) {
+		this.rnd = rnd;
+	}
+
 	void clearPersons() {
-		this.persons.clear();
-		this.personsAsList.clear();
-		this.containerEnterTimes.clear();
+		Arrays.fill(persons, 0, end, null);
+		end = 0;
+		size = 0;
+		susceptible = 0;
+		infectious = 0;
+	}
+
+	/**
+	 * Returns the time the person entered the container, or {@link Double#NEGATIVE_INFINITY} if it is not in this container.
+	 */
+	public double getContainerEnteringTime(EpisimPerson person) {
+		if (person.getCurrentContainer() != this)
+			return Double.NEGATIVE_INFINITY;
+
+		return containerEnterTimes[person.getContainerSlot()];
 	}
 
 	/**
-	 * Returns the time the person entered the container, or {@link Double#NEGATIVE_INFINITY} if it never entered.
+	 * Returns the time the person entered the container, or {@link Double#NEGATIVE_INFINITY} if it is not in this container.
+	 * Prefer {@link #getContainerEnteringTime(EpisimPerson)}, which does not need to search the person.
 	 */
 	public double getContainerEnteringTime(Id<Person> personId) {
-		return containerEnterTimes.getOrDefault(personId.index(), Double.NEGATIVE_INFINITY);
+		for (int i = 0; i < end; i++) {
+			if (persons[i] != null && persons[i].getPersonId() == personId)
+				return containerEnterTimes[i];
+		}
+
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Number of susceptible persons in the container.
+	 */
+	public int getNumSusceptible() {
+		return susceptible;
+	}
+
+	/**
+	 * Number of persons in the container that are contagious or showing symptoms.
+	 */
+	public int getNumInfectious() {
+		return infectious;
+	}
+
+	/**
+	 * Add a person that got infected in this container.
+	 */
+	void addInfectedPerson(EpisimPerson person) {
+		if (infected == null)
+			infected = new ArrayList<>(4);
+
+		infected.add(person);
+	}
+
+	/**
+	 * Persons that got infected in this container, in order of infection.
+	 * Persons that were infected again somewhere else or more than once are also contained, see {@link EpisimPerson#getInfectionContainer()}.
+	 */
+	public List<EpisimPerson> getInfectedPersons() {
+		return infected == null ? Collections.emptyList() : Collections.unmodifiableList(infected);
 	}
 
 	public List<EpisimPerson> getPersons() {
 		// Using Collections.unmodifiableList(...) puts huge pressure on the GC if its called hundred thousand times per second
 		return personsAsList;
 	}
+
+	/**
+	 * Read-only view on the persons, which removes empty slots before they are accessed.
+	 * This is only needed for ordered containers, unordered containers never have empty slots.
+	 */
+	private final class PersonList extends AbstractList<EpisimPerson> {
+
+		@Override
+		public EpisimPerson get(int index) {
+			compact();
+			Objects.checkIndex(index, size);
+			return persons[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Object[] toArray() {
+			compact();
+			return Arrays.copyOf(persons, size, Object[].class);
+		}
+	}
 }
@@ -21,55 +21,67 @@
 package org.matsim.episim;
 
 import com.google.common.annotations.Beta;
-import it.unimi.dsi.fastutil.objects.Object2DoubleLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.objects.Object2DoubleMap;
 import it.unimi.dsi.fastutil.objects.Object2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.episim.events.EpisimPersonStatusEvent;
+import org.matsim.episim.model.InfectionModelWithViralLoad;
+import org.matsim.episim.model.RandomInitialInfections;
 import org.matsim.episim.model.VirusStrain;
 import org.matsim.facilities.ActivityFacility;
 import org.matsim.utils.objectattributes.attributable.Attributable;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 import org.matsim.vehicles.Vehicle;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.time.DayOfWeek;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.EnumMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import static org.matsim.episim.EpisimUtils.readChars;
 import static org.matsim.episim.EpisimUtils.writeChars;
 
 /**
  * Persons current state in the simulation.
+ * Most of the state is held in a {@link PersonStore}, which is usually shared by all persons.
+ * <p>
+ * Attributes are read once when the person is created, changing them afterwards has no effect on the simulation.
+ * The trajectory is built during init and is frozen once it has been interned, see {@link #internTrajectory(TrajectoryPool)}.
  */
 public final class EpisimPerson implements Attributable {
 
+	private static final DiseaseStatus[] DISEASE_STATUS = DiseaseStatus.values();
+	private static final QuarantineStatus[] QUARANTINE_STATUS = QuarantineStatus.values();
+	private static final VaccinationStatus[] VACCINATION_STATUS = VaccinationStatus.values();
+	private static final VirusStrain[] VIRUS_STRAIN = VirusStrain.values();
+
 	private final Id<Person> personId;
+	private final PersonStore store;
+	/**
+	 * Index of this person in the {@link #store}.
+	 */
+	private final int index;
 	private final EpisimReporting reporting;
 	// This data structure is quite slow: log n costs, which should be constant...
 	private final Attributes attributes;
 
 	/**
-	 * Whole trajectory over all days of the week.
-	 */
-	private final List<Activity> trajectory = new ArrayList<>();
-
-	/**
-	 * The position in the trajectory at the start for each day of the week.
+	 * Whole trajectory over all days of the week. Replaced by an unmodifiable view once it has been moved into the {@link TrajectoryPool}.
 	 */
-	private final int[] startOfDay = new int[7];
-
-	/**
-	 * The position in the trajectory for the end of the day.
-	 */
-	private final int[] endOfDay = new int[7];
+	private List<Activity> trajectory = new ArrayList<>();
 
 	/**
 	 * The first visited {@link org.matsim.facilities.ActivityFacility} for each day.
@@ -79,14 +91,9 @@ public final class EpisimPerson implements Attributable {
 	// Fields above are initialized from the sim and not persisted
 
 	/**
-	 * Traced contacts with other persons.
+	 * Traced contacts with other persons, in order of the first contact. Not used if the store has a shared {@link ContactLog}.
 	 */
-	private final Object2DoubleMap<EpisimPerson> traceableContactPersons = new Object2DoubleLinkedOpenHashMap<>(4);
-
-	/**
-	 * Stores first time of status changes to specific type.
-	 */
-	private final EnumMap<DiseaseStatus, Double> statusChanges = new EnumMap<>(DiseaseStatus.class);
+	private final TraceableContacts traceableContactPersons = new TraceableContacts();
 
 	/**
 	 * Total spent time during activities.
@@ -104,49 +111,14 @@ public final class EpisimPerson implements Attributable {
 	private Id<ActivityFacility> infectionContainer = null;
 
 	/**
-	 * The infection type when the person got infected. Can be null if person was initially infected.
-	 */
-	private String infectionType = null;
-
-	/**
-	 * Current {@link DiseaseStatus}.
-	 */
-	private DiseaseStatus status = DiseaseStatus.susceptible;
-	/**
-	 * Current {@link QuarantineStatus}.
-	 */
-	private QuarantineStatus quarantineStatus = QuarantineStatus.no;
-
-	/**
-	 * Strain of the virus the person was infected with.
-	 */
-	private VirusStrain virusStrain = VirusStrain.SARS_CoV_2;
-
-	/**
-	 * Current {@link VaccinationStatus}.
+	 * The container with id {@link #infectionContainer}, which keeps an index of all persons infected there.
 	 */
-	private VaccinationStatus vaccinationStatus = VaccinationStatus.no;
+	private EpisimContainer<?> infectionLocation = null;
 
 	/**
-	 * Iteration when this person was vaccinated. Negative if person was never vaccinated.
-	 */
-	private int vaccinationDate = -1;
-
-	/**
-	 * Iteration when this person got into quarantine. Negative if person was never quarantined.
-	 */
-	private int quarantineDate = -1;
-	private int currentPositionInTrajectory;
-
-	/**
-	 * Age of the person in years.
-	 */
-	private final int age;
-
-	/**
-	 * Whether this person can be traced.
+	 * The infection type when the person got infected. Can be null if person was initially infected.
 	 */
-	private boolean traceable;
+	private String infectionType = null;
 
 	/**
 	 * Lookup age from attributes.
@@ -169,11 +141,34 @@ public final class EpisimPerson implements Attributable {
 	}
 
 	EpisimPerson(Id<Person> personId, Attributes attrs, boolean traceable, EpisimReporting reporting) {
+		this(personId, attrs, traceable, reporting, new PersonStore(1));
+	}
+
+	/**
+	 * Creates a new person in the given store.
+	 */
+	EpisimPerson(Id<Person> personId, Attributes attrs, boolean traceable, EpisimReporting reporting, PersonStore store) {
 		this.personId = personId;
 		this.attributes = attrs;
-		this.traceable = traceable;
-		this.age = getAge(attrs);
 		this.reporting = reporting;
+		this.store = store;
+		this.index = store.add(getAge(attrs), traceable);
+		store.persons[index] = this;
+
+		store.district[index] = store.districts.code((String) attrs.getAttribute("district"));
+		store.home[index] = store.homes.code((String) attrs.getAttribute("homeId"));
+
+		Object value = attrs.getAttribute(RandomInitialInfections.MODELED_AGE);
+		if (value != null)
+			store.modeledAge[index] = (short) (int) value;
+
+		value = attrs.getAttribute(InfectionModelWithViralLoad.SUSCEPTIBILITY);
+		if (value != null)
+			store.susceptibility[index] = (double) value;
+
+		value = attrs.getAttribute(InfectionModelWithViralLoad.VIRAL_LOAD);
+		if (value != null)
+			store.viralLoad[index] = (double) value;
 	}
 
 	/**
@@ -189,14 +184,17 @@ public final class EpisimPerson implements Attributable {
 		traceableContactPersons.clear();
 		for (int i = 0; i < n; i++) {
 			Id<Person> id = Id.create(readChars(in), Person.class);
-			traceableContactPersons.put(persons.get(id), in.readDouble());
+			if (store.contacts != null)
+				store.contacts.add(index, persons.get(id).index, in.readDouble());
+			else
+				traceableContactPersons.add(persons.get(id).index, in.readDouble());
 		}
 
 		n = in.readInt();
-		statusChanges.clear();
+		Arrays.fill(store.statusChanges, index * PersonStore.STATUS, (index + 1) * PersonStore.STATUS, PersonStore.NO_CHANGE);
 		for (int i = 0; i < n; i++) {
 			int status = in.readInt();
-			statusChanges.put(DiseaseStatus.values()[status], in.readDouble());
+			store.statusChanges[index * PersonStore.STATUS + status] = toDay(in.readDouble());
 		}
 
 		// Current container is set
@@ -214,7 +212,14 @@ public final class EpisimPerson implements Attributable {
 			currentContainer = null;
 
 		if (in.readBoolean()){
-			infectionContainer = Id.create(readChars(in), ActivityFacility.class);
+			String name = readChars(in);
+			infectionContainer = Id.create(name, ActivityFacility.class);
+			infectionLocation = facilities.get(infectionContainer);
+			if (infectionLocation == null)
+				infectionLocation = vehicles.get(Id.create(name, Vehicle.class));
+
+			if (infectionLocation != null)
+				infectionLocation.addInfectedPerson(this);
 		}
 
 		if (in.readBoolean()) {
@@ -228,14 +233,14 @@ public final class EpisimPerson implements Attributable {
 			spentTime.put(act, in.readDouble());
 		}
 
-		status = DiseaseStatus.values()[in.readInt()];
-		virusStrain = VirusStrain.values()[in.readInt()];
-		quarantineStatus = QuarantineStatus.values()[in.readInt()];
-		quarantineDate = in.readInt();
-		vaccinationStatus = VaccinationStatus.values()[in.readInt()];
-		vaccinationDate = in.readInt();
-		currentPositionInTrajectory = in.readInt();
-		traceable = in.readBoolean();
+		store.status[index] = (byte) in.readInt();
+		store.virusStrain[index] = (byte) in.readInt();
+		store.quarantineStatus[index] = (byte) in.readInt();
+		store.quarantineDate[index] = in.readInt();
+		store.vaccinationStatus[index] = (byte) in.readInt();
+		store.vaccinationDate[index] = in.readInt();
+		store.currentPositionInTrajectory[index] = in.readInt();
+		store.traceable[index] = in.readBoolean();
 	}
 
 	/**
@@ -243,16 +248,37 @@ public final class EpisimPerson implements Attributable {
 	 */
 	void write(ObjectOutput out) throws IOException {
 
-		out.writeInt(traceableContactPersons.size());
-		for (Map.Entry<EpisimPerson, Double> kv : traceableContactPersons.entrySet()) {
-			writeChars(out, kv.getKey().getPersonId().toString());
-			out.writeDouble(kv.getValue());
+		if (store.contacts != null) {
+			IntArrayList others = new IntArrayList();
+			DoubleArrayList times = new DoubleArrayList();
+			store.contacts.get(index, Double.NEGATIVE_INFINITY, others, times);
+
+			out.writeInt(others.size());
+			for (int i = 0; i < others.size(); i++) {
+				writeChars(out, store.persons[others.getInt(i)].getPersonId().toString());
+				out.writeDouble(times.getDouble(i));
+			}
+		} else {
+			out.writeInt(traceableContactPersons.size());
+			for (int i = 0; i < traceableContactPersons.size(); i++) {
+				writeChars(out, store.persons[traceableContactPersons.getPerson(i)].getPersonId().toString());
+				out.writeDouble(traceableContactPersons.getTime(i));
+			}
 		}
 
-		out.writeInt(statusChanges.size());
-		for (Map.Entry<DiseaseStatus, Double> e : statusChanges.entrySet()) {
-			out.writeInt(e.getKey().ordinal());
-			out.writeDouble(e.getValue());
+		int n = 0;
+		for (int i = 0; i < PersonStore.STATUS; i++) {
+			if (store.statusChanges[index * PersonStore.STATUS + i] != PersonStore.NO_CHANGE)
+				n++;
+		}
+
+		out.writeInt(n);
+		for (int i = 0; i < PersonStore.STATUS; i++) {
+			int day = store.statusChanges[index * PersonStore.STATUS + i];
+			if (day != PersonStore.NO_CHANGE) {
+				out.writeInt(i);
+				out.writeDouble(day * 86400d);
+			}
 		}
 
 		out.writeBoolean(currentContainer != null);
@@ -278,39 +304,57 @@ public final class EpisimPerson implements Attributable {
 			out.writeDouble(kv.getDoubleValue());
 		}
 
-		out.writeInt(status.ordinal());
-		out.writeInt(virusStrain.ordinal());
-		out.writeInt(quarantineStatus.ordinal());
-		out.writeInt(quarantineDate);
-		out.writeInt(vaccinationStatus.ordinal());
-		out.writeInt(vaccinationDate);
-		out.writeInt(currentPositionInTrajectory);
-		out.writeBoolean(traceable);
+		out.writeInt(store.status[index]);
+		out.writeInt(store.virusStrain[index]);
+		out.writeInt(store.quarantineStatus[index]);
+		out.writeInt(store.quarantineDate[index]);
+		out.writeInt(store.vaccinationStatus[index]);
+		out.writeInt(store.vaccinationDate[index]);
+		out.writeInt(store.currentPositionInTrajectory[index]);
+		out.writeBoolean(store.traceable[index]);
 	}
 
 	public Id<Person> getPersonId() {
 		return personId;
 	}
 
+	/**
+	 * Consecutive index of this person, assigned in order of creation.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Day of a point in time, status changes are only stored with this resolution.
+	 */
+	private static int toDay(double time) {
+		return (int) Math.floor(time / 86400d);
+	}
+
 	public DiseaseStatus getDiseaseStatus() {
-		return status;
+		return DISEASE_STATUS[store.status[index]];
 	}
 
 	public void setDiseaseStatus(double now, DiseaseStatus status) {
-		this.status = status;
-		if (!statusChanges.containsKey(status))
-			statusChanges.put(status, now);
+		DiseaseStatus previous = getDiseaseStatus();
+		store.status[index] = (byte) status.ordinal();
+		if (currentContainer != null)
+			currentContainer.changeDiseaseStatus(previous, status);
+
+		if (!hadDiseaseStatus(status))
+			store.statusChanges[index * PersonStore.STATUS + status.ordinal()] = toDay(now);
 
 		reporting.reportPersonStatus(this, new EpisimPersonStatusEvent(now, personId, status));
 	}
 
 	public QuarantineStatus getQuarantineStatus() {
-		return quarantineStatus;
+		return QUARANTINE_STATUS[store.quarantineStatus[index]];
 	}
 
 	public void setQuarantineStatus(QuarantineStatus quarantineStatus, int iteration) {
-		this.quarantineStatus = quarantineStatus;
-		this.quarantineDate = iteration;
+		store.quarantineStatus[index] = (byte) quarantineStatus.ordinal();
+		store.quarantineDate[index] = iteration;
 
 		// this function should receive now instead of iteration
 		// only for testing currently
@@ -318,22 +362,22 @@ public final class EpisimPerson implements Attributable {
 	}
 
 	public void setVirusStrain(VirusStrain virusStrain) {
-		this.virusStrain = virusStrain;
+		store.virusStrain[index] = (byte) virusStrain.ordinal();
 	}
 
 	public VirusStrain getVirusStrain() {
-		return virusStrain;
+		return VIRUS_STRAIN[store.virusStrain[index]];
 	}
 
 	public VaccinationStatus getVaccinationStatus() {
-		return vaccinationStatus;
+		return VACCINATION_STATUS[store.vaccinationStatus[index]];
 	}
 
 	public void setVaccinationStatus(VaccinationStatus vaccinationStatus, int iteration) {
 		if (vaccinationStatus != VaccinationStatus.yes) throw new IllegalArgumentException("Vaccination can only be set to yes.");
 
-		this.vaccinationStatus = vaccinationStatus;
-		this.vaccinationDate = iteration;
+		store.vaccinationStatus[index] = (byte) vaccinationStatus.ordinal();
+		store.vaccinationDate[index] = iteration;
 	}
 
 	/**
@@ -345,18 +389,16 @@ public final class EpisimPerson implements Attributable {
 	 * @throws IllegalStateException when the requested status was never set
 	 */
 	public int daysSince(DiseaseStatus status, int currentDay) {
-		if (!statusChanges.containsKey(status)) throw new IllegalStateException("Person was never " + status);
+		if (!hadDiseaseStatus(status)) throw new IllegalStateException("Person was never " + status);
 
-		double day = Math.floor(statusChanges.get(status) / 86400d);
-
-		return currentDay - (int) day;
+		return currentDay - store.statusChanges[index * PersonStore.STATUS + status.ordinal()];
 	}
 
 	/**
 	 * Return whether a person had (or currently has) a certain disease status.
 	 */
 	public boolean hadDiseaseStatus(DiseaseStatus status) {
-		return statusChanges.containsKey(status);
+		return store.statusChanges[index * PersonStore.STATUS + status.ordinal()] != PersonStore.NO_CHANGE;
 	}
 
 	/**
@@ -370,9 +412,9 @@ public final class EpisimPerson implements Attributable {
 
 		// yyyy since this API is so unstable, I would prefer to have the class non-public.  kai, apr'20
 		// -> api now marked as unstable and containing an api note, because it is used by the models it has to be public. chr, apr'20
-		if (quarantineDate < 0) throw new IllegalStateException("Person was never quarantined");
+		if (store.quarantineDate[index] < 0) throw new IllegalStateException("Person was never quarantined");
 
-		return currentDay - quarantineDate;
+		return currentDay - store.quarantineDate[index];
 	}
 
 	/**
@@ -384,101 +426,154 @@ public final class EpisimPerson implements Attributable {
 		if (status != VaccinationStatus.yes) throw new IllegalArgumentException("Only supports querying when person was vaccinated");
 		if (currentDay < 0) throw new IllegalStateException("Person was never vaccinated");
 
-		return currentDay - vaccinationDate;
+		return currentDay - store.vaccinationDate[index];
 	}
 
 	int getQuarantineDate() {
-		return this.quarantineDate;
+		return store.quarantineDate[index];
 	}
 
+	/**
+	 * Adds a traced contact with another person, which must be part of the same {@link PersonStore}.
+	 */
 	public void addTraceableContactPerson(EpisimPerson personWrapper, double now) {
 		// check if both persons have tracing capability
 		if (isTraceable() && personWrapper.isTraceable()) {
-			// Always use the latest tracking date
-			traceableContactPersons.put(personWrapper, now);
+			if (personWrapper.store != store)
+				throw new IllegalArgumentException("Contact person " + personWrapper.getPersonId() + " belongs to a different store.");
+
+			if (store.contacts != null)
+				store.contacts.add(index, personWrapper.index, now);
+			else
+				traceableContactPersons.add(personWrapper.index, now);
+
 			reporting.reportTracing(now, this, personWrapper);
 		}
 	}
 
 	/**
-	 * Get all traced contacts that happened after certain time.
+	 * Get all traced contacts that happened after certain time, in order of their first contact.
+	 * Repeated contacts count with their latest time.
 	 */
 	public List<EpisimPerson> getTraceableContactPersons(double after) {
-		return traceableContactPersons.object2DoubleEntrySet()
-				.stream().filter(p -> p.getDoubleValue() >= after)
-				.map(Map.Entry::getKey)
-				.collect(Collectors.toList());
 
-		// yyyy if the computationally intensive operation is to search by time, we should sort traceableContactPersons by time.  To simplify this, I
-		// would argue that it is not a problem to have a person in there multiple times.  kai, may'20
+		if (store.contacts != null) {
+			IntList contacts = store.contacts.getContacts(index, after);
+			List<EpisimPerson> result = new ArrayList<>(contacts.size());
+			for (int i = 0; i < contacts.size(); i++)
+				result.add(store.persons[contacts.getInt(i)]);
+
+			return result;
+		}
+
+		List<EpisimPerson> result = new ArrayList<>();
+		for (int i = 0; i < traceableContactPersons.size(); i++) {
+			if (traceableContactPersons.getTime(i) >= after)
+				result.add(store.persons[traceableContactPersons.getPerson(i)]);
+		}
 
+		return result;
 	}
 
 	/**
 	 * Remove old contact tracing data before a certain date.
 	 */
 	public void clearTraceableContractPersons(double before) {
-
-		int oldSize = traceableContactPersons.size();
-
-		if (oldSize == 0) return;
-
-		traceableContactPersons.keySet().removeIf(k -> traceableContactPersons.get(k) < before);
+		if (store.contacts != null)
+			store.contacts.removeBefore(index, before);
+		else
+			traceableContactPersons.removeBefore(before);
 	}
 
 	/**
 	 * Returns whether the person can be traced.
 	 */
 	public boolean isTraceable() {
-		return traceable;
+		return store.traceable[index];
 	}
 
 	public void setTraceable(boolean traceable) {
-		this.traceable = traceable;
+		store.traceable[index] = traceable;
 	}
 
 	void addToTrajectory(Activity trajectoryElement) {
+		if (trajectory instanceof InternedTrajectory)
+			throw new IllegalStateException("Trajectory of person=" + personId + " can not be modified anymore.");
+
 		trajectory.add(trajectoryElement);
 	}
 
+	/**
+	 * Moves the trajectory into the shared pool of the store, after which it can not be modified anymore.
+	 */
+	void internTrajectory(TrajectoryPool pool) {
+		if (store.trajectories != pool)
+			throw new IllegalArgumentException("Pool does not belong to the person store.");
+
+		store.trajectoryOffset[index] = pool.add(trajectory);
+		store.trajectoryLength[index] = trajectory.size();
+		trajectory = new InternedTrajectory();
+	}
+
+	/**
+	 * Whole trajectory over all days of the week. Unmodifiable once it has been interned.
+	 */
 	public List<Activity> getTrajectory() {
 		return trajectory;
 	}
 
+	/**
+	 * Activity at a certain position of the trajectory.
+	 */
+	public Activity getActivity(int position) {
+		return trajectory.get(position);
+	}
+
+	/**
+	 * Activity at the current position of the trajectory.
+	 */
+	public Activity getCurrentActivity() {
+		return getActivity(getCurrentPositionInTrajectory());
+	}
+
+	int getTrajectorySize() {
+		return trajectory.size();
+	}
+
 	public int getCurrentPositionInTrajectory() {
-		return this.currentPositionInTrajectory;
+		return store.currentPositionInTrajectory[index];
 	}
 
 	void incrementCurrentPositionInTrajectory() {
-		this.currentPositionInTrajectory++;
+		store.currentPositionInTrajectory[index]++;
 	}
 
 	void resetCurrentPositionInTrajectory(DayOfWeek day) {
-		currentPositionInTrajectory = startOfDay[day.getValue() - 1];
+		store.currentPositionInTrajectory[index] = getStartOfDay(day);
 	}
 
 	void setStartOfDay(DayOfWeek day, int position) {
-		startOfDay[day.getValue() - 1] = position;
+		store.startOfDay[index * PersonStore.DAYS + day.getValue() - 1] = position;
 	}
 
 	int getStartOfDay(DayOfWeek day) {
-		return startOfDay[day.getValue() - 1];
+		return store.startOfDay[index * PersonStore.DAYS + day.getValue() - 1];
 	}
 
 	void setEndOfDay(DayOfWeek day, int position) {
-		endOfDay[day.getValue() - 1] = position;
+		store.endOfDay[index * PersonStore.DAYS + day.getValue() - 1] = position;
 	}
 
 	int getEndOfDay(DayOfWeek day) {
-		return endOfDay[day.getValue() - 1];
+		return store.endOfDay[index * PersonStore.DAYS + day.getValue() - 1];
 	}
 
 	/**
 	 * Defines that day {@code target} has the same trajectory as {@code source}.
 	 */
 	void duplicateDay(DayOfWeek target, DayOfWeek source) {
-		startOfDay[target.getValue() - 1] = startOfDay[source.getValue() - 1];
-		endOfDay[target.getValue() - 1] = endOfDay[source.getValue() - 1];
+		setStartOfDay(target, getStartOfDay(source));
+		setEndOfDay(target, getEndOfDay(source));
 		firstFacilityId[target.getValue() - 1] = firstFacilityId[source.getValue() - 1];
 	}
 
@@ -499,18 +594,96 @@ public final class EpisimPerson implements Attributable {
 		this.currentContainer = container;
 	}
 
+	/**
+	 * Attributes of the person. The values which are needed during the simulation are resolved at creation
+	 * and also available via typed getters, e.g. {@link #getDistrict()} or {@link #getHomeId()}.
+	 * <p>
+	 * <b>Note:</b> the typed getters and all models work on a snapshot taken when the person is created.
+	 * Attributes that are put or changed afterwards are <b>not</b> seen by the simulation, i.e. age, district, home id, susceptibility
+	 * and viral load need to be set before the person is created.
+	 */
 	@Override
 	public Attributes getAttributes() {
 		return attributes;
 	}
 
+	/**
+	 * District of the person or null if not known.
+	 */
+	public String getDistrict() {
+		return store.districts.get(store.district[index]);
+	}
+
+	/**
+	 * Code of the district in {@link #getDistricts()}, -1 if not known.
+	 */
+	int getDistrictCode() {
+		return store.district[index];
+	}
+
+	/**
+	 * All districts of the store this person belongs to.
+	 */
+	PersonStore.Dictionary getDistricts() {
+		return store.districts;
+	}
+
+	/**
+	 * Id of the home facility or null if not known.
+	 */
+	public String getHomeId() {
+		return store.homes.get(store.home[index]);
+	}
+
+	/**
+	 * Susceptibility of the person, 1 if not present as attribute.
+	 */
+	public double getSusceptibility() {
+		return store.susceptibility[index];
+	}
+
+	/**
+	 * Viral load of the person, 1 if not present as attribute.
+	 */
+	public double getViralLoad() {
+		return store.viralLoad[index];
+	}
+
+	/**
+	 * Age from the {@link RandomInitialInfections#MODELED_AGE} attribute, -1 if not present.
+	 */
+	public int getModeledAge() {
+		return store.modeledAge[index];
+	}
+
+	/**
+	 * Age of the person or {@code defaultValue} if it is not known.
+	 */
+	public int getAgeOrDefault(int defaultValue) {
+		int age = store.age[index];
+		return age == -1 ? defaultValue : age;
+	}
+
 	public int getAge() {
+		int age = store.age[index];
+
 		assert age != -1 : "Person=" + getPersonId().toString() + " has no age. Age dependent progression is not possible.";
 		assert age >= 0 && age <= 120 : "Age of person=" + getPersonId().toString() + " is not plausible. Age is=" + age;
 
 		return age;
 	}
 
+	/**
+	 * Slot within the current container, only valid while the person is in a container.
+	 */
+	int getContainerSlot() {
+		return store.containerSlot[index];
+	}
+
+	void setContainerSlot(int slot) {
+		store.containerSlot[index] = slot;
+	}
+
 	/**
 	 * Whether person is currently in a container.
 	 */
@@ -535,12 +708,22 @@ public final class EpisimPerson implements Attributable {
 
 	public void setInfectionContainer(EpisimContainer<?> container) {
 		this.infectionContainer = (Id<ActivityFacility>) container.getContainerId();
+		this.infectionLocation = container;
+		container.addInfectedPerson(this);
 	}
 
 	public Id<ActivityFacility> getInfectionContainer() {
 		return infectionContainer;
 	}
 
+	/**
+	 * The container where the person got infected, which is null if the person was initially infected or the container could not be restored.
+	 */
+	@Nullable
+	public EpisimContainer<?> getInfectionLocation() {
+		return infectionLocation;
+	}
+
 	public void setInfectionType(String infectionType) {
 		this.infectionType = infectionType;
 	}
@@ -570,6 +753,23 @@ public final class EpisimPerson implements Attributable {
 				'}';
 	}
 
+	/**
+	 * Read-only view of the trajectory in the {@link TrajectoryPool} of the store.
+	 */
+	private final class InternedTrajectory extends AbstractList<Activity> {
+
+		@Override
+		public Activity get(int position) {
+			Objects.checkIndex(position, store.trajectoryLength[index]);
+			return store.trajectories.get(store.trajectoryOffset[index], position);
+		}
+
+		@Override
+		public int size() {
+			return store.trajectoryLength[index];
+		}
+	}
+
 	/**
 	 * Disease status of a person.
 	 */
@@ -593,15 +793,55 @@ public final class EpisimPerson implements Attributable {
 	 */
 	public static final class Activity {
 
+		/**
+		 * Ids of all known activity types, see {@link #typeId}.
+		 */
+		private static final Object2IntMap<String> TYPES = new Object2IntOpenHashMap<>();
+		private static final List<String> TYPE_NAMES = new ArrayList<>();
+
+		static {
+			TYPES.defaultReturnValue(-1);
+		}
+
 		public final String actType;
 		public final EpisimConfigGroup.InfectionParams params;
 
+		/**
+		 * Small consecutive id of {@link #actType}, equal for all activities with the same type.
+		 */
+		public final int typeId;
+
 		/**
 		 * Constructor.
 		 */
 		public Activity(String actType, EpisimConfigGroup.InfectionParams params) {
 			this.actType = actType;
 			this.params = params;
+			this.typeId = typeId(actType);
+		}
+
+		private static synchronized int typeId(String actType) {
+			int id = TYPES.getInt(actType);
+			if (id == -1) {
+				id = TYPE_NAMES.size();
+				TYPE_NAMES.add(actType);
+				TYPES.put(actType, id);
+			}
+			return id;
+		}
+
+		/**
+		 * Number of activity types known so far. Ids are always lower than this number.
+		 */
+		public static synchronized int getNumberOfTypes() {
+			return TYPE_NAMES.size();
+		}
+
+		/**
+		 * Activity type of an id.
+		 */
+		public static synchronized String getType(int typeId) {
+			return TYPE_NAMES.get(typeId);
 		}
 
 		@Override
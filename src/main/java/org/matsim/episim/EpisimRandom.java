@@ -0,0 +1,126 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import com.google.inject.Inject;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Provides random streams for the models, see {@link EpisimConfigGroup.RandomStreams}.
+ * <p>
+ * Independent streams are derived only from the global seed, the iteration, the container and person index and the purpose.
+ * The random numbers drawn for one entity therefore do not depend on the order in which entities are processed.
+ * With shared streams all models draw from the one global random generator.
+ */
+public final class EpisimRandom {
+
+	/**
+	 * Index to use when a stream is not specific for a container or person.
+	 */
+	public static final int NONE = -1;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final SplittableRandom rnd;
+	private final long seed;
+	private final boolean independent;
+
+	@Inject
+	public EpisimRandom(Config config, SplittableRandom rnd) {
+		this.rnd = rnd;
+		this.seed = config.global().getRandomSeed();
+		this.independent = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class).getRandomStreams() == EpisimConfigGroup.RandomStreams.independent;
+	}
+
+	/**
+	 * Creates an instance that always uses the shared random generator.
+	 */
+	public EpisimRandom(SplittableRandom rnd) {
+		this.rnd = rnd;
+		this.seed = 0;
+		this.independent = false;
+	}
+
+	/**
+	 * Mixes the bits of a 64bit value, see {@link SplittableRandom}.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Seed of the stream for the given keys.
+	 *
+	 * @param container container index or {@link #NONE}
+	 * @param person    person index or {@link #NONE}
+	 */
+	public static long seed(long seed, Purpose purpose, int iteration, int container, int person) {
+		long h = mix(seed + GOLDEN_GAMMA * (purpose.ordinal() + 1));
+		h = mix(h + GOLDEN_GAMMA + iteration);
+		h = mix(h + GOLDEN_GAMMA + container);
+		return mix(h + GOLDEN_GAMMA + person);
+	}
+
+	/**
+	 * Whether independent streams are used.
+	 */
+	public boolean isIndependent() {
+		return independent;
+	}
+
+	/**
+	 * Global seed of the simulation.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the random stream for the given keys, or the shared random generator if streams are not independent.
+	 * The same keys will always result in a new stream with the same state.
+	 *
+	 * @param container container index or {@link #NONE}
+	 * @param person    person index or {@link #NONE}
+	 */
+	public SplittableRandom stream(Purpose purpose, int iteration, int container, int person) {
+		if (!independent)
+			return rnd;
+
+		return new SplittableRandom(seed(seed, purpose, iteration, container, person));
+	}
+
+	/**
+	 * Purpose of a random stream. Each purpose uses distinct streams.
+	 */
+	public enum Purpose {
+		contact,
+		progression,
+		tracing,
+		quarantine,
+		vaccination,
+		initialInfection
+	}
+}
@@ -43,6 +43,7 @@ import org.matsim.episim.model.VirusStrain;
 import org.matsim.episim.policy.Restriction;
 import org.matsim.episim.reporting.EpisimWriter;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -108,6 +109,12 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 
 	private String memorizedDate = null;
 
+	/**
+	 * Reports of worker threads during parallel replay, which are processed later in deterministic order.
+	 */
+	private final ThreadLocal<List<Runnable>> deferred = new ThreadLocal<>();
+	private boolean parallel = false;
+
 
 	@Inject
 	EpisimReporting(Config config, EpisimWriter writer, EventsManager manager) {
@@ -222,12 +229,28 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 		InfectionReport report = new InfectionReport("total", time, date, iteration);
 		reports.put("total", report);
 
+		// Reports by district code, shifted by one for unknown districts. Codes are only unique within the dictionary of one person store.
+		Map<PersonStore.Dictionary, InfectionReport[]> byCode = new IdentityHashMap<>(1);
+		PersonStore.Dictionary districts = null;
+		InfectionReport[] districtReports = null;
+
 		for (EpisimPerson person : persons) {
-			String districtName = (String) person.getAttributes().getAttribute("district");
 
 			// Also aggregate by district
-			InfectionReport district = reports.computeIfAbsent(districtName == null ? "unknown"
-					: districtName, name -> new InfectionReport(name, report.time, report.date, report.day));
+			if (person.getDistricts() != districts) {
+				districts = person.getDistricts();
+				districtReports = byCode.computeIfAbsent(districts, d -> new InfectionReport[d.size() + 1]);
+			}
+
+			int code = person.getDistrictCode() + 1;
+			InfectionReport district = districtReports[code];
+			if (district == null) {
+				String districtName = districts.get(code - 1);
+				district = reports.computeIfAbsent(districtName == null ? "unknown"
+						: districtName, name -> new InfectionReport(name, report.time, report.date, report.day));
+				districtReports[code] = district;
+			}
+
 			switch (person.getDiseaseStatus()) {
 				case susceptible:
 					report.nSusceptible++;
@@ -391,6 +414,26 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 		}
 	}
 
+	/**
+	 * Reports of the calling thread will be collected in {@code buffer} instead of being processed, until this method
+	 * is called again with null. The caller is responsible for running the collected reports.
+	 */
+	void deferReports(@Nullable List<Runnable> buffer) {
+		if (buffer != null)
+			parallel = true;
+
+		deferred.set(buffer);
+	}
+
+	private boolean defer(Runnable report) {
+		List<Runnable> buffer = deferred.get();
+		if (buffer == null)
+			return false;
+
+		buffer.add(report);
+		return true;
+	}
+
 	/**
 	 * Report the occurrence of an infection.
 	 *
@@ -409,10 +452,8 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 			specificInfectionsCnt.setOpaque(cnt - 1);
 		}
 
-		strains.mergeInt(strain, 1, Integer::sum);
-		manager.processEvent(new EpisimInfectionEvent(now, personWrapper.getPersonId(), infector.getPersonId(),
-				personWrapper.getCurrentContainer().getContainerId(), infectionType));
-
+		EpisimInfectionEvent event = new EpisimInfectionEvent(now, personWrapper.getPersonId(), infector.getPersonId(),
+				personWrapper.getCurrentContainer().getContainerId(), infectionType);
 
 		String[] array = new String[InfectionEventsWriterFields.values().length];
 		array[InfectionEventsWriterFields.time.ordinal()] = Double.toString(now);
@@ -424,7 +465,14 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 		array[InfectionEventsWriterFields.facility.ordinal()] = container.getContainerId().toString();
 		array[InfectionEventsWriterFields.virusStrain.ordinal()] = strain.toString();
 
-		writer.append(infectionEvents, array);
+		Runnable report = () -> {
+			strains.mergeInt(strain, 1, Integer::sum);
+			manager.processEvent(event);
+			writer.append(infectionEvents, array);
+		};
+
+		if (!(parallel && defer(report)))
+			report.run();
 	}
 
 	/**
@@ -434,11 +482,14 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 	 * @see EpisimContactEvent
 	 */
 	public void reportContact(double now, EpisimPerson person, EpisimPerson contactPerson, EpisimContainer<?> container,
-							  StringBuilder actType, double duration) {
+							  String actType, double duration) {
 
 		if (writeEvents == EpisimConfigGroup.WriteEvents.tracing || writeEvents == EpisimConfigGroup.WriteEvents.all) {
-			manager.processEvent(new EpisimContactEvent(now, person.getPersonId(), contactPerson.getPersonId(), container.getContainerId(),
-					actType.toString(), duration, container.getPersons().size()));
+			EpisimContactEvent event = new EpisimContactEvent(now, person.getPersonId(), contactPerson.getPersonId(), container.getContainerId(),
+					actType, duration, container.getPersons().size());
+
+			if (!(parallel && defer(() -> manager.processEvent(event))))
+				manager.processEvent(event);
 		}
 
 	}
@@ -450,7 +501,10 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 	void reportTracing(double now, EpisimPerson person, EpisimPerson contactPerson) {
 
 		if (writeEvents == EpisimConfigGroup.WriteEvents.tracing || writeEvents == EpisimConfigGroup.WriteEvents.all) {
-			manager.processEvent(new EpisimTracingEvent(now, person.getPersonId(), contactPerson.getPersonId()));
+			EpisimTracingEvent event = new EpisimTracingEvent(now, person.getPersonId(), contactPerson.getPersonId());
+
+			if (!(parallel && defer(() -> manager.processEvent(event))))
+				manager.processEvent(event);
 		}
 	}
 
@@ -499,11 +553,14 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 	 */
 	public void reportPersonStatus(EpisimPerson person, EpisimPersonStatusEvent event) {
 
+		if (parallel && defer(() -> reportPersonStatus(person, event)))
+			return;
+
 		EpisimPerson.DiseaseStatus newStatus = event.getDiseaseStatus();
 
 		if (newStatus == EpisimPerson.DiseaseStatus.seriouslySick || newStatus == EpisimPerson.DiseaseStatus.contagious ||
 				newStatus == EpisimPerson.DiseaseStatus.showingSymptoms || newStatus == EpisimPerson.DiseaseStatus.critical) {
-			String districtName = (String) person.getAttributes().getAttribute("district");
+			String districtName = person.getDistrict();
 			cumulativeCases.get(newStatus).mergeInt(districtName == null ? "unknown" : districtName, 1, Integer::sum);
 		}
 
@@ -512,21 +569,26 @@ public final class EpisimReporting implements BasicEventHandler, Closeable, Exte
 
 	/**
 	 * Write container statistic to file.
+	 *
+	 * @param containers all containers by their index
+	 * @param actTypes   activity types by their index
 	 */
-	public void reportContainerUsage(Object2IntMap<EpisimContainer<?>> maxGroupSize, Object2IntMap<EpisimContainer<?>> totalUsers,
-									 Map<EpisimContainer<?>, Object2IntMap<String>> activityUsage) {
+	void reportContainerUsage(EpisimContainer<?>[] containers, ContainerUsage usage, List<String> actTypes) {
 
 		BufferedWriter out = EpisimWriter.prepare(base + "containerUsage.txt.gz", "id", "types", "totalUsers", "maxGroupSize");
 
-		for (Object2IntMap.Entry<EpisimContainer<?>> kv : maxGroupSize.object2IntEntrySet()) {
+		for (int c = 0; c < containers.length; c++) {
+
+			if (!usage.hasMaxGroupSize(c))
+				continue;
 
 			double scale = 1 / episimConfig.getSampleSize();
 
 			this.writer.append(out, new String[]{
-					kv.getKey().getContainerId().toString(),
-					String.valueOf(activityUsage.get(kv.getKey())),
-					String.valueOf((int) (totalUsers.getInt(kv.getKey()) * scale)),
-					String.valueOf((int) (kv.getIntValue() * scale))
+					containers[c].getContainerId().toString(),
+					String.valueOf(usage.getActivityUsage(c, actTypes)),
+					String.valueOf((int) (usage.getTotalUsers(c) * scale)),
+					String.valueOf((int) (usage.getMaxGroupSize(c) * scale))
 			});
 		}
 
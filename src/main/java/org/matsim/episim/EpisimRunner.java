@@ -139,10 +139,14 @@ public final class EpisimRunner {
 		if (handler.isFinished())
 			return false;
 
-		DayOfWeek day = EpisimUtils.getDayOfWeek(ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class), iteration);
+		EpisimConfigGroup episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		DayOfWeek day = EpisimUtils.getDayOfWeek(episimConfig, iteration);
 
-		// Process all events
-		replay.replayEvents(manager, day);
+		// Process all events, input events only need to be passed to reporting if they are written
+		if (episimConfig.getWriteEvents() == EpisimConfigGroup.WriteEvents.all)
+			handler.replayDay(day, reporting);
+		else
+			handler.replayDay(day);
 
 		reporting.flushEvents();
 
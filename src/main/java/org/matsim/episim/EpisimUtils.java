@@ -65,6 +65,19 @@ public final class EpisimUtils {
 
 	private static final DecimalFormat FMT = new DecimalFormat();
 
+	/**
+	 * Values of 2^(i/64) used by {@link #fastExp(double)}.
+	 */
+	private static final double[] EXP_TABLE = new double[64];
+	private static final double EXP_SCALE = EXP_TABLE.length / Math.log(2);
+	private static final double EXP_STEP = Math.log(2) / EXP_TABLE.length;
+
+	static {
+		for (int i = 0; i < EXP_TABLE.length; i++) {
+			EXP_TABLE[i] = StrictMath.pow(2, (double) i / EXP_TABLE.length);
+		}
+	}
+
 	private EpisimUtils() {
 	}
 
@@ -326,6 +339,28 @@ public final class EpisimUtils {
 		return Math.exp(sigma * nextGaussian(rnd) + mu);
 	}
 
+	/**
+	 * Approximation of {@link Math#exp(double)} with a relative error below 1e-12.
+	 * The argument is reduced to 2^(k/64) * e^r, where 2^(k/64) is looked up from a table and e^r is approximated
+	 * with a polynomial, because |r| is very small. Values outside the normal range of doubles are delegated to {@link Math#exp(double)}.
+	 */
+	public static double fastExp(double x) {
+		if (!(x > -708 && x < 709))
+			return Math.exp(x);
+
+		double k = Math.rint(x * EXP_SCALE);
+		double r = x - k * EXP_STEP;
+
+		int n = (int) k;
+		double t = EXP_TABLE[n & (EXP_TABLE.length - 1)];
+		double scale = Double.longBitsToDouble((long) ((n >> 6) + 1023) << 52);
+
+		// e^r - 1 with |r| <= ln(2) / 128, the error of the omitted terms is below r^5/120
+		double p = r + r * r * (0.5 + r * (1d / 6 + r * (1d / 24)));
+
+		return (t + t * p) * scale;
+	}
+
 	public static double nextLogNormalFromMeanAndSigma(SplittableRandom rnd, double mean, double sigma) {
 		double mu = Math.log(mean) - sigma * sigma / 2;
 		return nextLogNormal(rnd, mu, sigma);
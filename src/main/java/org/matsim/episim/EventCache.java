@@ -0,0 +1,576 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.*;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary cache of an event file, which can be read much faster than the original xml.
+ * <p>
+ * Ids and activity types are stored as int indices into dictionaries, times as int when possible.
+ * The file consists of a header with size and hash of the source file, blocks of encoded events
+ * and the dictionaries, which are referenced by a footer at the end. Blocks are memory-mapped individually when reading.
+ * <p>
+ * Creating the cache does not create any {@link Id}, these are only created in {@link #open(Path)}.
+ * Because the index of an {@link Id} depends on the order of creation, caches should always be opened in the same order.
+ */
+final class EventCache {
+
+	private static final Logger log = LogManager.getLogger(EventCache.class);
+
+	/**
+	 * Suffix appended to the event file name.
+	 */
+	static final String SUFFIX = ".episim-cache";
+
+	private static final int MAGIC = 0x45504943;
+	private static final int VERSION = 3;
+
+	/**
+	 * Number of events per block.
+	 */
+	private static final int BLOCK_SIZE = 1 << 18;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 16;
+	private static final int BLOCK_HEADER_SIZE = 4 + 4 + 1;
+	private static final int FOOTER_SIZE = 8 + 4;
+
+	private static final byte ACT_START = 0;
+	private static final byte ACT_END = 1;
+	private static final byte ENTER_VEHICLE = 2;
+	private static final byte LEAVE_VEHICLE = 3;
+	private static final byte HAS_COORD = 0x40;
+	private static final byte HAS_Z = (byte) 0x80;
+	private static final byte KIND = 0x0f;
+
+	private static final byte INT_TIME = 0;
+	private static final byte DOUBLE_TIME = 1;
+
+	private EventCache() {
+	}
+
+	/**
+	 * Returns the cache file for an event input, or null if the input is not a local file.
+	 */
+	static Path getCacheFile(String input) {
+		try {
+			Path path = Path.of(input);
+			if (!Files.isRegularFile(path))
+				return null;
+
+			return path.resolveSibling(path.getFileName() + SUFFIX);
+		} catch (InvalidPathException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether the cache exists and was created from the given source.
+	 */
+	static boolean isValid(Path source, Path cache) {
+
+		if (!Files.isRegularFile(cache))
+			return false;
+
+		try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+
+			if (channel.size() < HEADER_SIZE + FOOTER_SIZE)
+				return false;
+
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION)
+				return false;
+
+			if (header.getLong() != Files.size(source))
+				return false;
+
+			byte[] hash = new byte[16];
+			header.get(hash);
+
+			return Arrays.equals(hash, hash(source));
+
+		} catch (IOException e) {
+			log.warn("Could not validate event cache {}", cache, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Converts an xml event file into the binary cache.
+	 *
+	 * @return whether the cache could be written, which is not the case if unsupported events are present
+	 */
+	static boolean convert(Path source, Path cache) {
+
+		log.info("Writing event cache {}", cache);
+
+		Writer writer = null;
+		try (InputStream in = IOUtils.getInputStream(IOUtils.resolveFileOrResource(source.toString()))) {
+
+			writer = new Writer(source, cache);
+
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setValidating(false);
+			factory.newSAXParser().parse(in, new XmlHandler(writer));
+
+			writer.finish();
+			return true;
+
+		} catch (UnsupportedEventException e) {
+			log.info("Event {} not supported by event cache, it will not be written.", e.getMessage());
+		} catch (IOException | SAXException | ParserConfigurationException | RuntimeException e) {
+			log.warn("Could not write event cache {}", cache, e);
+		}
+
+		if (writer != null)
+			writer.discard();
+
+		return false;
+	}
+
+	/**
+	 * Opens a cache and creates all contained {@link Id}s.
+	 */
+	static Reader open(Path cache) throws IOException {
+		return new Reader(cache);
+	}
+
+	/**
+	 * Hash of the whole file content.
+	 */
+	private static byte[] hash(Path source) throws IOException {
+		return com.google.common.io.Files.asByteSource(source.toFile()).hash(Hashing.murmur3_128()).asBytes();
+	}
+
+	private static <T> Id<T> get(List<Id<T>> ids, int idx) {
+		return idx == -1 ? null : ids.get(idx);
+	}
+
+	private static <T> List<Id<T>> readIds(ByteBuffer buffer, Class<T> type) {
+		int n = buffer.getInt();
+		List<Id<T>> ids = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			ids.add(Id.create(readString(buffer), type));
+		}
+		return ids;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads events of an opened cache.
+	 */
+	static final class Reader {
+
+		private final Path cache;
+		private final long dictOffset;
+
+		private final List<Id<Person>> persons;
+		private final List<Id<Link>> links;
+		private final List<Id<ActivityFacility>> facilities;
+		private final List<Id<Vehicle>> vehicles;
+		private final String[] actTypes;
+
+		private Reader(Path cache) throws IOException {
+			this.cache = cache;
+
+			try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+
+				long size = channel.size();
+				ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, size - FOOTER_SIZE, FOOTER_SIZE);
+				dictOffset = footer.getLong();
+				if (footer.getInt() != MAGIC)
+					throw new IOException("Corrupted event cache " + cache);
+
+				ByteBuffer dict = channel.map(FileChannel.MapMode.READ_ONLY, dictOffset, size - FOOTER_SIZE - dictOffset);
+
+				persons = readIds(dict, Person.class);
+				links = readIds(dict, Link.class);
+				facilities = readIds(dict, ActivityFacility.class);
+				vehicles = readIds(dict, Vehicle.class);
+
+				int n = dict.getInt();
+				actTypes = new String[n];
+				for (int i = 0; i < n; i++) {
+					actTypes[i] = readString(dict).intern();
+				}
+			}
+		}
+
+		/**
+		 * Reads all events and passes them to the handler in their original order.
+		 * No new {@link Id}s are created, so this method can be used concurrently.
+		 */
+		void read(BasicEventHandler handler) throws IOException {
+
+			try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+
+				long pos = HEADER_SIZE;
+				while (pos < dictOffset) {
+
+					ByteBuffer blockHeader = channel.map(FileChannel.MapMode.READ_ONLY, pos, BLOCK_HEADER_SIZE);
+					int length = blockHeader.getInt();
+					int events = blockHeader.getInt();
+					boolean intTime = blockHeader.get() == INT_TIME;
+
+					ByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, pos + BLOCK_HEADER_SIZE, length);
+
+					double[] times = new double[events];
+					for (int i = 0; i < events; i++) {
+						times[i] = intTime ? block.getInt() : block.getDouble();
+					}
+
+					for (int i = 0; i < events; i++) {
+
+						byte flags = block.get();
+						double time = times[i];
+						Id<Person> person = persons.get(block.getInt());
+
+						Event event;
+						switch (flags & KIND) {
+							case ACT_START:
+								Id<Link> link = get(links, block.getInt());
+								Id<ActivityFacility> facility = get(facilities, block.getInt());
+								String actType = actTypes[block.getInt()];
+								Coord coord = null;
+								if ((flags & HAS_COORD) != 0) {
+									double x = block.getDouble();
+									double y = block.getDouble();
+									coord = (flags & HAS_Z) != 0 ? new Coord(x, y, block.getDouble()) : new Coord(x, y);
+								}
+
+								event = new ActivityStartEvent(time, person, link, facility, actType, coord);
+								break;
+							case ACT_END:
+								event = new ActivityEndEvent(time, person, get(links, block.getInt()), get(facilities, block.getInt()), actTypes[block.getInt()]);
+								break;
+							case ENTER_VEHICLE:
+								event = new PersonEntersVehicleEvent(time, person, vehicles.get(block.getInt()));
+								break;
+							case LEAVE_VEHICLE:
+								event = new PersonLeavesVehicleEvent(time, person, vehicles.get(block.getInt()));
+								break;
+							default:
+								throw new IOException("Unknown event kind " + flags + " in " + cache);
+						}
+
+						handler.handleEvent(event);
+					}
+
+					pos += BLOCK_HEADER_SIZE + length;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes events into a new cache file, which will only be visible after {@link #finish()}.
+	 */
+	static final class Writer {
+
+		private final Path cache;
+		private final Path tmp;
+		private final DataOutputStream out;
+
+		private final Dictionary persons = new Dictionary();
+		private final Dictionary links = new Dictionary();
+		private final Dictionary facilities = new Dictionary();
+		private final Dictionary vehicles = new Dictionary();
+		private final Dictionary actTypes = new Dictionary();
+
+		/**
+		 * Times of events in current block.
+		 */
+		private final double[] times = new double[BLOCK_SIZE];
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BLOCK_SIZE * 16);
+		private final DataOutputStream block = new DataOutputStream(bytes);
+		private int size = 0;
+
+		private long written;
+
+		Writer(Path source, Path cache) throws IOException {
+			this.cache = cache;
+			// unique name, even if several tasks or nodes write the same cache at once
+			this.tmp = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+			this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16));
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(Files.size(source));
+			out.write(hash(source));
+			written = HEADER_SIZE;
+		}
+
+		/**
+		 * Adds an activity start or end event.
+		 *
+		 * @param coord x, y and optional z coordinate, or null
+		 */
+		void activity(boolean start, double time, String person, String link, String facility, String actType, double[] coord) throws IOException {
+
+			byte flags = start ? ACT_START : ACT_END;
+			if (start && coord != null)
+				flags |= coord.length == 3 ? HAS_COORD | HAS_Z : HAS_COORD;
+
+			block.writeByte(flags);
+			block.writeInt(persons.index(person));
+			block.writeInt(links.index(link));
+			block.writeInt(facilities.index(facility));
+			block.writeInt(actTypes.index(actType));
+
+			if ((flags & HAS_COORD) != 0) {
+				block.writeDouble(coord[0]);
+				block.writeDouble(coord[1]);
+				if ((flags & HAS_Z) != 0)
+					block.writeDouble(coord[2]);
+			}
+
+			next(time);
+		}
+
+		/**
+		 * Adds a person enters or leaves vehicle event.
+		 */
+		void vehicle(boolean enter, double time, String person, String vehicle) throws IOException {
+			block.writeByte(enter ? ENTER_VEHICLE : LEAVE_VEHICLE);
+			block.writeInt(persons.index(person));
+			block.writeInt(vehicles.index(vehicle));
+
+			next(time);
+		}
+
+		private void next(double time) throws IOException {
+			times[size++] = time;
+			if (size == BLOCK_SIZE)
+				writeBlock();
+		}
+
+		/**
+		 * Writes remaining events and dictionaries and moves the cache to its final location.
+		 */
+		void finish() throws IOException {
+
+			writeBlock();
+
+			long dictOffset = written;
+			persons.write(out);
+			links.write(out);
+			facilities.write(out);
+			vehicles.write(out);
+			actTypes.write(out);
+
+			out.writeLong(dictOffset);
+			out.writeInt(MAGIC);
+			out.close();
+
+			Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			log.info("Written event cache {}", cache);
+		}
+
+		private void writeBlock() throws IOException {
+
+			if (size == 0)
+				return;
+
+			boolean intTime = true;
+			for (int i = 0; i < size; i++) {
+				if (times[i] != (int) times[i]) {
+					intTime = false;
+					break;
+				}
+			}
+
+			block.flush();
+
+			out.writeInt(size * (intTime ? 4 : 8) + bytes.size());
+			out.writeInt(size);
+			out.writeByte(intTime ? INT_TIME : DOUBLE_TIME);
+
+			for (int i = 0; i < size; i++) {
+				if (intTime)
+					out.writeInt((int) times[i]);
+				else
+					out.writeDouble(times[i]);
+			}
+
+			bytes.writeTo(out);
+
+			written += BLOCK_HEADER_SIZE + size * (intTime ? 4 : 8) + bytes.size();
+			bytes.reset();
+			size = 0;
+		}
+
+		private void discard() {
+			try {
+				out.close();
+				Files.deleteIfExists(tmp);
+			} catch (IOException e) {
+				log.warn("Could not delete {}", tmp, e);
+			}
+		}
+	}
+
+	/**
+	 * Parses the xml events format and passes supported events to the writer.
+	 * Events with attributes that can not be stored are rejected, so that these files are read by the MATSim events reader.
+	 */
+	private static final class XmlHandler extends DefaultHandler {
+
+		private static final Set<String> ACTIVITY_START = Set.of("time", "type", "person", "link", "facility", "actType", "x", "y", "z");
+		private static final Set<String> ACTIVITY_END = Set.of("time", "type", "person", "link", "facility", "actType");
+		private static final Set<String> VEHICLE = Set.of("time", "type", "person", "vehicle");
+
+		private final Writer writer;
+
+		private XmlHandler(Writer writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+
+			if (!qName.equals("event"))
+				return;
+
+			String type = atts.getValue("type");
+			double time = Double.parseDouble(atts.getValue("time"));
+			String person = atts.getValue("person");
+
+			try {
+				switch (type) {
+					case "actstart":
+						check(type, atts, ACTIVITY_START);
+						double[] coord = null;
+						if (atts.getValue("z") != null)
+							coord = new double[]{Double.parseDouble(atts.getValue("x")), Double.parseDouble(atts.getValue("y")), Double.parseDouble(atts.getValue("z"))};
+						else if (atts.getValue("x") != null)
+							coord = new double[]{Double.parseDouble(atts.getValue("x")), Double.parseDouble(atts.getValue("y"))};
+
+						writer.activity(true, time, person, atts.getValue("link"), atts.getValue("facility"), atts.getValue("actType"), coord);
+						break;
+					case "actend":
+						check(type, atts, ACTIVITY_END);
+						writer.activity(false, time, person, atts.getValue("link"), atts.getValue("facility"), atts.getValue("actType"), null);
+						break;
+					case "PersonEntersVehicle":
+						check(type, atts, VEHICLE);
+						writer.vehicle(true, time, person, atts.getValue("vehicle"));
+						break;
+					case "PersonLeavesVehicle":
+						check(type, atts, VEHICLE);
+						writer.vehicle(false, time, person, atts.getValue("vehicle"));
+						break;
+					default:
+						throw new UnsupportedEventException(type);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private static void check(String type, Attributes atts, Set<String> supported) {
+			for (int i = 0; i < atts.getLength(); i++) {
+				if (!supported.contains(atts.getQName(i)))
+					throw new UnsupportedEventException(type + " with attribute " + atts.getQName(i));
+			}
+		}
+	}
+
+	/**
+	 * Thrown when the event file contains events not supported by the cache.
+	 */
+	private static final class UnsupportedEventException extends RuntimeException {
+		private UnsupportedEventException(String type) {
+			super(type, null, false, false);
+		}
+	}
+
+	/**
+	 * Assigns consecutive indices to values in order of their first occurrence, null is mapped to -1.
+	 */
+	private static final class Dictionary {
+
+		private final Object2IntMap<String> index = new Object2IntOpenHashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		private Dictionary() {
+			index.defaultReturnValue(-1);
+		}
+
+		private int index(String value) {
+			if (value == null)
+				return -1;
+
+			int idx = index.getInt(value);
+			if (idx == -1) {
+				idx = values.size();
+				index.put(value, idx);
+				values.add(value);
+			}
+
+			return idx;
+		}
+
+		private void write(DataOutput out) throws IOException {
+			out.writeInt(values.size());
+			for (String value : values) {
+				writeString(out, value);
+			}
+		}
+	}
+}
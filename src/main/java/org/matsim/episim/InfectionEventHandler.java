@@ -25,7 +25,8 @@ import com.google.inject.Inject;
 import com.typesafe.config.ConfigFactory;
 import it.unimi.dsi.fastutil.objects.AbstractObject2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -41,6 +42,7 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.internal.HasPersonId;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.episim.model.ContactModel;
@@ -90,6 +92,10 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 	private static final Logger log = LogManager.getLogger(InfectionEventHandler.class);
 
 	private final Map<Id<Person>, EpisimPerson> personMap = new IdMap<>(Person.class);
+	/**
+	 * Holds the state of all persons.
+	 */
+	private final PersonStore personStore;
 	private final Map<Id<Vehicle>, EpisimVehicle> vehicleMap = new IdMap<>(Vehicle.class);
 	private final Map<Id<ActivityFacility>, EpisimFacility> pseudoFacilityMap = new IdMap<>(ActivityFacility.class,
 			// the number of facility ids is not known beforehand, so we use this as initial estimate
@@ -101,6 +107,18 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 	 */
 	private final Map<String, EpisimPerson.Activity> paramsMap = new IdentityHashMap<>();
 
+	/**
+	 * Compact events of each day, created during {@link #init(Map)}.
+	 */
+	private final Map<DayOfWeek, ReplayDay> replayDays = new EnumMap<>(DayOfWeek.class);
+
+	/**
+	 * Persons, containers and activity types referenced by index in {@link #replayDays}.
+	 */
+	private EpisimPerson[] personsByIndex;
+	private EpisimContainer<?>[] containersByIndex;
+	private String[] actTypesByIndex;
+
 	/**
 	 * Holds the current restrictions in place for all the activities.
 	 */
@@ -121,6 +139,11 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 	 */
 	private final ContactModel contactModel;
 
+	/**
+	 * Replays days with multiple threads, null if only one thread is used.
+	 */
+	private ParallelReplay parallel;
+
 	/**
 	 * Handle initial infections.
 	 */
@@ -142,6 +165,7 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 	private final VaccinationConfigGroup vaccinationConfig;
 	private final EpisimReporting reporting;
 	private final SplittableRandom rnd;
+	private final EpisimRandom streams;
 
 	/**
 	 * Local random, e.g. used for person initialization.
@@ -159,7 +183,7 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 	@Inject
 	public InfectionEventHandler(Config config, Scenario scenario, ProgressionModel progressionModel, EpisimReporting reporting,
 								 InitialInfectionHandler initialInfections, ContactModel contactModel, VaccinationModel vaccinationModel,
-								 SplittableRandom rnd) {
+								 SplittableRandom rnd, EpisimRandom streams) {
 		this.config = config;
 		this.episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
 		this.tracingConfig = ConfigUtils.addOrGetModule(config, TracingConfigGroup.class);
@@ -169,12 +193,17 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		this.restrictions = episimConfig.createInitialRestrictions();
 		this.reporting = reporting;
 		this.rnd = rnd;
+		this.streams = streams;
 		this.localRnd = new SplittableRandom(config.global().getRandomSeed() + 65536);
 		this.progressionModel = progressionModel;
 		this.contactModel = contactModel;
 		this.initialInfections = initialInfections;
 		this.initialInfections.setInfectionsLeft(episimConfig.getInitialInfections());
 		this.vaccinationModel = vaccinationModel;
+		this.personStore = new PersonStore(scenario.getPopulation().getPersons().size());
+
+		if (tracingConfig.getContactLog())
+			this.personStore.contacts = new ContactLog(personStore);
 	}
 
 	/**
@@ -221,11 +250,25 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 		iteration = 0;
 
-		Object2IntMap<EpisimContainer<?>> groupSize = new Object2IntOpenHashMap<>();
-		Object2IntMap<EpisimContainer<?>> totalUsers = new Object2IntOpenHashMap<>();
-		Object2IntMap<EpisimContainer<?>> maxGroupSize = new Object2IntOpenHashMap<>();
+		// Workers need to exist before the events are processed, so that the contact model of each worker also
+		// receives the notifications for its containers during init
+		if (episimConfig.getThreads() > 1)
+			parallel = new ParallelReplay(episimConfig.getThreads(), this, contactModel, reporting);
+
+		// statistics by container index
+		ContainerUsage usage = new ContainerUsage();
+
+		// max group size relative to start of the day, only needed for single pass
+		boolean singlePass = episimConfig.isSinglePassInit();
+		Map<DayOfWeek, int[]> dayMaxGroupSize = new EnumMap<>(DayOfWeek.class);
 
-		Map<EpisimContainer<?>, Object2IntMap<String>> activityUsage = new HashMap<>();
+		// Persons, containers and activity types are resolved only once and referenced by index in the replayed events
+		Reference2IntMap<EpisimPerson> personIndex = new Reference2IntOpenHashMap<>();
+		Reference2IntMap<EpisimContainer<?>> containerIndex = new Reference2IntOpenHashMap<>();
+		Reference2IntMap<String> actTypeIndex = new Reference2IntOpenHashMap<>();
+		List<EpisimPerson> persons = new ArrayList<>();
+		List<EpisimContainer<?>> containers = new ArrayList<>();
+		List<String> actTypes = new ArrayList<>();
 
 		Map<List<Event>, DayOfWeek> sameDay = new IdentityHashMap<>(7);
 
@@ -238,6 +281,7 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 				DayOfWeek same = sameDay.get(eventsForDay);
 				log.info("Init Day {} same as {}", day, same);
 				this.personMap.values().forEach(p -> p.duplicateDay(day, same));
+				replayDays.put(day, replayDays.get(same));
 				continue;
 			}
 
@@ -245,10 +289,16 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 			this.personMap.values().forEach(p -> p.setStartOfDay(day, p.getCurrentPositionInTrajectory()));
 
-			for (Event event : eventsForDay) {
+			ReplayDay replay = new ReplayDay(eventsForDay);
+
+			for (int j = 0; j < eventsForDay.size(); j++) {
+
+				Event event = eventsForDay.get(j);
+				double now = EpisimUtils.getCorrectedTime(episimConfig.getStartOffset(), event.getTime(), iteration);
 
 				EpisimPerson person = null;
 				EpisimFacility facility = null;
+				int c = -1;
 
 				// Add all person and facilities
 				if (event instanceof HasPersonId) {
@@ -272,6 +322,7 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 				if (event instanceof HasFacilityId) {
 					Id<ActivityFacility> episimFacilityId = createEpisimFacilityId((HasFacilityId) event);
 					facility = this.pseudoFacilityMap.computeIfAbsent(episimFacilityId, EpisimFacility::new);
+					c = containerIndex(containerIndex, containers, facility);
 				}
 
 				if (event instanceof ActivityStartEvent) {
@@ -281,9 +332,14 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 						continue;
 
 					EpisimPerson.Activity act = paramsMap.computeIfAbsent(actType, this::createActivityType);
-					totalUsers.mergeInt(facility, 1, Integer::sum);
+					usage.addUser(c);
+					if (singlePass)
+						usage.startActivity(c);
 
-					handleEvent((ActivityStartEvent) event);
+					replay.add(ReplayDay.ACT_START, j, index(personIndex, persons, person), c,
+							index(actTypeIndex, actTypes, actType), event.getTime());
+
+					handleActivityStart(person, facility, actType, now, contactModel(facility));
 
 				} else if (event instanceof ActivityEndEvent) {
 					String actType = ((ActivityEndEvent) event).getActType();
@@ -291,7 +347,10 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 						continue;
 
 					EpisimPerson.Activity act = paramsMap.computeIfAbsent(actType, this::createActivityType);
-					activityUsage.computeIfAbsent(facility, k -> new Object2IntOpenHashMap<>()).mergeInt(actType, 1, Integer::sum);
+					int a = index(actTypeIndex, actTypes, actType);
+					usage.addActivity(c, a);
+					if (singlePass)
+						usage.endActivity(c);
 
 					// Add person to container if it starts its day with end activity
 					if (person.getFirstFacilityId(day) == null) {
@@ -308,30 +367,45 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 						person.setFirstFacilityId(facility.getContainerId(), day);
 					}
 
-					handleEvent((ActivityEndEvent) event);
+					replay.add(ReplayDay.ACT_END, j, index(personIndex, persons, person), c, a, event.getTime());
+
+					handleActivityEnd(person, facility, actType, now, contactModel(facility));
 				}
 
 				if (event instanceof PersonEntersVehicleEvent) {
 					if (!shouldHandlePersonEvent((HasPersonId) event)) continue;
 
 					EpisimVehicle vehicle = this.vehicleMap.computeIfAbsent(((PersonEntersVehicleEvent) event).getVehicleId(), EpisimVehicle::new);
+					c = containerIndex(containerIndex, containers, vehicle);
 
-					maxGroupSize.mergeInt(vehicle, groupSize.mergeInt(vehicle, 1, Integer::sum), Integer::max);
-					totalUsers.mergeInt(vehicle, 1, Integer::sum);
+					usage.enter(c);
+					usage.addUser(c);
 
-					handleEvent((PersonEntersVehicleEvent) event);
+					replay.add(ReplayDay.ENTER_VEHICLE, j, index(personIndex, persons, person), c, -1, event.getTime());
+
+					handleEnterVehicle(person, vehicle, now, contactModel(vehicle));
 
 				} else if (event instanceof PersonLeavesVehicleEvent) {
 					if (!shouldHandlePersonEvent((HasPersonId) event)) continue;
 
 					EpisimVehicle vehicle = this.vehicleMap.computeIfAbsent(((PersonLeavesVehicleEvent) event).getVehicleId(), EpisimVehicle::new);
-					groupSize.mergeInt(vehicle, -1, Integer::sum);
-					activityUsage.computeIfAbsent(vehicle, k -> new Object2IntOpenHashMap<>()).mergeInt("tr", 1, Integer::sum);
+					c = containerIndex(containerIndex, containers, vehicle);
+
+					usage.leave(c);
+					usage.addActivity(c, index(actTypeIndex, actTypes, "tr"));
+
+					replay.add(ReplayDay.LEAVE_VEHICLE, j, index(personIndex, persons, person), c, -1, event.getTime());
 
-					handleEvent((PersonLeavesVehicleEvent) event);
+					handleLeaveVehicle(person, vehicle, now, contactModel(vehicle));
 				}
 			}
 
+			replay.trim();
+			replayDays.put(day, replay);
+
+			if (singlePass)
+				dayMaxGroupSize.put(day, usage.finishDay());
+
 			int cnt = 0;
 			for (EpisimPerson person : this.personMap.values()) {
 				List<EpisimPerson.Activity> tj = person.getTrajectory();
@@ -367,23 +441,42 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 		// Add missing facilities, with only stationary agents
 		for (EpisimFacility facility : pseudoFacilityMap.values()) {
-			if (!maxGroupSize.containsKey(facility)) {
-				totalUsers.mergeInt(facility, facility.getPersons().size(), Integer::max);
-				maxGroupSize.put(facility, facility.getPersons().size());
+			int c = containerIndex(containerIndex, containers, facility);
+			if (!usage.hasMaxGroupSize(c)) {
+				usage.mergeTotalUsers(c, facility.getPersons().size());
+				usage.mergeMaxGroupSize(c, facility.getPersons().size());
 
 				// there may be facilities with only "end" events, thus no group size, but correct activity usage
-				if (!activityUsage.containsKey(facility)) {
-					Object2IntOpenHashMap<String> act = new Object2IntOpenHashMap<>();
-					act.put("home", facility.getPersons().size());
-					activityUsage.put(facility, act);
+				if (!usage.hasActivities(c)) {
+					usage.setActivity(c, index(actTypeIndex, actTypes, "home"), facility.getPersons().size());
 				}
 			}
 		}
 
-		// Go through each day again to compute max group sizes
+		if (singlePass) {
+			// Group size during the day is the number of persons starting there plus the maximum relative to the start
+			for (Map.Entry<DayOfWeek, int[]> entry : dayMaxGroupSize.entrySet()) {
+
+				int[] dayMax = entry.getValue();
+				int[] size = new int[containers.size()];
+				for (EpisimPerson person : personMap.values()) {
+					Id<ActivityFacility> first = person.getFirstFacilityId(entry.getKey());
+					if (first != null)
+						size[containerIndex.getInt(pseudoFacilityMap.get(first))]++;
+				}
+
+				for (EpisimFacility facility : pseudoFacilityMap.values()) {
+					int c = containerIndex.getInt(facility);
+					usage.mergeMaxGroupSize(c, size[c] + (c < dayMax.length ? dayMax[c] : 0));
+				}
+			}
+		}
+
+		// Go through each day again to compute max group sizes, not needed for single pass
 		sameDay.clear();
-		for (Map.Entry<DayOfWeek, List<Event>> entry : events.entrySet()) {
+		for (Iterator<Map.Entry<DayOfWeek, List<Event>>> it = events.entrySet().iterator(); !singlePass && it.hasNext(); ) {
 
+			Map.Entry<DayOfWeek, List<Event>> entry = it.next();
 			DayOfWeek day = entry.getKey();
 			List<Event> eventsForDay = entry.getValue();
 
@@ -396,23 +489,27 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 				p.resetCurrentPositionInTrajectory(day);
 			});
 
-			pseudoFacilityMap.forEach((k, v) -> maxGroupSize.mergeInt(v, v.getPersons().size(), Integer::max));
-
-			for (Event event : eventsForDay) {
-				if (event instanceof HasFacilityId && event instanceof HasPersonId) {
-					Id<ActivityFacility> episimFacilityId = createEpisimFacilityId((HasFacilityId) event);
-					EpisimFacility facility = pseudoFacilityMap.get(episimFacilityId);
-
-					// happens on filtered events that are not relevant
-					if (facility == null)
-						continue;
-
-					if (event instanceof ActivityStartEvent) {
-						handleEvent((ActivityStartEvent) event);
-						maxGroupSize.mergeInt(facility, facility.getPersons().size(), Integer::max);
-					} else if (event instanceof ActivityEndEvent) {
-						handleEvent((ActivityEndEvent) event);
-					}
+			pseudoFacilityMap.forEach((k, v) -> usage.mergeMaxGroupSize(containerIndex.getInt(v), v.getPersons().size()));
+
+			ReplayDay replay = replayDays.get(day);
+			for (int i = 0; i < replay.size(); i++) {
+
+				double now = EpisimUtils.getCorrectedTime(episimConfig.getStartOffset(), replay.time[i], iteration);
+				EpisimPerson person = persons.get(replay.person[i]);
+				EpisimFacility facility;
+
+				switch (replay.kind[i]) {
+					case ReplayDay.ACT_START:
+						facility = (EpisimFacility) containers.get(replay.container[i]);
+						handleActivityStart(person, facility, actTypes.get(replay.actType[i]), now, contactModel(facility));
+						usage.mergeMaxGroupSize(replay.container[i], facility.getPersons().size());
+						break;
+					case ReplayDay.ACT_END:
+						facility = (EpisimFacility) containers.get(replay.container[i]);
+						handleActivityEnd(person, facility, actTypes.get(replay.actType[i]), now, contactModel(facility));
+						break;
+					default:
+						// vehicles are not relevant here
 				}
 			}
 
@@ -421,7 +518,9 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 		log.info("Computed max group sizes");
 
-		reporting.reportContainerUsage(maxGroupSize, totalUsers, activityUsage);
+		containersByIndex = containers.toArray(new EpisimContainer<?>[0]);
+
+		reporting.reportContainerUsage(containersByIndex, usage, actTypes);
 
 		boolean useVehicles = !scenario.getVehicles().getVehicles().isEmpty();
 
@@ -434,17 +533,20 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		// entry for undefined activity type
 		AbstractObject2IntMap.BasicEntry<String> undefined = new AbstractObject2IntMap.BasicEntry<>("undefined", -1);
 
-		for (Object2IntMap.Entry<EpisimContainer<?>> kv : maxGroupSize.object2IntEntrySet()) {
+		for (int c = 0; c < containersByIndex.length; c++) {
+
+			if (!usage.hasMaxGroupSize(c))
+				continue;
 
-			EpisimContainer<?> container = kv.getKey();
+			EpisimContainer<?> container = containersByIndex[c];
 			double scale = 1 / episimConfig.getSampleSize();
 
-			container.setTotalUsers((int) (totalUsers.getInt(container) * scale));
-			container.setMaxGroupSize((int) (kv.getIntValue() * scale));
+			container.setTotalUsers((int) (usage.getTotalUsers(c) * scale));
+			container.setMaxGroupSize((int) (usage.getMaxGroupSize(c) * scale));
 
-			Object2IntMap<String> usage = activityUsage.get(kv.getKey());
-			if (usage != null) {
-				Object2IntMap.Entry<String> max = usage.object2IntEntrySet().stream()
+			Object2IntMap<String> activityUsage = usage.getActivityUsage(c, actTypes);
+			if (activityUsage != null) {
+				Object2IntMap.Entry<String> max = activityUsage.object2IntEntrySet().stream()
 						.reduce(undefined, (s1, s2) -> s1.getIntValue() > s2.getIntValue() ? s1 : s2);
 
 				if (max != undefined) {
@@ -472,10 +574,28 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 			}
 		}
 
+		personsByIndex = persons.toArray(new EpisimPerson[0]);
+		actTypesByIndex = actTypes.toArray(new String[0]);
+
 		policy.init(episimConfig.getStartDate(), ImmutableMap.copyOf(this.restrictions));
 
+		// Trajectories are complete and can be shared between persons
+		personStore.trajectories = new TrajectoryPool();
+		personMap.values().forEach(p -> p.internTrajectory(personStore.trajectories));
+		personStore.trajectories.trim();
+
+		log.info("Interned trajectories of {} persons into {} entries", personMap.size(), personStore.trajectories.size());
+
 		// Clear time-use after first iteration
 		personMap.values().forEach(p -> p.getSpentTime().clear());
+
+		// input events are only passed on when they are written, otherwise only the compact representation is kept
+		if (episimConfig.getWriteEvents() != EpisimConfigGroup.WriteEvents.all)
+			replayDays.values().forEach(ReplayDay::releaseEvents);
+
+		if (parallel != null)
+			parallel.setNumberOfPersons(personsByIndex.length);
+
 		init = true;
 	}
 
@@ -498,12 +618,7 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		// find the facility
 		EpisimFacility episimFacility = this.pseudoFacilityMap.get(episimFacilityId);
 
-		// add person to facility
-		episimFacility.addPerson(episimPerson, now);
-
-		handlePersonTrajectory(episimPerson.getPersonId(), activityStartEvent.getActType());
-
-		contactModel.notifyEnterFacility(episimPerson, episimFacility, now);
+		handleActivityStart(episimPerson, episimFacility, activityStartEvent.getActType(), now, contactModel(episimFacility));
 	}
 
 	@Override
@@ -519,20 +634,8 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		EpisimPerson episimPerson = this.personMap.get(activityEndEvent.getPersonId());
 		Id<ActivityFacility> episimFacilityId = createEpisimFacilityId(activityEndEvent);
 
-		EpisimFacility episimFacility = (EpisimFacility) episimPerson.getCurrentContainer();
-		if (!episimFacility.equals(pseudoFacilityMap.get(episimFacilityId))) {
-			throw new IllegalStateException("Person=" + episimPerson.getPersonId().toString() + " has activity end event at facility=" + episimFacilityId + " but actually is at facility=" + episimFacility.getContainerId().toString());
-		}
-
-		contactModel.infectionDynamicsFacility(episimPerson, episimFacility, now, activityEndEvent.getActType());
-
-		double timeSpent = now - episimFacility.getContainerEnteringTime(episimPerson.getPersonId());
-		episimPerson.addSpentTime(activityEndEvent.getActType(), timeSpent);
-
-		episimFacility.removePerson(episimPerson);
-
-		handlePersonTrajectory(episimPerson.getPersonId(), activityEndEvent.getActType());
-
+		EpisimFacility episimFacility = pseudoFacilityMap.get(episimFacilityId);
+		handleActivityEnd(episimPerson, episimFacility, activityEndEvent.getActType(), now, contactModel(episimFacility));
 	}
 
 	@Override
@@ -551,10 +654,7 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		// find the vehicle:
 		EpisimVehicle episimVehicle = this.vehicleMap.get(entersVehicleEvent.getVehicleId());
 
-		// add person to vehicle and memorize entering time:
-		episimVehicle.addPerson(episimPerson, now);
-
-		contactModel.notifyEnterVehicle( episimPerson, episimVehicle, now );
+		handleEnterVehicle(episimPerson, episimVehicle, now, contactModel(episimVehicle));
 	}
 
 	@Override
@@ -572,9 +672,148 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 		EpisimPerson episimPerson = this.personMap.get(leavesVehicleEvent.getPersonId());
 
-		contactModel.infectionDynamicsVehicle(episimPerson, episimVehicle, now);
+		handleLeaveVehicle(episimPerson, episimVehicle, now, contactModel(episimVehicle));
+	}
+
+	/**
+	 * Returns the index of {@code value}, which is assigned consecutively on first use.
+	 */
+	private static <T> int index(Reference2IntMap<T> index, List<T> values, T value) {
+		return index.computeIntIfAbsent(value, k -> {
+			values.add(k);
+			return values.size() - 1;
+		});
+	}
+
+	/**
+	 * Same as {@link #index(Reference2IntMap, List, Object)}, but also assigns the index and ordering to the container when it is seen first,
+	 * so that they are already used by the contact models during init.
+	 */
+	private int containerIndex(Reference2IntMap<EpisimContainer<?>> index, List<EpisimContainer<?>> containers, EpisimContainer<?> container) {
+		return index.computeIntIfAbsent(container, k -> {
+			containers.add(k);
+			k.setIndex(containers.size() - 1);
+			k.setOrdered(!episimConfig.isUnorderedContainers());
+			return containers.size() - 1;
+		});
+	}
+
+	/**
+	 * Replays the events of one day from the compact representation created in {@link #init(Map)}.
+	 * This has the same effect as passing the events of this day through the {@link org.matsim.core.api.experimental.events.EventsManager},
+	 * but the input events will not be seen by any other handler.
+	 */
+	public void replayDay(DayOfWeek day) {
+
+		ReplayDay events = replayDays.get(day);
+
+		if (parallel != null) {
+			parallel.replay(events, null);
+			return;
+		}
+
+		for (int i = 0; i < events.size(); i++) {
+			replay(events, i, contactModel);
+		}
+	}
 
-		double timeSpent = now - episimVehicle.getContainerEnteringTime(episimPerson.getPersonId());
+	/**
+	 * Replays the events of one day and passes all original input events to {@code inputHandler} before they are processed.
+	 * This is equivalent to the event order when the input handler is registered before this handler at the events manager.
+	 * Input events are only kept after {@link #init(Map)} if all events are written, see {@link EpisimConfigGroup.WriteEvents#all}.
+	 *
+	 * @see #replayDay(DayOfWeek)
+	 */
+	public void replayDay(DayOfWeek day, BasicEventHandler inputHandler) {
+
+		ReplayDay events = replayDays.get(day);
+
+		if (events.events == null)
+			throw new IllegalStateException("Input events are only kept when writing all events, see EpisimConfigGroup#setWriteEvents");
+
+		if (parallel != null) {
+			parallel.replay(events, inputHandler);
+			return;
+		}
+
+		int next = 0;
+		for (int i = 0; i < events.events.size(); i++) {
+			inputHandler.handleEvent(events.events.get(i));
+
+			if (next < events.size() && events.event[next] == i)
+				replay(events, next++, contactModel);
+		}
+	}
+
+	/**
+	 * Replays event {@code i} of a day using the given contact model.
+	 */
+	void replay(ReplayDay events, int i, ContactModel model) {
+
+		double now = EpisimUtils.getCorrectedTime(episimConfig.getStartOffset(), events.time[i], iteration);
+		EpisimPerson person = personsByIndex[events.person[i]];
+		EpisimContainer<?> container = containersByIndex[events.container[i]];
+
+		switch (events.kind[i]) {
+			case ReplayDay.ACT_START:
+				handleActivityStart(person, (EpisimFacility) container, actTypesByIndex[events.actType[i]], now, model);
+				break;
+			case ReplayDay.ACT_END:
+				handleActivityEnd(person, (EpisimFacility) container, actTypesByIndex[events.actType[i]], now, model);
+				break;
+			case ReplayDay.ENTER_VEHICLE:
+				handleEnterVehicle(person, (EpisimVehicle) container, now, model);
+				break;
+			case ReplayDay.LEAVE_VEHICLE:
+				handleLeaveVehicle(person, (EpisimVehicle) container, now, model);
+				break;
+			default:
+				throw new IllegalStateException("Unknown event kind " + events.kind[i]);
+		}
+	}
+
+	private void handleActivityStart(EpisimPerson episimPerson, EpisimFacility episimFacility, String actType, double now, ContactModel model) {
+
+		// add person to facility
+		episimFacility.addPerson(episimPerson, now);
+
+		handlePersonTrajectory(episimPerson, actType);
+
+		model.notifyEnterFacility(episimPerson, episimFacility, now);
+	}
+
+	private void handleActivityEnd(EpisimPerson episimPerson, EpisimFacility facility, String actType, double now, ContactModel model) {
+
+		EpisimFacility episimFacility = (EpisimFacility) episimPerson.getCurrentContainer();
+		if (!episimFacility.equals(facility)) {
+			throw new IllegalStateException("Person=" + episimPerson.getPersonId().toString() + " has activity end event at facility=" +
+					(facility != null ? facility.getContainerId() : null) + " but actually is at facility=" + episimFacility.getContainerId().toString());
+		}
+
+		model.infectionDynamicsFacility(episimPerson, episimFacility, now, actType);
+
+		double timeSpent = now - episimFacility.getContainerEnteringTime(episimPerson);
+		episimPerson.addSpentTime(actType, timeSpent);
+
+		episimFacility.removePerson(episimPerson);
+
+		handlePersonTrajectory(episimPerson, actType);
+
+	}
+
+	private void handleEnterVehicle(EpisimPerson episimPerson, EpisimVehicle episimVehicle, double now, ContactModel model) {
+
+		// add person to vehicle and memorize entering time:
+		episimVehicle.addPerson(episimPerson, now);
+
+		model.notifyEnterVehicle( episimPerson, episimVehicle, now );
+	}
+
+	private void handleLeaveVehicle(EpisimPerson episimPerson, EpisimVehicle episimVehicle, double now, ContactModel model) {
+
+		model.infectionDynamicsVehicle(episimPerson, episimVehicle, now);
+
+		double timeSpent = now - episimVehicle.getContainerEnteringTime(episimPerson);
 
 		// This type depends on the params defined in the scenario
 		episimPerson.addSpentTime("pt", timeSpent);
@@ -583,7 +822,6 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		episimVehicle.removePerson(episimPerson);
 	}
 
-
 	/**
 	 * Create a new person and lookup attributes from scenario.
 	 */
@@ -599,14 +837,14 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 		boolean traceable = localRnd.nextDouble() < tracingConfig.getEquipmentRate();
 
-		return new EpisimPerson(id, attrs, traceable, reporting);
+		return new EpisimPerson(id, attrs, traceable, reporting, personStore);
 	}
 
 	/**
 	 * Creates the home facility of a person.
 	 */
 	private EpisimFacility createHomeFacility(EpisimPerson person) {
-		String homeId = (String) person.getAttributes().getAttribute("homeId");
+		String homeId = person.getHomeId();
 		if (homeId == null)
 			homeId = "home_of_" + person.getPersonId().toString();
 
@@ -643,10 +881,9 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 	}
 
-	private void handlePersonTrajectory(Id<Person> personId, String trajectoryElement) {
-		EpisimPerson person = personMap.get(personId);
+	private void handlePersonTrajectory(EpisimPerson person, String trajectoryElement) {
 
-		if (person.getCurrentPositionInTrajectory() + 1 == person.getTrajectory().size()) {
+		if (person.getCurrentPositionInTrajectory() + 1 == person.getTrajectorySize()) {
 			return;
 		}
 		person.incrementCurrentPositionInTrajectory();
@@ -712,12 +949,24 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		LocalDate date = episimConfig.getStartDate().plusDays(iteration - 1);
 		DayOfWeek day = EpisimUtils.getDayOfWeek(episimConfig, iteration);
 
+		// each container draws from its own stream during this day
+		if (parallel != null || streams.isIndependent()) {
+			for (int c = 0; c < containersByIndex.length; c++) {
+				long seed = EpisimRandom.seed(streams.getSeed(), EpisimRandom.Purpose.contact, iteration, c, EpisimRandom.NONE);
+				containersByIndex[c].setRandom(new SplittableRandom(seed));
+			}
+		}
+
+		// contacts of the previous day are sealed once before they are traced
+		if (personStore.contacts != null)
+			personStore.contacts.seal();
+
 		progressionModel.setIteration(iteration);
 		progressionModel.beforeStateUpdates(personMap, iteration, this.report);
 		for (EpisimPerson person : personMap.values()) {
 			checkAndHandleEndOfNonCircularTrajectory(person, day);
 			person.resetCurrentPositionInTrajectory(day);
-			progressionModel.updateState(person, iteration);
+			progressionModel.updateStateIfDue(person, iteration);
 		}
 
 		int available = EpisimUtils.findValidEntry(vaccinationConfig.getVaccinationCapacity(),  0, date);
@@ -736,11 +985,21 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 		ImmutableMap<String, Restriction> im = ImmutableMap.copyOf(this.restrictions);
 		policy.updateRestrictions(report, im);
-		contactModel.setRestrictionsForIteration(iteration, im);
+		if (parallel != null)
+			parallel.setRestrictionsForIteration(iteration, im);
+		else
+			contactModel.setRestrictionsForIteration(iteration, im);
 		reporting.reportRestrictions(restrictions, iteration, report.date);
 
 	}
 
+	/**
+	 * Contact model responsible for a container.
+	 */
+	private ContactModel contactModel(EpisimContainer<?> container) {
+		return parallel != null ? parallel.getContactModel(container) : contactModel;
+	}
+
 	/**
 	 * Handle plans with "holes" in their trajectory.
 	 *
@@ -761,10 +1020,10 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 
 				// index of last activity at previous day
 				int index = person.getEndOfDay(day.minus(1));
-				String actType = person.getTrajectory().get(index).actType;
+				String actType = person.getActivity(index).actType;
 
-				contactModel.infectionDynamicsFacility(person, lastFacility, now, actType);
-				double timeSpent = now - lastFacility.getContainerEnteringTime(person.getPersonId());
+				contactModel(lastFacility).infectionDynamicsFacility(person, lastFacility, now, actType);
+				double timeSpent = now - lastFacility.getContainerEnteringTime(person);
 				person.addSpentTime(actType, timeSpent);
 
 				if (iteration > 1 && timeSpent > 86400 && !actType.equals("home")) {
@@ -776,24 +1035,24 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 				EpisimFacility firstFacility = this.pseudoFacilityMap.get(firstFacilityId);
 				firstFacility.addPerson(person, now);
 
-				contactModel.notifyEnterFacility(person, firstFacility, now);
+				contactModel(firstFacility).notifyEnterFacility(person, firstFacility, now);
 
 			} else if (container instanceof EpisimVehicle && this.vehicleMap.containsKey(lastFacilityId)) {
 				EpisimVehicle lastVehicle = this.vehicleMap.get(lastFacilityId);
-				contactModel.infectionDynamicsVehicle(person, lastVehicle, now);
-				person.addSpentTime("pt", now - lastVehicle.getContainerEnteringTime(person.getPersonId()));
+				contactModel(lastVehicle).infectionDynamicsVehicle(person, lastVehicle, now);
+				person.addSpentTime("pt", now - lastVehicle.getContainerEnteringTime(person));
 
 				lastVehicle.removePerson(person);
 				EpisimFacility firstFacility = this.pseudoFacilityMap.get(firstFacilityId);
 				firstFacility.addPerson(person, now);
 
-				contactModel.notifyEnterFacility(person, firstFacility, now);
+				contactModel(firstFacility).notifyEnterFacility(person, firstFacility, now);
 			}
 		} else {
 			EpisimFacility firstFacility = this.pseudoFacilityMap.get(firstFacilityId);
 			firstFacility.addPerson(person, now);
 
-			contactModel.notifyEnterFacility(person, firstFacility, now);
+			contactModel(firstFacility).notifyEnterFacility(person, firstFacility, now);
 		}
 	}
 
@@ -801,6 +1060,13 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 		return Collections.unmodifiableCollection(personMap.values());
 	}
 
+	/**
+	 * All containers by their index, only available after {@link #init(Map)}.
+	 */
+	EpisimContainer<?>[] getContainers() {
+		return containersByIndex;
+	}
+
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
 
@@ -814,6 +1080,9 @@ public final class InfectionEventHandler implements ActivityEndEventHandler, Per
 			writeChars(out, e.getValue().asMap().toString());
 		}
 
+		if (personStore.contacts != null)
+			personStore.contacts.seal();
+
 		out.writeInt(personMap.size());
 		for (Map.Entry<Id<Person>, EpisimPerson> e : personMap.entrySet()) {
 			writeChars(out, e.getKey().toString());
@@ -0,0 +1,342 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.episim.model.ContactModel;
+import org.matsim.episim.policy.Restriction;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Replays the events of one day with multiple threads.
+ * <p>
+ * Each container is assigned to one worker by its index and each worker has its own {@link ContactModel} instance.
+ * A worker processes the events of its containers in the original order. Before an event is processed, the previous event of the
+ * same person has to be finished, which might be processed by another worker. Because a person is only in one container at a time,
+ * its state is only changed by the container it is currently in.
+ * <p>
+ * Determinism: all random numbers during the replay are drawn from the stream of the container, which is derived from
+ * the global seed, the iteration and the container index, see {@link EpisimRandom}. Reports are collected by each worker and processed in the order of
+ * the events at the end of each time window. Therefore, the simulation state and all outputs are the same for a given seed,
+ * independent of the number of threads and the scheduling of threads. The results are the same as with the single threaded replay
+ * if {@link EpisimConfigGroup.RandomStreams#independent} streams are used, otherwise the single threaded replay draws from one shared random generator.
+ */
+final class ParallelReplay {
+
+	private static final Logger log = LogManager.getLogger(ParallelReplay.class);
+
+	/**
+	 * Simulated seconds of one time window, after which reports are processed.
+	 */
+	private static final double WINDOW = 3600;
+
+	private final InfectionEventHandler handler;
+	private final EpisimReporting reporting;
+
+	private final Worker[] workers;
+	private final ExecutorService executor;
+
+	/**
+	 * Schedules are independent of the iteration and computed once per day.
+	 */
+	private final Map<ReplayDay, Schedule> schedules = new IdentityHashMap<>();
+
+	/**
+	 * Number of finished events per person in the current day, see {@link #setNumberOfPersons(int)}.
+	 */
+	private AtomicIntegerArray progress = new AtomicIntegerArray(0);
+
+	/**
+	 * Set when a worker failed, so that others stop waiting.
+	 */
+	private volatile boolean failed = false;
+
+	/**
+	 * Creates the workers. This needs to be done before the events are processed during init, because contact models may
+	 * keep state for the containers they are responsible for, see {@link #getContactModel(EpisimContainer)}.
+	 */
+	ParallelReplay(int threads, InfectionEventHandler handler, ContactModel contactModel, EpisimReporting reporting) {
+		this.handler = handler;
+		this.reporting = reporting;
+
+		this.workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			// the first worker uses the original instance, which also updates the shared infection model
+			workers[i] = new Worker(i, i == 0 ? contactModel : contactModel.newInstance());
+		}
+
+		this.executor = Executors.newFixedThreadPool(threads, DaemonThreadFactory.INSTANCE);
+
+		log.info("Using {} threads to replay days", threads);
+	}
+
+	/**
+	 * Contact model instance responsible for a container.
+	 */
+	ContactModel getContactModel(EpisimContainer<?> container) {
+		int idx = container.getIndex();
+		return workers[idx < 0 ? 0 : idx % workers.length].model;
+	}
+
+	/**
+	 * Sets the number of persons in the replayed events, which is known after init.
+	 */
+	void setNumberOfPersons(int persons) {
+		progress = new AtomicIntegerArray(persons);
+		schedules.clear();
+	}
+
+	/**
+	 * Set restrictions of all contact model instances.
+	 */
+	void setRestrictionsForIteration(int iteration, Map<String, Restriction> restrictions) {
+		for (Worker worker : workers) {
+			worker.model.setRestrictionsForIteration(iteration, restrictions);
+		}
+	}
+
+	/**
+	 * Replays one day.
+	 *
+	 * @param inputHandler receives the input events of each window before it is processed, may be null
+	 */
+	void replay(ReplayDay day, @Nullable BasicEventHandler inputHandler) {
+
+		for (int i = 0; i < progress.length(); i++) {
+			progress.set(i, 0);
+		}
+
+		for (Worker worker : workers) {
+			worker.next = 0;
+		}
+
+		Schedule schedule = schedules.computeIfAbsent(day, this::createSchedule);
+
+		int input = 0;
+		for (int w = 0; w < schedule.windows.length; w++) {
+
+			int to = schedule.windows[w];
+
+			if (inputHandler != null && to > 0) {
+				for (; input <= day.event[to - 1]; input++)
+					inputHandler.handleEvent(day.events.get(input));
+			}
+
+			List<Callable<Void>> tasks = new ArrayList<>(workers.length);
+			for (Worker worker : workers) {
+				tasks.add(() -> worker.run(day, schedule, to));
+			}
+
+			try {
+				for (Future<Void> f : executor.invokeAll(tasks)) {
+					f.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted during parallel replay", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Error during parallel replay", e.getCause());
+			}
+
+			processReports();
+		}
+
+		if (inputHandler != null) {
+			for (; input < day.events.size(); input++)
+				inputHandler.handleEvent(day.events.get(input));
+		}
+	}
+
+	/**
+	 * Process the reports of all workers in order of their events.
+	 */
+	private void processReports() {
+
+		// segments of all workers are each sorted by event, merge them
+		int[] pos = new int[workers.length];
+		while (true) {
+			Worker next = null;
+			int idx = -1;
+			for (int i = 0; i < workers.length; i++) {
+				Worker worker = workers[i];
+				if (pos[i] < worker.segments.size() && (next == null ||
+						worker.segments.getInt(pos[i]) < next.segments.getInt(pos[idx]))) {
+					next = worker;
+					idx = i;
+				}
+			}
+
+			if (next == null)
+				break;
+
+			int from = next.segments.getInt(pos[idx] + 1);
+			int to = next.segments.getInt(pos[idx] + 2);
+			for (int i = from; i < to; i++)
+				next.reports.get(i).run();
+
+			pos[idx] += 3;
+		}
+
+		for (Worker worker : workers) {
+			worker.reports.clear();
+			worker.segments.clear();
+		}
+	}
+
+	private Schedule createSchedule(ReplayDay day) {
+
+		int n = day.size();
+		int[] seq = new int[n];
+		int[] count = new int[progress.length()];
+
+		IntArrayList[] events = new IntArrayList[workers.length];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = new IntArrayList();
+		}
+
+		IntArrayList windows = new IntArrayList();
+		double end = day.size() > 0 ? day.time[0] + WINDOW : 0;
+
+		for (int i = 0; i < n; i++) {
+			seq[i] = count[day.person[i]]++;
+			events[day.container[i] % workers.length].add(i);
+
+			if (day.time[i] >= end) {
+				windows.add(i);
+				while (day.time[i] >= end)
+					end += WINDOW;
+			}
+		}
+
+		windows.add(n);
+
+		int[][] result = new int[workers.length][];
+		for (int i = 0; i < events.length; i++) {
+			result[i] = events[i].toIntArray();
+		}
+
+		return new Schedule(seq, result, windows.toIntArray());
+	}
+
+	/**
+	 * Order of events for all workers.
+	 */
+	private static final class Schedule {
+
+		/**
+		 * Number of previous events of the same person.
+		 */
+		private final int[] seq;
+
+		/**
+		 * Event indices for each worker.
+		 */
+		private final int[][] events;
+
+		/**
+		 * Exclusive end index of each window.
+		 */
+		private final int[] windows;
+
+		private Schedule(int[] seq, int[][] events, int[] windows) {
+			this.seq = seq;
+			this.events = events;
+			this.windows = windows;
+		}
+	}
+
+	/**
+	 * Processes the events of a subset of containers.
+	 */
+	private final class Worker {
+
+		private final int id;
+		private final ContactModel model;
+
+		/**
+		 * Deferred reports and segments of (event, from, to) into this list.
+		 */
+		private final List<Runnable> reports = new ArrayList<>();
+		private final IntArrayList segments = new IntArrayList();
+
+		/**
+		 * Position of the next event to process in the schedule of this worker.
+		 */
+		private int next = 0;
+
+		private Worker(int id, ContactModel model) {
+			this.id = id;
+			this.model = model;
+		}
+
+		private Void run(ReplayDay day, Schedule schedule, int to) {
+
+			int[] events = schedule.events[id];
+
+			reporting.deferReports(reports);
+			try {
+				for (; next < events.length && events[next] < to; next++) {
+
+					int e = events[next];
+					int person = day.person[e];
+
+					// wait until previous event of this person is finished
+					int spins = 0;
+					while (progress.get(person) != schedule.seq[e]) {
+						if (failed)
+							return null;
+
+						if (++spins < 1000)
+							Thread.onSpinWait();
+						else
+							Thread.yield();
+					}
+
+					int from = reports.size();
+					handler.replay(day, e, model);
+
+					if (reports.size() > from) {
+						segments.add(e);
+						segments.add(from);
+						segments.add(reports.size());
+					}
+
+					progress.set(person, schedule.seq[e] + 1);
+				}
+			} catch (RuntimeException | Error e) {
+				failed = true;
+				throw e;
+			} finally {
+				reporting.deferReports(null);
+			}
+
+			return null;
+		}
+	}
+}
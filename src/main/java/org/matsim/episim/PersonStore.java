@@ -0,0 +1,249 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the state of many {@link EpisimPerson}s in primitive arrays, indexed by the person index.
+ * Persons are only views on this store, which avoids many small objects per person.
+ * Enums are stored by their ordinal.
+ */
+final class PersonStore {
+
+	/**
+	 * Marks a status that was never set.
+	 */
+	static final int NO_CHANGE = Integer.MIN_VALUE;
+
+	static final int DAYS = 7;
+	static final int STATUS = EpisimPerson.DiseaseStatus.values().length;
+
+	byte[] status;
+	byte[] quarantineStatus;
+	byte[] virusStrain;
+	byte[] vaccinationStatus;
+	int[] vaccinationDate;
+	int[] quarantineDate;
+	short[] age;
+	boolean[] traceable;
+
+	/**
+	 * Typed person attributes, resolved once when the person is created.
+	 * District and home are stored as codes of {@link #districts} and {@link #homes}, -1 if not present.
+	 * The modeled age is -1 if not present.
+	 */
+	int[] district;
+	int[] home;
+	short[] modeledAge;
+	double[] susceptibility;
+	double[] viralLoad;
+
+	final Dictionary districts = new Dictionary();
+	final Dictionary homes = new Dictionary();
+
+	/**
+	 * First day of each status change, {@link #NO_CHANGE} if status was never set. Stored with {@link #STATUS} entries per person.
+	 */
+	int[] statusChanges;
+
+	/**
+	 * Positions in the trajectory, stored with {@link #DAYS} entries per person.
+	 */
+	int[] startOfDay;
+	int[] endOfDay;
+	int[] currentPositionInTrajectory;
+
+	/**
+	 * Slot of the person within its current container.
+	 */
+	int[] containerSlot;
+
+	/**
+	 * Offset and length of trajectories in {@link #trajectories}.
+	 */
+	int[] trajectoryOffset;
+	int[] trajectoryLength;
+
+	/**
+	 * Trajectories of all persons, once they have been interned.
+	 */
+	TrajectoryPool trajectories;
+
+	/**
+	 * Persons of this store by their index.
+	 */
+	EpisimPerson[] persons;
+
+	/**
+	 * Traceable contacts of all persons, null if contacts are stored per person.
+	 */
+	ContactLog contacts;
+
+	/**
+	 * Number of contacts added to the {@link ContactLog} per person, and this number at a pending removal of old contacts, 0 if there is none.
+	 */
+	int[] contactCount;
+	int[] contactRemoval;
+
+	private int size = 0;
+
+	/**
+	 * Create store with initial capacity.
+	 */
+	PersonStore(int capacity) {
+		status = new byte[capacity];
+		quarantineStatus = new byte[capacity];
+		virusStrain = new byte[capacity];
+		vaccinationStatus = new byte[capacity];
+		vaccinationDate = new int[capacity];
+		quarantineDate = new int[capacity];
+		age = new short[capacity];
+		traceable = new boolean[capacity];
+		district = new int[capacity];
+		home = new int[capacity];
+		modeledAge = new short[capacity];
+		susceptibility = new double[capacity];
+		viralLoad = new double[capacity];
+		statusChanges = new int[capacity * STATUS];
+		startOfDay = new int[capacity * DAYS];
+		endOfDay = new int[capacity * DAYS];
+		currentPositionInTrajectory = new int[capacity];
+		containerSlot = new int[capacity];
+		trajectoryOffset = new int[capacity];
+		trajectoryLength = new int[capacity];
+		contactCount = new int[capacity];
+		contactRemoval = new int[capacity];
+		persons = new EpisimPerson[capacity];
+	}
+
+	/**
+	 * Number of persons in this store.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Adds a new person with default state.
+	 *
+	 * @return index of the person
+	 */
+	int add(int age, boolean traceable) {
+
+		if (size == status.length)
+			grow(Math.max(4, size + (size >> 1)));
+
+		int idx = size++;
+
+		this.status[idx] = (byte) EpisimPerson.DiseaseStatus.susceptible.ordinal();
+		this.quarantineStatus[idx] = (byte) EpisimPerson.QuarantineStatus.no.ordinal();
+		this.virusStrain[idx] = 0;
+		this.vaccinationStatus[idx] = (byte) EpisimPerson.VaccinationStatus.no.ordinal();
+		this.vaccinationDate[idx] = -1;
+		this.quarantineDate[idx] = -1;
+		this.age[idx] = (short) age;
+		this.traceable[idx] = traceable;
+		this.district[idx] = -1;
+		this.home[idx] = -1;
+		this.modeledAge[idx] = -1;
+		this.susceptibility[idx] = 1;
+		this.viralLoad[idx] = 1;
+		Arrays.fill(statusChanges, idx * STATUS, (idx + 1) * STATUS, NO_CHANGE);
+
+		return idx;
+	}
+
+	private void grow(int capacity) {
+		status = Arrays.copyOf(status, capacity);
+		quarantineStatus = Arrays.copyOf(quarantineStatus, capacity);
+		virusStrain = Arrays.copyOf(virusStrain, capacity);
+		vaccinationStatus = Arrays.copyOf(vaccinationStatus, capacity);
+		vaccinationDate = Arrays.copyOf(vaccinationDate, capacity);
+		quarantineDate = Arrays.copyOf(quarantineDate, capacity);
+		age = Arrays.copyOf(age, capacity);
+		traceable = Arrays.copyOf(traceable, capacity);
+		district = Arrays.copyOf(district, capacity);
+		home = Arrays.copyOf(home, capacity);
+		modeledAge = Arrays.copyOf(modeledAge, capacity);
+		susceptibility = Arrays.copyOf(susceptibility, capacity);
+		viralLoad = Arrays.copyOf(viralLoad, capacity);
+		statusChanges = Arrays.copyOf(statusChanges, capacity * STATUS);
+		startOfDay = Arrays.copyOf(startOfDay, capacity * DAYS);
+		endOfDay = Arrays.copyOf(endOfDay, capacity * DAYS);
+		currentPositionInTrajectory = Arrays.copyOf(currentPositionInTrajectory, capacity);
+		containerSlot = Arrays.copyOf(containerSlot, capacity);
+		trajectoryOffset = Arrays.copyOf(trajectoryOffset, capacity);
+		trajectoryLength = Arrays.copyOf(trajectoryLength, capacity);
+		contactCount = Arrays.copyOf(contactCount, capacity);
+		contactRemoval = Arrays.copyOf(contactRemoval, capacity);
+		persons = Arrays.copyOf(persons, capacity);
+	}
+
+	/**
+	 * Assigns consecutive codes to string values.
+	 */
+	static final class Dictionary {
+
+		private final Object2IntMap<String> codes = new Object2IntOpenHashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		{
+			codes.defaultReturnValue(-1);
+		}
+
+		/**
+		 * Returns the code of a value, which is created if needed. Null values have code -1.
+		 */
+		int code(String value) {
+			if (value == null)
+				return -1;
+
+			int code = codes.getInt(value);
+			if (code == -1) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+
+			return code;
+		}
+
+		/**
+		 * Returns the value of a code, or null for -1.
+		 */
+		String get(int code) {
+			return code == -1 ? null : values.get(code);
+		}
+
+		/**
+		 * Number of known values.
+		 */
+		int size() {
+			return values.size();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import org.matsim.api.core.v01.events.Event;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact representation of the events of one day, which are relevant for the {@link InfectionEventHandler}.
+ * Events are stored as struct of arrays and refer to persons, containers and activity types by their index.
+ */
+final class ReplayDay {
+
+	static final byte ACT_START = 0;
+	static final byte ACT_END = 1;
+	static final byte ENTER_VEHICLE = 2;
+	static final byte LEAVE_VEHICLE = 3;
+
+	/**
+	 * Original input events, null if they have been released after init.
+	 */
+	@Nullable
+	List<Event> events;
+
+	byte[] kind;
+	/**
+	 * Index of the original event in {@link #events}.
+	 */
+	int[] event;
+	int[] person;
+	int[] container;
+	/**
+	 * Index of activity type, -1 for vehicle events.
+	 */
+	int[] actType;
+	double[] time;
+
+	private int size = 0;
+
+	/**
+	 * Create with the input events, which also determines the maximum number of events.
+	 */
+	ReplayDay(List<Event> events) {
+		int capacity = events.size();
+		this.events = events;
+		kind = new byte[capacity];
+		event = new int[capacity];
+		person = new int[capacity];
+		container = new int[capacity];
+		actType = new int[capacity];
+		time = new double[capacity];
+	}
+
+	void add(byte kind, int event, int person, int container, int actType, double time) {
+		this.kind[size] = kind;
+		this.event[size] = event;
+		this.person[size] = person;
+		this.container[size] = container;
+		this.actType[size] = actType;
+		this.time[size] = time;
+		size++;
+	}
+
+	/**
+	 * Number of stored events.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Release the original input events, which are only needed when they are written to the output.
+	 */
+	void releaseEvents() {
+		events = null;
+	}
+
+	/**
+	 * Release unused capacity.
+	 */
+	void trim() {
+		kind = Arrays.copyOf(kind, size);
+		event = Arrays.copyOf(event, size);
+		person = Arrays.copyOf(person, size);
+		container = Arrays.copyOf(container, size);
+		actType = Arrays.copyOf(actType, size);
+		time = Arrays.copyOf(time, size);
+	}
+}
@@ -37,8 +37,14 @@ import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.handler.BasicEventHandler;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 /**
@@ -54,14 +60,6 @@ public final class ReplayHandler {
 	 */
 	@Beta
 	private static final boolean ADJUST_LEISURE = false;
-	/**
-	 * Used when adjust leisure is true. Mark persons that already started their day.
-	 */
-	private final Set<Id<Person>> started = Collections.newSetFromMap(new IdentityHashMap<>());
-	/**
-	 * Rng for leisure adjustment.
-	 */
-	private SplittableRandom rnd;
 	/**
 	 * Number of adjusted leisure activities.
 	 */
@@ -77,15 +75,13 @@ public final class ReplayHandler {
 	public ReplayHandler(EpisimConfigGroup config, @Nullable Scenario scenario) {
 		this.scenario = scenario;
 
-		for (EpisimConfigGroup.EventFileParams input : config.getInputEventsFiles()) {
+		List<EpisimConfigGroup.EventFileParams> inputs = new ArrayList<>(config.getInputEventsFiles());
+		List<List<Event>> read = readEvents(inputs, config.isCacheEvents());
 
-			rnd = new SplittableRandom(0);
+		for (int i = 0; i < inputs.size(); i++) {
 
-			List<Event> eventsForDay = new ArrayList<>();
-			EventsManager manager = EventsUtils.createEventsManager();
-			manager.addHandler(new EventReader(eventsForDay));
-			EventsUtils.readEvents(manager, input.getPath());
-			manager.finishProcessing();
+			EpisimConfigGroup.EventFileParams input = inputs.get(i);
+			List<Event> eventsForDay = read.get(i);
 
 			log.info("Read in {} events for {}, with time range {} - {}", eventsForDay.size(), input.getDays(), eventsForDay.get(0).getTime(),
 					eventsForDay.get(eventsForDay.size() - 1).getTime());
@@ -96,8 +92,6 @@ public final class ReplayHandler {
 
 				events.put(day, eventsForDay);
 			}
-
-			started.clear();
 		}
 
 		if (ADJUST_LEISURE) {
@@ -121,6 +115,119 @@ public final class ReplayHandler {
 		this.scenario = null;
 	}
 
+	/**
+	 * Reads all event files on a bounded thread pool. Files with a binary cache (or files that can be converted to one)
+	 * are decoded in parallel, others are read from xml one after another.
+	 * <p>
+	 * The result is deterministic: Ids are always created in the order of the input files, same as when reading sequentially,
+	 * and each file uses its own {@link EventReader}.
+	 *
+	 * @return list of events for each input, in the same order
+	 */
+	private List<List<Event>> readEvents(List<EpisimConfigGroup.EventFileParams> inputs, boolean useCache) {
+
+		int n = inputs.size();
+		Path[] caches = new Path[n];
+		for (int i = 0; i < n; i++) {
+			caches[i] = useCache ? EventCache.getCacheFile(inputs.get(i).getPath()) : null;
+		}
+
+		List<List<Event>> result = new ArrayList<>(Collections.nCopies(n, null));
+		EventCache.Reader[] readers = new EventCache.Reader[n];
+		EventReader[] handlers = new EventReader[n];
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(n, Runtime.getRuntime().availableProcessors())));
+
+		try {
+
+			// Validate or write caches, this does not create any ids
+			List<Future<Boolean>> ready = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				Path cache = caches[i];
+				Path source = cache != null ? Path.of(inputs.get(i).getPath()) : null;
+				ready.add(cache == null ? null :
+						pool.submit(() -> EventCache.isValid(source, cache) || EventCache.convert(source, cache)));
+			}
+
+			// Ids are created in order of the inputs
+			for (int i = 0; i < n; i++) {
+				if (ready.get(i) != null && get(ready.get(i))) {
+					try {
+						readers[i] = EventCache.open(caches[i]);
+					} catch (IOException | RuntimeException e) {
+						log.warn("Could not open event cache {}", caches[i], e);
+					}
+				}
+
+				if (readers[i] == null)
+					result.set(i, readXml(inputs.get(i).getPath()));
+			}
+
+			// Decoding and post processing of cached events
+			List<Future<List<Event>>> decoded = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				EventCache.Reader reader = readers[i];
+				Path cache = caches[i];
+				EventReader handler = handlers[i] = new EventReader(new ArrayList<>());
+				decoded.add(reader == null ? null : pool.submit(() -> {
+					log.info("Reading events from cache {}", cache);
+					reader.read(handler);
+					return handler.events;
+				}));
+			}
+
+			for (int i = 0; i < n; i++) {
+				if (decoded.get(i) == null)
+					continue;
+
+				try {
+					result.set(i, decoded.get(i).get());
+					adjusted += handlers[i].adjusted;
+				} catch (ExecutionException e) {
+					log.warn("Could not read event cache {}, falling back to {}", caches[i], inputs.get(i).getPath(), e.getCause());
+					result.set(i, readXml(inputs.get(i).getPath()));
+				}
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reading events", e);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Waits for result of the cache preparation.
+	 */
+	private static boolean get(Future<Boolean> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			log.warn("Could not prepare event cache", e.getCause());
+			return false;
+		}
+	}
+
+	/**
+	 * Reads events from xml.
+	 */
+	private List<Event> readXml(String path) {
+
+		EventReader reader = new EventReader(new ArrayList<>());
+
+		EventsManager manager = EventsUtils.createEventsManager();
+		manager.addHandler(reader);
+
+		EventsUtils.readEvents(manager, path);
+		manager.finishProcessing();
+
+		adjusted += reader.adjusted;
+		return reader.events;
+	}
+
 	/**
 	 * Replays event add modifies attributes based on current iteration.
 	 */
@@ -139,12 +246,22 @@ public final class ReplayHandler {
 	}
 
 	/**
-	 * Helper class to read events one time.
+	 * Helper class to read events one time. One instance is used per event file.
 	 */
 	private final class EventReader implements BasicEventHandler {
 
 		private final List<Event> events;
 
+		/**
+		 * Used when adjust leisure is true. Mark persons that already started their day.
+		 */
+		private final Set<Id<Person>> started = Collections.newSetFromMap(new IdentityHashMap<>());
+		/**
+		 * Rng for leisure adjustment.
+		 */
+		private final SplittableRandom rnd = new SplittableRandom(0);
+		private int adjusted = 0;
+
 		private EventReader(List<Event> events) {
 			this.events = events;
 		}
@@ -0,0 +1,141 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Traceable contacts of one person, in order of the first contact.
+ * Contact persons are stored by their index in the {@link PersonStore}.
+ * A repeated contact keeps its position and only updates the time, so a person is contained at most once.
+ * Positions are looked up by person, which keeps adding a contact constant in time.
+ */
+final class TraceableContacts {
+
+	private static final int[] NO_PERSONS = new int[0];
+	private static final double[] NO_TIMES = new double[0];
+
+	private int[] persons = NO_PERSONS;
+	private double[] times = NO_TIMES;
+	private int size = 0;
+
+	/**
+	 * Position of each contact person, created with the first contact.
+	 */
+	private Int2IntOpenHashMap positions = null;
+
+	/**
+	 * Lower bound of all times, so that most calls of {@link #removeBefore(double)} do not need to look at the entries.
+	 */
+	private double minTime = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Number of entries.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Person index of the i-th entry.
+	 */
+	int getPerson(int i) {
+		return persons[i];
+	}
+
+	/**
+	 * Time of the last contact of the i-th entry.
+	 */
+	double getTime(int i) {
+		return times[i];
+	}
+
+	/**
+	 * Adds a contact. If the person is already contained, only its time is set.
+	 */
+	void add(int person, double time) {
+
+		if (positions == null) {
+			positions = new Int2IntOpenHashMap(4);
+			positions.defaultReturnValue(-1);
+		}
+
+		int i = positions.get(person);
+		if (i == -1) {
+			if (size == persons.length)
+				grow();
+
+			i = size++;
+			persons[i] = person;
+			positions.put(person, i);
+		}
+
+		times[i] = time;
+		minTime = Math.min(minTime, time);
+	}
+
+	/**
+	 * Removes all entries before {@code time}. The order of the remaining entries is kept.
+	 */
+	void removeBefore(double time) {
+
+		if (minTime >= time)
+			return;
+
+		int n = 0;
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < size; i++) {
+			if (times[i] < time) {
+				positions.remove(persons[i]);
+				continue;
+			}
+
+			if (n != i) {
+				persons[n] = persons[i];
+				times[n] = times[i];
+				positions.put(persons[n], n);
+			}
+
+			min = Math.min(min, times[n]);
+			n++;
+		}
+
+		size = n;
+		minTime = min;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear() {
+		size = 0;
+		positions = null;
+		minTime = Double.POSITIVE_INFINITY;
+	}
+
+	private void grow() {
+		int capacity = Math.max(4, persons.length * 2);
+		persons = Arrays.copyOf(persons, capacity);
+		times = Arrays.copyOf(times, capacity);
+	}
+}
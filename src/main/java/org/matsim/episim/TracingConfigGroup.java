@@ -31,6 +31,7 @@ public class TracingConfigGroup extends ReflectiveConfigGroup {
 	private static final String CAPACITY_TYPE = "capacityType";
 	private static final String STRATEGY = "strategy";
 	private static final String LOCATION_THRESHOLD = "locationThreshold";
+	private static final String CONTACT_LOG = "contactLog";
 	private static final String GROUPNAME = "episimTracing";
 
 	/**
@@ -99,6 +100,11 @@ public class TracingConfigGroup extends ReflectiveConfigGroup {
 	 */
 	private int locationThreshold = 4;
 
+	/**
+	 * Store the traceable contacts of all persons in one shared log instead of per person. (Uses less RAM)
+	 */
+	private boolean contactLog = false;
+
 	/**
 	 * Default constructor.
 	 */
@@ -286,6 +292,16 @@ public class TracingConfigGroup extends ReflectiveConfigGroup {
 		this.traceSusceptible = traceSusceptible;
 	}
 
+	@StringGetter(CONTACT_LOG)
+	public boolean getContactLog() {
+		return contactLog;
+	}
+
+	@StringSetter(CONTACT_LOG)
+	public void setContactLog(boolean contactLog) {
+		this.contactLog = contactLog;
+	}
+
 	@StringGetter(CAPACITY_TYPE)
 	public CapacityType getCapacityType() {
 		return capacityType;
@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shared storage of trajectories. Activities are stored as int index and identical trajectories are only stored once.
+ * Persons reference their trajectory by offset into this pool.
+ */
+final class TrajectoryPool {
+
+	/**
+	 * Index of activities, by their params and type.
+	 */
+	private final Reference2ObjectMap<EpisimConfigGroup.InfectionParams, Object2IntMap<String>> activityIndex = new Reference2ObjectOpenHashMap<>();
+	private EpisimPerson.Activity[] activities = new EpisimPerson.Activity[16];
+	private int numActivities = 0;
+
+	/**
+	 * Offsets of already stored trajectories, only needed while adding.
+	 */
+	private Object2IntMap<IntArrayList> offsets = new Object2IntOpenHashMap<>();
+
+	private int[] pool = new int[1024];
+	private int size = 0;
+
+	/**
+	 * Adds a trajectory to the pool.
+	 *
+	 * @return offset of the trajectory in the pool
+	 */
+	int add(List<EpisimPerson.Activity> trajectory) {
+
+		if (offsets == null)
+			throw new IllegalStateException("Trajectory pool was already trimmed.");
+
+		IntArrayList seq = new IntArrayList(trajectory.size());
+		for (EpisimPerson.Activity act : trajectory) {
+			seq.add(index(act));
+		}
+
+		int offset = offsets.getOrDefault(seq, -1);
+		if (offset >= 0)
+			return offset;
+
+		if (size + seq.size() > pool.length)
+			pool = Arrays.copyOf(pool, Math.max(size + seq.size(), pool.length * 2));
+
+		seq.getElements(0, pool, size, seq.size());
+		offset = size;
+		size += seq.size();
+
+		offsets.put(seq, offset);
+		return offset;
+	}
+
+	private int index(EpisimPerson.Activity act) {
+		Object2IntMap<String> byType = activityIndex.computeIfAbsent(act.params, k -> new Object2IntOpenHashMap<>());
+		return byType.computeIntIfAbsent(act.actType, k -> {
+			if (numActivities == activities.length)
+				activities = Arrays.copyOf(activities, numActivities * 2);
+
+			activities[numActivities] = act;
+			return numActivities++;
+		});
+	}
+
+	/**
+	 * Releases memory only needed while adding trajectories.
+	 */
+	void trim() {
+		offsets = null;
+		pool = Arrays.copyOf(pool, size);
+	}
+
+	/**
+	 * Returns activity at position of trajectory stored at {@code offset}.
+	 */
+	EpisimPerson.Activity get(int offset, int position) {
+		return activities[pool[offset + position]];
+	}
+
+	/**
+	 * Number of stored activity indices.
+	 */
+	int size() {
+		return size;
+	}
+}
@@ -21,6 +21,7 @@ public class VaccinationConfigGroup extends ReflectiveConfigGroup {
 	private static final String DAYS_BEFORE_FULL_EFFECT = "daysBeforeFullEffect";
 	private static final String EFFECTIVENESS = "effectiveness";
 	private static final String CAPACITY = "vaccinationCapacity";
+	private static final String CANDIDATE_POOL = "candidatePool";
 
 	private static final String GROUPNAME = "episimVaccination";
 
@@ -39,6 +40,12 @@ public class VaccinationConfigGroup extends ReflectiveConfigGroup {
 	 */
 	private final NavigableMap<LocalDate, Integer> vaccinationCapacity = new TreeMap<>();
 
+	/**
+	 * Draw persons to vaccinate from a pool of eligible persons that is kept over all days, instead of collecting them each day.
+	 * The pool uses different random numbers.
+	 */
+	private boolean candidatePool = false;
+
 	/**
 	 * Default constructor.
 	 */
@@ -66,6 +73,16 @@ public class VaccinationConfigGroup extends ReflectiveConfigGroup {
 		this.effectiveness = effectiveness;
 	}
 
+	@StringGetter(CANDIDATE_POOL)
+	public boolean getCandidatePool() {
+		return candidatePool;
+	}
+
+	@StringSetter(CANDIDATE_POOL)
+	public void setCandidatePool(boolean candidatePool) {
+		this.candidatePool = candidatePool;
+	}
+
 	/**
 	 * Sets the vaccination capacity for individual days. If a day has no entry the previous will be still valid.
 	 * If empty, default is 0.
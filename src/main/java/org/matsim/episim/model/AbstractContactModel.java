@@ -60,13 +60,29 @@ public abstract class AbstractContactModel implements ContactModel {
 	 */
 	protected final double trackingMinDuration;
 
+	/**
+	 * Infection types and interaction rules of activity pairs.
+	 */
+	final ActivityPairs pairs = new ActivityPairs();
+
+	/**
+	 * Whether interactions can be skipped if no infection is possible, see {@link EpisimConfigGroup#isSkipImpossibleInfections()}.
+	 */
+	private final boolean skipImpossibleInfections;
+
 	/**
 	 * Infection probability calculation.
 	 */
 	protected final InfectionModel infectionModel;
 
+	/**
+	 * Whether this instance was created by {@link #newInstance()}. The shared infection model is only updated by the original.
+	 */
+	private final boolean copy;
+
 	protected int iteration;
 	private Map<String, Restriction> restrictions;
+	private RestrictionTable restrictionTable;
 
 
 	AbstractContactModel(SplittableRandom rnd, Config config, InfectionModel infectionModel, EpisimReporting reporting) {
@@ -77,6 +93,24 @@ public abstract class AbstractContactModel implements ContactModel {
 		this.trParams = new EpisimPerson.Activity("tr", episimConfig.selectInfectionParams("tr"));
 		this.qhParams = new EpisimPerson.Activity(QUARANTINE_HOME, episimConfig.selectInfectionParams(QUARANTINE_HOME));
 		this.trackingMinDuration = ConfigUtils.addOrGetModule(config, TracingConfigGroup.class).getMinDuration();
+		this.skipImpossibleInfections = episimConfig.isSkipImpossibleInfections() &&
+				episimConfig.getWriteEvents() != EpisimConfigGroup.WriteEvents.tracing && episimConfig.getWriteEvents() != EpisimConfigGroup.WriteEvents.all;
+		this.copy = false;
+	}
+
+	/**
+	 * Creates a new instance with the same configuration as {@code other}.
+	 */
+	AbstractContactModel(AbstractContactModel other) {
+		this.rnd = other.rnd;
+		this.episimConfig = other.episimConfig;
+		this.infectionModel = other.infectionModel;
+		this.reporting = other.reporting;
+		this.trParams = other.trParams;
+		this.qhParams = other.qhParams;
+		this.trackingMinDuration = other.trackingMinDuration;
+		this.skipImpossibleInfections = other.skipImpossibleInfections;
+		this.copy = true;
 	}
 
 	private static boolean hasDiseaseStatusRelevantForInfectionDynamics(EpisimPerson personWrapper) {
@@ -111,31 +145,32 @@ public abstract class AbstractContactModel implements ContactModel {
 	}
 
 	/**
-	 * Attention: In order to re-use the underlying object, this function returns a buffer.
-	 * Be aware that the old result will be overwritten, when the function is called multiple times.
+	 * Whether the interactions of a leaving person can be skipped, because contacts are not tracked or reported and the container holds
+	 * nobody the person could infect or be infected by.
 	 */
-	protected static StringBuilder getInfectionType(StringBuilder buffer, EpisimContainer<?> container, String leavingPersonsActivity,
-													String otherPersonsActivity) {
-		buffer.setLength(0);
-		if (container instanceof EpisimFacility) {
-			buffer.append(leavingPersonsActivity).append("_").append(otherPersonsActivity);
-			return buffer;
-		} else if (container instanceof EpisimVehicle) {
-			buffer.append("pt");
-			return buffer;
-		} else {
-			throw new RuntimeException("Infection situation is unknown");
+	protected final boolean canSkipInteractions(EpisimPerson person, EpisimContainer<?> container, boolean trackingEnabled) {
+		if (!skipImpossibleInfections || trackingEnabled)
+			return false;
+
+		switch (person.getDiseaseStatus()) {
+			case susceptible:
+				return container.getNumInfectious() == 0;
+			case contagious:
+			case showingSymptoms:
+				return container.getNumSusceptible() == 0;
+			default:
+				return true;
 		}
 	}
 
 	/**
 	 * Get the relevant infection parameter based on container and activity and person.
 	 */
-	protected EpisimConfigGroup.InfectionParams getInfectionParams(EpisimContainer<?> container, EpisimPerson person, String activity) {
+	protected EpisimConfigGroup.InfectionParams getInfectionParams(EpisimContainer<?> container, EpisimPerson person, EpisimPerson.Activity activity) {
 		if (container instanceof EpisimVehicle) {
 			return trParams.params;
 		} else if (container instanceof EpisimFacility) {
-			EpisimConfigGroup.InfectionParams params = episimConfig.selectInfectionParams(activity);
+			EpisimConfigGroup.InfectionParams params = activity.params;
 
 			// Select different infection params for home quarantined persons
 			if (person.getQuarantineStatus() == EpisimPerson.QuarantineStatus.atHome && params.getContainerName().equals("home")) {
@@ -148,13 +183,10 @@ public abstract class AbstractContactModel implements ContactModel {
 
 	}
 
-	protected void trackContactPerson(EpisimPerson personLeavingContainer, EpisimPerson otherPerson, double now, double jointTimeInContainer,
-									  StringBuilder infectionType) {
-
-		// Don't track certain activities
-		if (infectionType.indexOf("pt") >= 0 || infectionType.indexOf("shop") >= 0) {
-			return;
-		}
+	/**
+	 * Track the contact between two persons, the caller has to check whether the activity pair is trackable, see {@link ActivityPairs#isTrackable(int)}.
+	 */
+	protected void trackContactPerson(EpisimPerson personLeavingContainer, EpisimPerson otherPerson, double now, double jointTimeInContainer) {
 
 		// don't track below threshold
 		if (jointTimeInContainer < trackingMinDuration) {
@@ -165,8 +197,8 @@ public abstract class AbstractContactModel implements ContactModel {
 		otherPerson.addTraceableContactPerson(personLeavingContainer, now);
 	}
 
-	private boolean activityRelevantForInfectionDynamics(EpisimPerson person, EpisimContainer<?> container, Map<String, Restriction> restrictions, SplittableRandom rnd) {
-		EpisimPerson.Activity act = person.getTrajectory().get(person.getCurrentPositionInTrajectory());
+	private boolean activityRelevantForInfectionDynamics(EpisimPerson person, EpisimContainer<?> container, RestrictionTable restrictions, SplittableRandom rnd) {
+		EpisimPerson.Activity act = person.getCurrentActivity();
 
 		// Check if person is home quarantined
 		if (person.getQuarantineStatus() == EpisimPerson.QuarantineStatus.atHome && !act.actType.startsWith("home"))
@@ -174,14 +206,14 @@ public abstract class AbstractContactModel implements ContactModel {
 
 
 		// enforce max group sizes
-		Restriction r = restrictions.get(act.params.getContainerName());
-		if (r.getMaxGroupSize() != null && r.getMaxGroupSize() > -1 && container.getMaxGroupSize() > 0 &&
-				container.getMaxGroupSize() > r.getMaxGroupSize())
+		int maxGroupSize = restrictions.getMaxGroupSize(act.params);
+		if (maxGroupSize > -1 && container.getMaxGroupSize() > 0 &&
+				container.getMaxGroupSize() > maxGroupSize)
 			return false;
 
 		// reduce group size probabilistically
-		Integer reducedGroupSize = r.getReducedGroupSize();
-		if (reducedGroupSize != null && reducedGroupSize > -1 && reducedGroupSize != Integer.MAX_VALUE) {
+		int reducedGroupSize = restrictions.getReducedGroupSize(act.params);
+		if (reducedGroupSize > -1 && reducedGroupSize != Integer.MAX_VALUE) {
 			double current = (container.getPersons().size() * episimConfig.getSampleSize()) / container.getNumSpaces();
 
 			// always false if current < reduced size
@@ -191,35 +223,35 @@ public abstract class AbstractContactModel implements ContactModel {
 			if (out) return false;
 		}
 
-		if (r.isClosed(container.getContainerId()))
+		if (restrictions.get(act.params).isClosed(container.getContainerId()))
 			return false;
 
 		return actIsRelevant(act, restrictions, rnd);
 	}
 
-	private boolean actIsRelevant(EpisimPerson.Activity act, Map<String, Restriction> restrictions, SplittableRandom rnd) {
+	private boolean actIsRelevant(EpisimPerson.Activity act, RestrictionTable restrictions, SplittableRandom rnd) {
 
-		Restriction r = restrictions.get(act.params.getContainerName());
+		double remainingFraction = restrictions.getRemainingFraction(act.params);
 		// avoid use of rnd if outcome is known beforehand
-		if (r.getRemainingFraction() == 1)
+		if (remainingFraction == 1)
 			return true;
-		if (r.getRemainingFraction() == 0)
+		if (remainingFraction == 0)
 			return false;
 
-		return rnd.nextDouble() < r.getRemainingFraction();
+		return rnd.nextDouble() < remainingFraction;
 
 	}
 
-	private boolean tripRelevantForInfectionDynamics(EpisimPerson person, Map<String, Restriction> restrictions, SplittableRandom rnd) {
+	private boolean tripRelevantForInfectionDynamics(EpisimPerson person, RestrictionTable restrictions, SplittableRandom rnd) {
 		EpisimPerson.Activity lastAct = null;
 		if (person.getCurrentPositionInTrajectory() != 0) {
-			lastAct = person.getTrajectory().get(person.getCurrentPositionInTrajectory() - 1);
+			lastAct = person.getActivity(person.getCurrentPositionInTrajectory() - 1);
 		}
 
 		if (person.getQuarantineStatus() != EpisimPerson.QuarantineStatus.no)
 			return false;
 
-		EpisimPerson.Activity nextAct = person.getTrajectory().get(person.getCurrentPositionInTrajectory());
+		EpisimPerson.Activity nextAct = person.getCurrentActivity();
 
 		// last activity is only considered if present
 		return actIsRelevant(trParams, restrictions, rnd) && actIsRelevant(nextAct, restrictions, rnd)
@@ -234,7 +266,7 @@ public abstract class AbstractContactModel implements ContactModel {
 	 * @noinspection BooleanMethodIsAlwaysInverted
 	 */
 	protected final boolean personRelevantForTrackingOrInfectionDynamics(EpisimPerson person, EpisimContainer<?> container,
-																		 Map<String, Restriction> restrictions, SplittableRandom rnd) {
+																		 RestrictionTable restrictions, SplittableRandom rnd) {
 
 		return personHasRelevantStatus(person) && checkPersonInContainer(person, container, restrictions, rnd);
 	}
@@ -248,7 +280,7 @@ public abstract class AbstractContactModel implements ContactModel {
 	/**
 	 * Checks whether a person would be present in the container.
 	 */
-	protected final boolean checkPersonInContainer(EpisimPerson person, EpisimContainer<?> container, Map<String, Restriction> restrictions, SplittableRandom rnd) {
+	protected final boolean checkPersonInContainer(EpisimPerson person, EpisimContainer<?> container, RestrictionTable restrictions, SplittableRandom rnd) {
 		if (person.getQuarantineStatus() == EpisimPerson.QuarantineStatus.full) {
 			return false;
 		}
@@ -259,21 +291,30 @@ public abstract class AbstractContactModel implements ContactModel {
 		return container instanceof EpisimVehicle && tripRelevantForInfectionDynamics(person, restrictions, rnd);
 	}
 
+	/**
+	 * Random stream to use for the interactions in a container. This is the stream of the container during parallel replay
+	 * and the global one otherwise.
+	 */
+	protected final SplittableRandom getRandom(EpisimContainer<?> container) {
+		SplittableRandom containerRnd = container.getRandom();
+		return containerRnd != null ? containerRnd : rnd;
+	}
+
 	/**
 	 * Calculate the joint time persons have been in a container.
 	 * This takes possible closing hours into account.
 	 */
 	protected double calculateJointTimeInContainer(double now, EpisimPerson person, double containerEnterTimeOfPersonLeaving, double containerEnterTimeOfOtherPerson) {
-		EpisimPerson.Activity act = person.getTrajectory().get(person.getCurrentPositionInTrajectory());
-		Restriction r = getRestrictions().get(act.params.getContainerName());
-
+		EpisimPerson.Activity act = person.getCurrentActivity();
 		double max = Math.max(containerEnterTimeOfPersonLeaving, containerEnterTimeOfOtherPerson);
 
 		// no closing hour set
-		if (!r.hasClosingHours()) {
+		if (!restrictionTable.hasClosingHours(act.params)) {
 			return now - max;
 		}
 
+		Restriction r = restrictionTable.get(act.params);
+
 		double overlap = r.overlapWithClosingHour(max, now);
 		if (overlap > 0) {
 			double jointTime = now - max - overlap;
@@ -292,13 +333,17 @@ public abstract class AbstractContactModel implements ContactModel {
 	public void setRestrictionsForIteration(int iteration, Map<String, Restriction> restrictions) {
 		this.iteration = iteration;
 		this.restrictions = restrictions;
-		this.infectionModel.setIteration(iteration);
+		this.restrictionTable = new RestrictionTable(restrictions);
+		if (!copy) {
+			this.infectionModel.setIteration(iteration);
+			this.infectionModel.setRestrictions(restrictionTable);
+		}
 	}
 
 	/**
 	 * Sets the infection status of a person and reports the event.
 	 */
-	protected void infectPerson(EpisimPerson personWrapper, EpisimPerson infector, double now, StringBuilder infectionType,
+	protected void infectPerson(EpisimPerson personWrapper, EpisimPerson infector, double now, String infectionType,
 								EpisimContainer<?> container) {
 
 		if (personWrapper.getDiseaseStatus() != EpisimPerson.DiseaseStatus.susceptible) {
@@ -324,13 +369,11 @@ public abstract class AbstractContactModel implements ContactModel {
 			now = EpisimUtils.getCorrectedTime(episimConfig.getStartOffset(), 24 * 60 * 60 - 1, iteration);
 		}
 
-		String infType = infectionType.toString();
-
-		reporting.reportInfection(personWrapper, infector, now, infType, infector.getVirusStrain(), container);
+		reporting.reportInfection(personWrapper, infector, now, infectionType, infector.getVirusStrain(), container);
 		personWrapper.setDiseaseStatus(now, EpisimPerson.DiseaseStatus.infectedButNotContagious);
 		personWrapper.setVirusStrain(infector.getVirusStrain());
 		personWrapper.setInfectionContainer(container);
-		personWrapper.setInfectionType(infType);
+		personWrapper.setInfectionType(infectionType);
 
 		// TODO: Currently not in use, is it still needed?
 		// Necessary for the otfvis visualization (although it is unfortunately not working).  kai, apr'20
@@ -346,6 +389,13 @@ public abstract class AbstractContactModel implements ContactModel {
 		return restrictions;
 	}
 
+	/**
+	 * Compiled view of {@link #getRestrictions()}.
+	 */
+	public RestrictionTable getRestrictionTable() {
+		return restrictionTable;
+	}
+
 	@Override
 	public void notifyEnterVehicle(EpisimPerson personEnteringVehicle, EpisimVehicle vehicle, double now) {
 	}
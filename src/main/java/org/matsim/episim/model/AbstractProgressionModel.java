@@ -6,6 +6,7 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.episim.EpisimConfigGroup;
 import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimRandom;
 import org.matsim.episim.EpisimReporting;
 import org.matsim.episim.EpisimUtils;
 
@@ -22,7 +23,7 @@ import java.util.SplittableRandom;
  */
 abstract class AbstractProgressionModel implements ProgressionModel, Externalizable {
 
-	protected final SplittableRandom rnd;
+	protected final EpisimRandom streams;
 	protected final EpisimConfigGroup episimConfig;
 
 	/**
@@ -30,9 +31,14 @@ abstract class AbstractProgressionModel implements ProgressionModel, Externaliza
 	 */
 	private final Object2LongMap<Id<Person>> nextStateAndDay = new Object2LongOpenHashMap<>();
 
+	/**
+	 * Day of the next transition for each person, so that only persons with due transitions need to be updated.
+	 */
+	private TransitionSchedule schedule = new TransitionSchedule();
+
 	@Inject
-	AbstractProgressionModel(SplittableRandom rnd, EpisimConfigGroup episimConfig) {
-		this.rnd = rnd;
+	AbstractProgressionModel(EpisimRandom streams, EpisimConfigGroup episimConfig) {
+		this.streams = streams;
 		this.episimConfig = episimConfig;
 	}
 
@@ -46,12 +52,49 @@ abstract class AbstractProgressionModel implements ProgressionModel, Externaliza
 	@Override
 	public void updateState(EpisimPerson person, int day) {
 
+		// No transitions from susceptible
+		if (person.getDiseaseStatus() != EpisimPerson.DiseaseStatus.susceptible)
+			updateState(person, day, streams.stream(EpisimRandom.Purpose.progression, day, EpisimRandom.NONE, person.getIndex()));
+
+		schedule(person, day);
+	}
+
+	@Override
+	public void updateStateIfDue(EpisimPerson person, int day) {
+		if (isDue(person, day))
+			updateState(person, day);
+	}
+
+	/**
+	 * Whether a person has a due transition, changed its disease status since its last update or needs to be released from quarantine.
+	 * Otherwise {@link #updateState(EpisimPerson, int)} would not change the person.
+	 */
+	protected final boolean isDue(EpisimPerson person, int day) {
+		schedule.advance(day);
+		return person.getQuarantineStatus() != EpisimPerson.QuarantineStatus.no ||
+				schedule.isDue(person.getIndex(), person.getDiseaseStatus().ordinal());
+	}
+
+	/**
+	 * Schedules the next update of a person at the day its pending transition is due.
+	 */
+	private void schedule(EpisimPerson person, int day) {
+
 		EpisimPerson.DiseaseStatus status = person.getDiseaseStatus();
+		long value = nextStateAndDay.getOrDefault(person.getPersonId(), 0);
 
-		// No transitions from susceptible
-		if (status == EpisimPerson.DiseaseStatus.susceptible)
-			return;
+		int at = Integer.MAX_VALUE;
+		if (value != 0 && status != EpisimPerson.DiseaseStatus.susceptible && status != EpisimPerson.DiseaseStatus.recovered) {
+			// same condition as in the update, transitions that are overdue will happen the next day
+			at = Math.max(day + 1, day - person.daysSince(status, day) + (int) value);
+		}
+
+		schedule.update(person.getIndex(), status.ordinal(), at);
+	}
 
+	private void updateState(EpisimPerson person, int day, SplittableRandom rnd) {
+
+		EpisimPerson.DiseaseStatus status = person.getDiseaseStatus();
 		double now = EpisimUtils.getCorrectedTime(episimConfig.getStartOffset(), 0, day);
 		Id<Person> id = person.getPersonId();
 
@@ -79,13 +122,13 @@ abstract class AbstractProgressionModel implements ProgressionModel, Externaliza
 				onTransition(person, now, day, status, next);
 
 				if (next != EpisimPerson.DiseaseStatus.recovered) {
-					if (updateNext(person, id, next))
-						updateState(person, day);
+					if (updateNext(person, id, next, rnd))
+						updateState(person, day, rnd);
 				}
 			}
 		} else {
-			if (updateNext(person, id, status))
-				updateState(person, day);
+			if (updateNext(person, id, status, rnd))
+				updateState(person, day, rnd);
 		}
 	}
 
@@ -94,9 +137,9 @@ abstract class AbstractProgressionModel implements ProgressionModel, Externaliza
 	 *
 	 * @return true when there should be an immediate update again
 	 */
-	private boolean updateNext(EpisimPerson person, Id<Person> id, EpisimPerson.DiseaseStatus from) {
-		EpisimPerson.DiseaseStatus next = decideNextState(person);
-		int nextTransitionDay = decideTransitionDay(person, from, next);
+	private boolean updateNext(EpisimPerson person, Id<Person> id, EpisimPerson.DiseaseStatus from, SplittableRandom rnd) {
+		EpisimPerson.DiseaseStatus next = decideNextState(person, rnd);
+		int nextTransitionDay = decideTransitionDay(person, from, next, rnd);
 
 		nextStateAndDay.put(id, compoundLong(next.ordinal(), nextTransitionDay));
 
@@ -107,12 +150,12 @@ abstract class AbstractProgressionModel implements ProgressionModel, Externaliza
 	/**
 	 * Choose the next state a person will attain.
 	 */
-	protected abstract EpisimPerson.DiseaseStatus decideNextState(EpisimPerson person);
+	protected abstract EpisimPerson.DiseaseStatus decideNextState(EpisimPerson person, SplittableRandom rnd);
 
 	/**
 	 * Chose how long a person stays in {@code from} until the disease changes to {@code to}.
 	 */
-	protected abstract int decideTransitionDay(EpisimPerson person, EpisimPerson.DiseaseStatus from, EpisimPerson.DiseaseStatus to);
+	protected abstract int decideTransitionDay(EpisimPerson person, EpisimPerson.DiseaseStatus from, EpisimPerson.DiseaseStatus to, SplittableRandom rnd);
 
 	/**
 	 * Arbitrary function that can be overwritten to perform actions on state transitions.
@@ -157,5 +200,8 @@ abstract class AbstractProgressionModel implements ProgressionModel, Externaliza
 			Id<Person> key = Id.createPersonId(EpisimUtils.readChars(in));
 			nextStateAndDay.put(key, in.readLong());
 		}
+
+		// all persons will be updated once
+		schedule = new TransitionSchedule();
 	}
 }
@@ -0,0 +1,139 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim.model;
+
+import org.matsim.episim.EpisimContainer;
+import org.matsim.episim.EpisimPerson;
+
+import static org.matsim.episim.InfectionEventHandler.EpisimFacility;
+import static org.matsim.episim.InfectionEventHandler.EpisimVehicle;
+
+/**
+ * Precomputed infection types and interaction rules for all pairs of activity types, indexed by {@link EpisimPerson.Activity#typeId}.
+ * This avoids any string operations during the interactions in a container.
+ * The table grows when new activity types are encountered and is not thread-safe, each contact model needs its own instance.
+ */
+final class ActivityPairs {
+
+	/**
+	 * Pair id of all interactions in vehicles.
+	 */
+	static final int VEHICLE = 0;
+
+	private static final byte ALLOWED = 1;
+	private static final byte TRACKABLE = 2;
+
+	/**
+	 * Number of activity types in the table.
+	 */
+	private int n = 0;
+
+	/**
+	 * Infection type and flags of each pair, the first entry is used for {@link #VEHICLE}.
+	 */
+	private String[] names = {"pt"};
+	private byte[] flags = {ALLOWED};
+
+	/**
+	 * Returns the id of the interaction between two activities in a container.
+	 */
+	int pair(EpisimContainer<?> container, EpisimPerson.Activity leaving, EpisimPerson.Activity other) {
+		if (container instanceof EpisimFacility) {
+			if (leaving.typeId >= n || other.typeId >= n)
+				grow();
+
+			return 1 + leaving.typeId * n + other.typeId;
+		} else if (container instanceof EpisimVehicle) {
+			return VEHICLE;
+		} else {
+			throw new RuntimeException("Infection situation is unknown");
+		}
+	}
+
+	/**
+	 * Infection type of the pair, as reported in events.
+	 */
+	String getName(int pair) {
+		return names[pair];
+	}
+
+	/**
+	 * Whether persons with these activities are allowed to interact at a facility.
+	 */
+	boolean isAllowed(int pair) {
+		return (flags[pair] & ALLOWED) != 0;
+	}
+
+	/**
+	 * Whether contacts with these activities are tracked for contact tracing.
+	 */
+	boolean isTrackable(int pair) {
+		return (flags[pair] & TRACKABLE) != 0;
+	}
+
+	/**
+	 * Recompute the table with all currently known activity types.
+	 */
+	private void grow() {
+		n = EpisimPerson.Activity.getNumberOfTypes();
+
+		names = new String[1 + n * n];
+		flags = new byte[1 + n * n];
+		names[VEHICLE] = "pt";
+		flags[VEHICLE] = ALLOWED;
+
+		for (int a = 0; a < n; a++) {
+			String leaving = EpisimPerson.Activity.getType(a);
+			for (int b = 0; b < n; b++) {
+				String other = EpisimPerson.Activity.getType(b);
+				String name = leaving + "_" + other;
+
+				int pair = 1 + a * n + b;
+				names[pair] = name;
+				flags[pair] = (byte) ((isAllowed(name, leaving, other) ? ALLOWED : 0) | (isTrackable(name) ? TRACKABLE : 0));
+			}
+		}
+	}
+
+	/**
+	 * Forbid certain cross-activity interactions at facilities.
+	 */
+	private static boolean isAllowed(String infectionType, String leavingPersonsActivity, String otherPersonsActivity) {
+		//home can only interact with home, leisure or work
+		if (infectionType.contains("home") && !infectionType.contains("leis") && !infectionType.contains("work")
+				&& !(leavingPersonsActivity.startsWith("home") && otherPersonsActivity.startsWith("home"))) {
+			// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
+			return false;
+		} else if (infectionType.contains("edu") && !infectionType.contains("work") && !(leavingPersonsActivity.startsWith("edu") && otherPersonsActivity.startsWith("edu"))) {
+			//edu can only interact with work or edu
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Don't track certain activities.
+	 */
+	private static boolean isTrackable(String infectionType) {
+		return !infectionType.contains("pt") && !infectionType.contains("shop");
+	}
+}
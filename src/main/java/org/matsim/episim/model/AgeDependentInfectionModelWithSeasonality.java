@@ -12,10 +12,12 @@ import java.util.SplittableRandom;
 /**
  * Extension of the {@link DefaultInfectionModel}, with age-dependent additions.
  */
-public final class AgeDependentInfectionModelWithSeasonality implements InfectionModel {
+public final class AgeDependentInfectionModelWithSeasonality implements BatchInfectionModel {
 
 	private final FaceMaskModel maskModel;
 	private final EpisimConfigGroup episimConfig;
+	private RestrictionTable table = RestrictionTable.EMPTY;
+	private final boolean fastExp;
 	private final EpisimReporting reporting;
 	private final SplittableRandom rnd;
 	private final VaccinationConfigGroup vaccinationConfig;
@@ -30,6 +32,7 @@ public final class AgeDependentInfectionModelWithSeasonality implements Infectio
 	AgeDependentInfectionModelWithSeasonality(FaceMaskModel faceMaskModel, Config config, EpisimReporting reporting, SplittableRandom rnd) {
 		this.maskModel = faceMaskModel;
 		this.episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		this.fastExp = episimConfig.isFastExp();
 		this.vaccinationConfig = ConfigUtils.addOrGetModule(config, VaccinationConfigGroup.class);
 		this.reporting = reporting;
 		this.rnd = rnd;
@@ -49,13 +52,33 @@ public final class AgeDependentInfectionModelWithSeasonality implements Infectio
 
 	}
 
+	@Override
+	public void setRestrictions(RestrictionTable restrictions) {
+		this.table = restrictions;
+	}
+
 	@Override
 	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
 										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, double jointTimeInContainer) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, jointTimeInContainer, rnd);
+	}
+
+	@Override
+	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, double jointTimeInContainer,
+										   SplittableRandom rnd) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, act1.getContactIntensity(), act2.getContactIntensity(),
+				jointTimeInContainer, rnd);
+	}
+
+	@Override
+	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2,
+										   double contactIntensity1, double contactIntensity2, double jointTimeInContainer, SplittableRandom rnd) {
 
 		//noinspection ConstantConditions 		// ci corr can not be null, because sim is initialized with non null value
-		double ciCorrection = Math.min(restrictions.get(act1.getContainerName()).getCiCorrection(), restrictions.get(act2.getContainerName()).getCiCorrection());
-		double contactIntensity = Math.min(act1.getContactIntensity(), act2.getContactIntensity());
+		double ciCorrection = table.getCiCorrection(restrictions, act1, act2);
+		double contactIntensity = Math.min(contactIntensity1, contactIntensity2);
 
 		int ageTarget = target.getAge();
 
@@ -71,11 +94,43 @@ public final class AgeDependentInfectionModelWithSeasonality implements Infectio
 
 		double indoorOutdoorFactor = InfectionModelWithSeasonality.getIndoorOutdoorFactor(outdoorFactor, rnd, act1, act2);
 
-		return 1 - Math.exp(-episimConfig.getCalibrationParameter() * susceptibility * infectivity * contactIntensity * jointTimeInContainer * ciCorrection
+		return 1 - exp(-episimConfig.getCalibrationParameter() * susceptibility * infectivity * contactIntensity * jointTimeInContainer * ciCorrection
 				* infector.getVirusStrain().infectiousness
-				* maskModel.getWornMask(infector, act2, restrictions.get(act2.getContainerName())).shedding
-				* maskModel.getWornMask(target, act1, restrictions.get(act1.getContainerName())).intake
+				* maskModel.getWornMask(infector, act2, table.get(restrictions, act2), rnd).shedding
+				* maskModel.getWornMask(target, act1, table.get(restrictions, act1), rnd).intake
 				* indoorOutdoorFactor
 		);
 	}
+
+	@Override
+	public double getSusceptibility(EpisimPerson target, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd) {
+		double susceptibility = this.susceptibility[target.getAge()];
+		if (target.getVaccinationStatus() == EpisimPerson.VaccinationStatus.yes) {
+			susceptibility *= DefaultInfectionModel.getVaccinationEffectiveness(target, vaccinationConfig, iteration);
+		}
+
+		return susceptibility * maskModel.getWornMask(target, act, restrictions.get(act), rnd).intake;
+	}
+
+	@Override
+	public double getInfectivity(EpisimPerson infector, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd) {
+		return infectivity[infector.getAge()] * infector.getVirusStrain().infectiousness
+				* maskModel.getWornMask(infector, act, restrictions.get(act), rnd).shedding;
+	}
+
+	@Override
+	public double getCiCorrection(EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, RestrictionTable restrictions, SplittableRandom rnd) {
+		return Math.min(restrictions.getCiCorrection(act1), restrictions.getCiCorrection(act2))
+				* InfectionModelWithSeasonality.getIndoorOutdoorFactor(outdoorFactor, rnd, act1, act2);
+	}
+
+	@Override
+	public void calcInfectionProbabilities(int n, double[] contactIntensity, double[] jointTime, double[] susceptibility, double[] infectivity,
+										   double[] ciCorrection, double[] prob) {
+		InfectionBatch.calcProbabilities(episimConfig.getCalibrationParameter(), fastExp, n, contactIntensity, jointTime, susceptibility, infectivity, ciCorrection, prob);
+	}
+
+	private double exp(double x) {
+		return fastExp ? EpisimUtils.fastExp(x) : Math.exp(x);
+	}
 }
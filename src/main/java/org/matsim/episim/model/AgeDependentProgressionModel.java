@@ -22,6 +22,7 @@ package org.matsim.episim.model;
 
 import org.matsim.episim.EpisimConfigGroup;
 import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimRandom;
 import org.matsim.episim.EpisimUtils;
 import org.matsim.episim.TracingConfigGroup;
 
@@ -38,6 +39,10 @@ public class AgeDependentProgressionModel extends ConfigurableProgressionModel {
 	 * Constructor as in {@link ConfigurableProgressionModel}.
 	 */
 	@Inject
+	public AgeDependentProgressionModel(EpisimRandom streams, EpisimConfigGroup episimConfig, TracingConfigGroup tracingConfig) {
+		super(streams, episimConfig, tracingConfig);
+	}
+
 	public AgeDependentProgressionModel(SplittableRandom rnd, EpisimConfigGroup episimConfig, TracingConfigGroup tracingConfig) {
 		super(rnd, episimConfig, tracingConfig);
 	}
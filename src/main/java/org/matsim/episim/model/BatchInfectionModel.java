@@ -0,0 +1,49 @@
+package org.matsim.episim.model;
+
+import org.matsim.episim.EpisimConfigGroup;
+import org.matsim.episim.EpisimPerson;
+
+import java.util.SplittableRandom;
+
+/**
+ * Infection model that can evaluate the infection probabilities of many contacts at once.
+ * A contact is split into the infectivity of the infector, the susceptibility of the target and a ci correction for the pair of activities,
+ * which are combined by {@link #calcInfectionProbabilities(int, double[], double[], double[], double[], double[], double[])}.
+ */
+public interface BatchInfectionModel extends InfectionModel {
+
+	/**
+	 * Factor for the susceptibility of a target during an activity, which includes all person specific factors, e.g. vaccination and worn masks.
+	 */
+	double getSusceptibility(EpisimPerson target, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd);
+
+	/**
+	 * Factor for the infectivity of an infector during an activity, which includes all person specific factors, e.g. virus strain and worn masks.
+	 * Models draw random numbers for the infectivity first, then for the susceptibility and last for the ci correction.
+	 */
+	double getInfectivity(EpisimPerson infector, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd);
+
+	/**
+	 * Correction of the contact intensity between two activities, which includes the restrictions and all factors that depend on both activities.
+	 *
+	 * @param act1 activity of the target
+	 * @param act2 activity of the infector
+	 */
+	default double getCiCorrection(EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, RestrictionTable restrictions, SplittableRandom rnd) {
+		return Math.min(restrictions.getCiCorrection(act1), restrictions.getCiCorrection(act2));
+	}
+
+	/**
+	 * Calculates the infection probabilities of {@code n} contacts at once. Contact models gather all candidates of a leaving person
+	 * and evaluate them in one loop, before any random numbers are drawn for the infections.
+	 *
+	 * @param contactIntensity the lower contact intensity of both persons
+	 * @param jointTime        joint time in seconds
+	 * @param susceptibility   see {@link #getSusceptibility(EpisimPerson, EpisimConfigGroup.InfectionParams, RestrictionTable, SplittableRandom)}
+	 * @param infectivity      see {@link #getInfectivity(EpisimPerson, EpisimConfigGroup.InfectionParams, RestrictionTable, SplittableRandom)}
+	 * @param ciCorrection     see {@link #getCiCorrection(EpisimConfigGroup.InfectionParams, EpisimConfigGroup.InfectionParams, RestrictionTable, SplittableRandom)}
+	 * @param prob             array to store the probabilities in
+	 */
+	void calcInfectionProbabilities(int n, double[] contactIntensity, double[] jointTime, double[] susceptibility, double[] infectivity,
+									double[] ciCorrection, double[] prob);
+}
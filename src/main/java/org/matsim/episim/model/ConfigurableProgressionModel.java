@@ -82,6 +82,12 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 	 */
 	private final Object2IntMap<Id<ActivityFacility>> locations = new Object2IntOpenHashMap<>();
 
+	/**
+	 * Containers of the counted locations, which know the persons infected there.
+	 * Locations restored from a snapshot may not be contained.
+	 */
+	private final Map<Id<ActivityFacility>, EpisimContainer<?>> locationContainers = new IdentityHashMap<>();
+
 	/**
 	 * Person ids already traced.
 	 */
@@ -113,8 +119,8 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 	private long prevShowingSymptoms;
 
 	@Inject
-	public ConfigurableProgressionModel(SplittableRandom rnd, EpisimConfigGroup episimConfig, TracingConfigGroup tracingConfig) {
-		super(rnd, episimConfig);
+	public ConfigurableProgressionModel(EpisimRandom streams, EpisimConfigGroup episimConfig, TracingConfigGroup tracingConfig) {
+		super(streams, episimConfig);
 		this.tracingConfig = tracingConfig;
 
 		Config config = episimConfig.getProgressionConfig();
@@ -129,6 +135,10 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 		tMatrix = t.asArray();
 	}
 
+	public ConfigurableProgressionModel(SplittableRandom rnd, EpisimConfigGroup episimConfig, TracingConfigGroup tracingConfig) {
+		this(new EpisimRandom(rnd), episimConfig, tracingConfig);
+	}
+
 	@Override
 	public void setIteration(int day) {
 
@@ -168,6 +178,20 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 		person.clearTraceableContractPersons(now - (tracingDelay + tracingConfig.getTracingDayDistance() + 1) * DAY);
 	}
 
+	@Override
+	public final void updateStateIfDue(EpisimPerson person, int day) {
+
+		// persons need to be updated for tracing too
+		if (isDue(person, day) || (tracingDelay > 0 && person.hadDiseaseStatus(DiseaseStatus.showingSymptoms) &&
+				person.daysSince(DiseaseStatus.showingSymptoms, day) == tracingDelay)) {
+			updateState(person, day);
+			return;
+		}
+
+		double now = EpisimUtils.getCorrectedTime(episimConfig.getStartOffset(), 0, day);
+		person.clearTraceableContractPersons(now - (tracingDelay + tracingConfig.getTracingDayDistance() + 1) * DAY);
+	}
+
 	/**
 	 * Checks whether person can be released from quarantine.
 	 */
@@ -210,6 +234,8 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 					if (!container.startsWith("home") && !container.startsWith("tr") &&
 							!person.getInfectionType().contains("shop") && !person.getInfectionType().contains("pt")) {
 						locations.mergeInt(person.getInfectionContainer(), 1, Integer::sum);
+						if (person.getInfectionLocation() != null)
+							locationContainers.put(person.getInfectionContainer(), person.getInfectionLocation());
 					}
 				}
 			}
@@ -236,22 +262,20 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 				if (tracingCapacity <= 0)
 					break;
 
-				for (EpisimPerson p : persons.values()) {
+				for (EpisimPerson p : getInfectedPersons(e.getKey(), persons)) {
 
-					if (p.getInfectionContainer() == e.getKey()) {
+					quarantinePerson(p, day);
 
-						quarantinePerson(p, day);
-
-						if (tracingConfig.getStrategy() == TracingConfigGroup.Strategy.LOCATION) {
-							tracingCapacity--;
-						} else if (tracingConfig.getStrategy() == TracingConfigGroup.Strategy.LOCATION_WITH_TESTING) {
-							// assumes that all contact persons get tested
-							// then quarantines all of their contacts
-							performTracing(p, now, day);
-						}
+					if (tracingConfig.getStrategy() == TracingConfigGroup.Strategy.LOCATION) {
+						tracingCapacity--;
+					} else if (tracingConfig.getStrategy() == TracingConfigGroup.Strategy.LOCATION_WITH_TESTING) {
+						// assumes that all contact persons get tested
+						// then quarantines all of their contacts
+						performTracing(p, now, day);
 					}
 				}
 
+				locationContainers.remove(e.getKey());
 				it.remove();
 			}
 		}
@@ -287,6 +311,7 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 
 			// put persons randomly into quarantine
 			for (EpisimPerson person : persons.values()) {
+				SplittableRandom rnd = streams.stream(EpisimRandom.Purpose.quarantine, day, EpisimRandom.NONE, person.getIndex());
 				if (rnd.nextDouble() < p)
 					quarantinePerson(person, day);
 
@@ -295,7 +320,7 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 	}
 
 	@Override
-	protected final DiseaseStatus decideNextState(EpisimPerson person) {
+	protected final DiseaseStatus decideNextState(EpisimPerson person, SplittableRandom rnd) {
 
 		switch (person.getDiseaseStatus()) {
 			case infectedButNotContagious:
@@ -333,7 +358,7 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 	}
 
 	@Override
-	protected final int decideTransitionDay(EpisimPerson person, DiseaseStatus from, DiseaseStatus to) {
+	protected final int decideTransitionDay(EpisimPerson person, DiseaseStatus from, DiseaseStatus to, SplittableRandom rnd) {
 		Transition t = tMatrix[from.ordinal() * DiseaseStatus.values().length + to.ordinal()];
 		if (t == null) throw new IllegalStateException(String.format("No transition from %s to %s defined", from, to));
 
@@ -386,7 +411,9 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 
 		// quarantine household flag controls direct household and 2nd order household
 		if (tracingConfig.getQuarantineHousehold())
-			homeId = (String) person.getAttributes().getAttribute("homeId");
+			homeId = person.getHomeId();
+
+		SplittableRandom rnd = streams.stream(EpisimRandom.Purpose.tracing, day, EpisimRandom.NONE, person.getIndex());
 
 		for (EpisimPerson pw : person.getTraceableContactPersons(now - tracingConfig.getTracingDayDistance() * DAY)) {
 
@@ -401,7 +428,7 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 				continue;
 
 			// Persons of the same household are always traced successfully
-			if ((homeId != null && homeId.equals(pw.getAttributes().getAttribute("homeId")))
+			if ((homeId != null && homeId.equals(pw.getHomeId()))
 					|| tracingProb == 1d || rnd.nextDouble() < tracingProb) {
 				quarantinePerson(pw, day);
 				log.debug("sending person={} into quarantine because of contact to person={}", pw.getPersonId(), person.getPersonId());
@@ -417,6 +444,37 @@ public class ConfigurableProgressionModel extends AbstractProgressionModel {
 		}
 	}
 
+	/**
+	 * Persons that got infected at a location, ordered by their id index like the persons of the event handler.
+	 */
+	private List<EpisimPerson> getInfectedPersons(Id<ActivityFacility> location, Map<Id<Person>, EpisimPerson> persons) {
+
+		EpisimContainer<?> container = locationContainers.get(location);
+
+		// container is not known, all persons need to be checked
+		Collection<EpisimPerson> candidates = container != null ? container.getInfectedPersons() : persons.values();
+
+		List<EpisimPerson> result = new ArrayList<>();
+		for (EpisimPerson p : candidates) {
+			if (p.getInfectionContainer() == location)
+				result.add(p);
+		}
+
+		if (container != null) {
+			result.sort(Comparator.comparingInt(p -> p.getPersonId().index()));
+
+			// persons may have been infected more than once at the same location
+			int n = 0;
+			for (int i = 0; i < result.size(); i++) {
+				if (n == 0 || result.get(n - 1) != result.get(i))
+					result.set(n++, result.get(i));
+			}
+			result.subList(n, result.size()).clear();
+		}
+
+		return result;
+	}
+
 	private void quarantinePerson(EpisimPerson p, int day) {
 
 		if (p.getQuarantineStatus() == EpisimPerson.QuarantineStatus.no && p.getDiseaseStatus() != DiseaseStatus.recovered) {
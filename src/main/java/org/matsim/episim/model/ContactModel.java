@@ -48,4 +48,14 @@ public interface ContactModel {
 	 */
 	void setRestrictionsForIteration(int iteration, Map<String, Restriction> restrictions);
 
+	/**
+	 * Creates an instance of this model for another thread during parallel replay. The instance shares the configuration
+	 * and the infection model, but no mutable state with this one. Each container is always processed by the same instance.
+	 *
+	 * @throws UnsupportedOperationException if the model does not support parallel replay
+	 */
+	default ContactModel newInstance() {
+		throw new UnsupportedOperationException("Contact model " + getClass().getSimpleName() + " does not support parallel replay.");
+	}
+
 }
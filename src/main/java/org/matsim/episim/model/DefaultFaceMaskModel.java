@@ -22,6 +22,11 @@ public class DefaultFaceMaskModel implements FaceMaskModel {
 
 	@Override
 	public FaceMask getWornMask(EpisimPerson person, EpisimConfigGroup.InfectionParams act, Restriction restriction) {
+		return getWornMask(person, act, restriction, rnd);
+	}
+
+	@Override
+	public FaceMask getWornMask(EpisimPerson person, EpisimConfigGroup.InfectionParams act, Restriction restriction, SplittableRandom rnd) {
 		return restriction.determineMask(rnd);
 	}
 }
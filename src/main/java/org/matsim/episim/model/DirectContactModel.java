@@ -21,6 +21,11 @@
 package org.matsim.episim.model;
 
 import com.google.inject.Inject;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -51,12 +56,37 @@ public final class DirectContactModel extends AbstractContactModel {
 	private final boolean traceSusceptible;
 
 	/**
-	 * This buffer is used to store the infection type.
+	 * Person without partner in each container, indexed by container index.
 	 */
-	private final StringBuilder buffer = new StringBuilder();
+	private EpisimPerson[] singlePersons = new EpisimPerson[0];
 
-	private final Map<EpisimContainer<?>, EpisimPerson> singlePersons = new IdentityHashMap<>();
-	private final Map<EpisimContainer<?>, List<Group>> groups = new IdentityHashMap<>();
+	/**
+	 * Single persons of containers without an index.
+	 */
+	private final Map<EpisimContainer<?>, EpisimPerson> unindexedSinglePersons = new IdentityHashMap<>();
+
+	/**
+	 * Ids for containers without an index, which are negative to not collide with container indices.
+	 */
+	private final Reference2IntMap<EpisimContainer<?>> unindexedContainers = new Reference2IntOpenHashMap<>();
+
+	/**
+	 * Group of a person in a container, see {@link #key(EpisimContainer, EpisimPerson)}.
+	 */
+	private final Long2IntMap groupIndex = new Long2IntOpenHashMap();
+
+	/**
+	 * Persons of each group and the time when it was formed. Slots of removed groups are reused.
+	 */
+	private EpisimPerson[] groupA = new EpisimPerson[16];
+	private EpisimPerson[] groupB = new EpisimPerson[16];
+	private double[] groupTime = new double[16];
+	private int groups = 0;
+	private final IntArrayList freeGroups = new IntArrayList();
+
+	{
+		groupIndex.defaultReturnValue(-1);
+	}
 
 	@Inject
 		/*package*/ DirectContactModel(SplittableRandom rnd, Config config, TracingConfigGroup tracingConfig,
@@ -66,6 +96,17 @@ public final class DirectContactModel extends AbstractContactModel {
 		this.traceSusceptible = tracingConfig.getTraceSusceptible();
 	}
 
+	private DirectContactModel(DirectContactModel other) {
+		super(other);
+		this.trackingAfterDay = other.trackingAfterDay;
+		this.traceSusceptible = other.traceSusceptible;
+	}
+
+	@Override
+	public ContactModel newInstance() {
+		return new DirectContactModel(this);
+	}
+
 	@Override
 	public void infectionDynamicsVehicle(EpisimPerson personLeavingVehicle, EpisimVehicle vehicle, double now) {
 		infectionDynamicsGeneralized(personLeavingVehicle, vehicle, now);
@@ -89,46 +130,105 @@ public final class DirectContactModel extends AbstractContactModel {
 	private void notifyEnterContainerGeneralized(EpisimPerson personEnteringContainer, EpisimContainer<?> container, double now) {
 
 		// this can happen because persons are not removed during initialization
-		if (findGroup(container, personEnteringContainer) != null)
+		if (findGroup(container, personEnteringContainer) != -1)
 			return;
 
 		// for same reason a person currently at home will enter again
-		if (!singlePersons.containsKey(container) || singlePersons.get(container) == personEnteringContainer) {
-			singlePersons.put(container, personEnteringContainer);
+		EpisimPerson single = getSinglePerson(container);
+		if (single == null || single == personEnteringContainer) {
+			setSinglePerson(container, personEnteringContainer);
 		} else {
-			groups.computeIfAbsent(container, k -> new ArrayList<>())
-					.add(Group.of(personEnteringContainer, singlePersons.get(container), now));
-			singlePersons.remove(container);
+			formGroup(container, personEnteringContainer, single, now);
+			setSinglePerson(container, null);
 		}
 	}
 
-	private Group findGroup(EpisimContainer<?> container, EpisimPerson person) {
+	private EpisimPerson getSinglePerson(EpisimContainer<?> container) {
+		int idx = container.getIndex();
+		if (idx < 0)
+			return unindexedSinglePersons.get(container);
 
-		if (!groups.containsKey(container))
-			return null;
+		return idx < singlePersons.length ? singlePersons[idx] : null;
+	}
+
+	private void setSinglePerson(EpisimContainer<?> container, EpisimPerson person) {
+		int idx = container.getIndex();
+		if (idx < 0) {
+			if (person == null)
+				unindexedSinglePersons.remove(container);
+			else
+				unindexedSinglePersons.put(container, person);
+			return;
+		}
+
+		if (idx >= singlePersons.length)
+			singlePersons = Arrays.copyOf(singlePersons, Math.max(idx + 1, singlePersons.length + (singlePersons.length >> 1)));
+
+		singlePersons[idx] = person;
+	}
+
+	/**
+	 * Key of a person in a container.
+	 */
+	private long key(EpisimContainer<?> container, EpisimPerson person) {
+		int idx = container.getIndex();
+		if (idx < 0)
+			idx = unindexedContainers.computeIntIfAbsent(container, k -> -unindexedContainers.size() - 1);
+
+		return ((long) idx << 32) | (person.getIndex() & 0xffffffffL);
+	}
+
+	/**
+	 * Returns the group of a person in a container, or -1 if the person is not in a group there.
+	 */
+	private int findGroup(EpisimContainer<?> container, EpisimPerson person) {
+		return groupIndex.get(key(container, person));
+	}
 
-		for (Group group : groups.get(container)) {
-			if (group.contains(person)) {
-				return group;
+	private void formGroup(EpisimContainer<?> container, EpisimPerson a, EpisimPerson b, double time) {
+		int g;
+		if (!freeGroups.isEmpty())
+			g = freeGroups.popInt();
+		else {
+			if (groups == groupA.length) {
+				int size = groups + (groups >> 1);
+				groupA = Arrays.copyOf(groupA, size);
+				groupB = Arrays.copyOf(groupB, size);
+				groupTime = Arrays.copyOf(groupTime, size);
 			}
+			g = groups++;
 		}
 
-		return null;
+		groupA[g] = a;
+		groupB[g] = b;
+		groupTime[g] = time;
+		groupIndex.put(key(container, a), g);
+		groupIndex.put(key(container, b), g);
+	}
+
+	private void removeGroup(EpisimContainer<?> container, int g) {
+		groupIndex.remove(key(container, groupA[g]));
+		groupIndex.remove(key(container, groupB[g]));
+		groupA[g] = null;
+		groupB[g] = null;
+		freeGroups.add(g);
 	}
 
 	private void infectionDynamicsGeneralized(EpisimPerson personLeavingContainer, EpisimContainer<?> container, double now) {
+		SplittableRandom rnd = getRandom(container);
+
 		// no infection possible if there is only one person
 		if (iteration == 0 || container.getPersons().size() == 1) {
 			removePersonFromGroups(container, personLeavingContainer, now);
 			return;
 		}
 
-		if (singlePersons.get(container) == personLeavingContainer) {
-			singlePersons.remove(container);
+		if (getSinglePerson(container) == personLeavingContainer) {
+			setSinglePerson(container, null);
 			return;
 		}
 
-		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictions(), rnd)) {
+		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictionTable(), rnd)) {
 			removePersonFromGroups(container, personLeavingContainer, now);
 			// yyyyyy hat in diesem Modell die Konsequenz, dass, wenn jemand zu Hause bleibt, die andere Person alleine rumsitzt.  Somewhat plausible in public
 			// transport; not plausible in restaurant.
@@ -142,7 +242,7 @@ public final class DirectContactModel extends AbstractContactModel {
 
 		EpisimPerson contactPerson = group.getKey();
 
-		if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictions(), rnd)) {
+		if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictionTable(), rnd)) {
 			return;
 		}
 
@@ -161,10 +261,10 @@ public final class DirectContactModel extends AbstractContactModel {
 				&& contactPerson.getDiseaseStatus() == DiseaseStatus.susceptible)
 			return;
 
-		String leavingPersonsActivity = personLeavingContainer.getTrajectory().get(personLeavingContainer.getCurrentPositionInTrajectory()).actType;
-		String otherPersonsActivity = contactPerson.getTrajectory().get(contactPerson.getCurrentPositionInTrajectory()).actType;
+		EpisimPerson.Activity leavingPersonsActivity = personLeavingContainer.getCurrentActivity();
+		EpisimPerson.Activity otherPersonsActivity = contactPerson.getCurrentActivity();
 
-		StringBuilder infectionType = getInfectionType(buffer, container, leavingPersonsActivity, otherPersonsActivity);
+		int infectionType = pairs.pair(container, leavingPersonsActivity, otherPersonsActivity);
 
 		// use joint time in group as time
 		// TODO: this model does not support closing hours at the moment
@@ -178,23 +278,16 @@ public final class DirectContactModel extends AbstractContactModel {
 
 		//forbid certain cross-activity interactions, keep track of contacts
 		if (container instanceof EpisimFacility) {
-			//home can only interact with home, leisure or work
-			if (infectionType.indexOf("home") >= 0 && infectionType.indexOf("leis") == -1 && infectionType.indexOf("work") == -1
-					&& !(leavingPersonsActivity.startsWith("home") && otherPersonsActivity.startsWith("home"))) {
-				// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
-				return;
-			} else if (infectionType.indexOf("edu") >= 0 && infectionType.indexOf("work") == -1 && !(leavingPersonsActivity.startsWith("edu") && otherPersonsActivity.startsWith("edu"))) {
-				//edu can only interact with work or edu
-				// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
+			if (!pairs.isAllowed(infectionType)) {
 				return;
 			}
-			if (trackingEnabled) {
-				trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer, infectionType);
+			if (trackingEnabled && pairs.isTrackable(infectionType)) {
+				trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer);
 			}
 
 			// Only a subset of contacts are reported at the moment
 			// tracking has to be enabled to report more contacts
-			reporting.reportContact(now, personLeavingContainer, contactPerson, container, infectionType, jointTimeInContainer);
+			reporting.reportContact(now, personLeavingContainer, contactPerson, container, pairs.getName(infectionType), jointTimeInContainer);
 		}
 
 		if (!AbstractContactModel.personsCanInfectEachOther(personLeavingContainer, contactPerson)) {
@@ -222,16 +315,16 @@ public final class DirectContactModel extends AbstractContactModel {
 		if (personLeavingContainer.getDiseaseStatus() == DiseaseStatus.susceptible) {
 
 			double prob = infectionModel.calcInfectionProbability(personLeavingContainer, contactPerson, getRestrictions(),
-					leavingParams, contactParams, jointTimeInContainer);
+					leavingParams, contactParams, jointTimeInContainer, rnd);
 			if (rnd.nextDouble() < prob)
-				infectPerson(personLeavingContainer, contactPerson, now, infectionType, container);
+				infectPerson(personLeavingContainer, contactPerson, now, pairs.getName(infectionType), container);
 
 		} else {
 			double prob = infectionModel.calcInfectionProbability(contactPerson, personLeavingContainer, getRestrictions(),
-					contactParams, leavingParams, jointTimeInContainer);
+					contactParams, leavingParams, jointTimeInContainer, rnd);
 
 			if (rnd.nextDouble() < prob)
-				infectPerson(contactPerson, personLeavingContainer, now, infectionType, container);
+				infectPerson(contactPerson, personLeavingContainer, now, pairs.getName(infectionType), container);
 		}
 //		}
 	}
@@ -241,66 +334,33 @@ public final class DirectContactModel extends AbstractContactModel {
 	 *
 	 * @return contact person if person was in group.
 	 */
-	private Pair<EpisimPerson, Double> removePersonFromGroups(EpisimContainer<?> container, EpisimPerson personLeavingContainer, double time) {
-		if (singlePersons.get(container) == personLeavingContainer) {
-			singlePersons.remove(container);
+	private Pair<EpisimPerson, Double> removePersonFromGroups(EpisimContainer<?> container, EpisimPerson personLeavingContainer, double now) {
+		EpisimPerson single = getSinglePerson(container);
+		if (single == personLeavingContainer) {
+			setSinglePerson(container, null);
 			return null;
 		} else {
-			Group group = findGroup(container, personLeavingContainer);
+			int group = findGroup(container, personLeavingContainer);
 
 			// might happen during init when person leaves first
-			if (group == null)
+			if (group == -1)
 				return null;
 
+			EpisimPerson leftOverPerson = groupA[group] == personLeavingContainer ? groupB[group] : groupA[group];
+			double time = groupTime[group];
+			removeGroup(container, group);
+
 			// other person will be single person
-			EpisimPerson leftOverPerson = group.remove(personLeavingContainer);
-			if (!singlePersons.containsKey(container)) {
-				singlePersons.put(container, leftOverPerson);
+			if (single == null) {
+				setSinglePerson(container, leftOverPerson);
 			} else {
 
 				// single person and left over person will form a new group
-				groups.get(container)
-						.add(Group.of(leftOverPerson, singlePersons.get(container), time));
-
-				singlePersons.remove(container);
+				formGroup(container, leftOverPerson, single, now);
+				setSinglePerson(container, null);
 			}
 
-			groups.get(container).remove(group);
-
-			return Pair.of(leftOverPerson, group.time);
-		}
-	}
-
-	/**
-	 * A group of two persons and time when the group was formed.
-	 */
-	private static final class Group {
-
-		private final EpisimPerson a;
-		private final EpisimPerson b;
-		private final double time;
-
-		private Group(EpisimPerson a, EpisimPerson b, double time) {
-			this.a = a;
-			this.b = b;
-			this.time = time;
-		}
-
-		private static Group of(EpisimPerson a, EpisimPerson b, double time) {
-			return new Group(a, b, time);
-		}
-
-		public boolean contains(EpisimPerson person) {
-			return a == person || b == person;
-		}
-
-		/**
-		 * Return the left over person.
-		 */
-		public EpisimPerson remove(EpisimPerson p) {
-			if (p == a) return b;
-			else if (p == b) return a;
-			throw new IllegalStateException("Leaving person not in group.");
+			return Pair.of(leftOverPerson, time);
 		}
 	}
 
@@ -4,6 +4,8 @@ import org.matsim.episim.EpisimConfigGroup;
 import org.matsim.episim.EpisimPerson;
 import org.matsim.episim.policy.Restriction;
 
+import java.util.SplittableRandom;
+
 /**
  * Model which decides which mask a person is wearing during activity.
  */
@@ -14,4 +16,12 @@ public interface FaceMaskModel {
 	 */
 	FaceMask getWornMask(EpisimPerson person, EpisimConfigGroup.InfectionParams act, Restriction restriction);
 
+	/**
+	 * Return the mask a person is wearing, but draw random numbers from {@code rnd}.
+	 * Models that draw random numbers need to override this method.
+	 */
+	default FaceMask getWornMask(EpisimPerson person, EpisimConfigGroup.InfectionParams act, Restriction restriction, SplittableRandom rnd) {
+		return getWornMask(person, act, restriction);
+	}
+
 }
@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim.model;
+
+import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimUtils;
+
+import java.util.Arrays;
+
+/**
+ * Candidate contacts of one leaving person, whose infection probabilities are evaluated at once,
+ * see {@link BatchInfectionModel#calcInfectionProbabilities(int, double[], double[], double[], double[], double[], double[])}.
+ */
+final class InfectionBatch {
+
+	int size = 0;
+
+	EpisimPerson[] target = new EpisimPerson[16];
+	EpisimPerson[] infector = new EpisimPerson[16];
+	int[] infectionType = new int[16];
+
+	double[] contactIntensity = new double[16];
+	double[] jointTime = new double[16];
+	double[] susceptibility = new double[16];
+	double[] infectivity = new double[16];
+	double[] ciCorrection = new double[16];
+	double[] prob = new double[16];
+
+	/**
+	 * Adds a candidate contact.
+	 */
+	void add(EpisimPerson target, EpisimPerson infector, int infectionType, double contactIntensity, double jointTime,
+			 double susceptibility, double infectivity, double ciCorrection) {
+
+		if (size == this.target.length) {
+			int n = size + (size >> 1);
+			this.target = Arrays.copyOf(this.target, n);
+			this.infector = Arrays.copyOf(this.infector, n);
+			this.infectionType = Arrays.copyOf(this.infectionType, n);
+			this.contactIntensity = Arrays.copyOf(this.contactIntensity, n);
+			this.jointTime = Arrays.copyOf(this.jointTime, n);
+			this.susceptibility = Arrays.copyOf(this.susceptibility, n);
+			this.infectivity = Arrays.copyOf(this.infectivity, n);
+			this.ciCorrection = Arrays.copyOf(this.ciCorrection, n);
+			this.prob = Arrays.copyOf(this.prob, n);
+		}
+
+		this.target[size] = target;
+		this.infector[size] = infector;
+		this.infectionType[size] = infectionType;
+		this.contactIntensity[size] = contactIntensity;
+		this.jointTime[size] = jointTime;
+		this.susceptibility[size] = susceptibility;
+		this.infectivity[size] = infectivity;
+		this.ciCorrection[size] = ciCorrection;
+		size++;
+	}
+
+	/**
+	 * Calculates {@link #prob} of all candidates.
+	 */
+	void evaluate(BatchInfectionModel model) {
+		model.calcInfectionProbabilities(size, contactIntensity, jointTime, susceptibility, infectivity, ciCorrection, prob);
+	}
+
+	void clear() {
+		Arrays.fill(target, 0, size, null);
+		Arrays.fill(infector, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Infection probabilities of the exponential model used by all infection models.
+	 */
+	static void calcProbabilities(double calibrationParameter, boolean fastExp, int n, double[] contactIntensity, double[] jointTime,
+								  double[] susceptibility, double[] infectivity, double[] ciCorrection, double[] prob) {
+
+		for (int i = 0; i < n; i++) {
+			prob[i] = -calibrationParameter * contactIntensity[i] * jointTime[i] * ciCorrection[i] * susceptibility[i] * infectivity[i];
+		}
+
+		// exp is evaluated in a separate loop, so that the one above can be vectorized
+		if (fastExp) {
+			for (int i = 0; i < n; i++)
+				prob[i] = 1 - EpisimUtils.fastExp(prob[i]);
+		} else {
+			for (int i = 0; i < n; i++)
+				prob[i] = 1 - Math.exp(prob[i]);
+		}
+	}
+}
@@ -5,6 +5,7 @@ import org.matsim.episim.EpisimPerson;
 import org.matsim.episim.policy.Restriction;
 
 import java.util.Map;
+import java.util.SplittableRandom;
 
 public interface InfectionModel {
 
@@ -15,6 +16,14 @@ public interface InfectionModel {
 	 */
 	default void setIteration(int iteration) {}
 
+	/**
+	 * Called at the start of an iteration after {@link #setIteration(int)}, when the restrictions of this iteration are known.
+	 * Models can use this to precompute values that do not change during the iteration.
+	 *
+	 * @param restrictions compiled view of the restrictions in place for the whole iteration
+	 */
+	default void setRestrictions(RestrictionTable restrictions) {}
+
 	/**
 	 * Calculates the probability that person {@code infector} infects {@code target}.
 	 *
@@ -30,4 +39,31 @@ public interface InfectionModel {
 									EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2,
 									double jointTimeInContainer);
 
+	/**
+	 * Calculates the infection probability, but draws all random numbers from {@code rnd}.
+	 * Contact models use this method, because containers have their own random stream during parallel replay.
+	 * Models that draw random numbers need to override this method.
+	 *
+	 * @see #calcInfectionProbability(EpisimPerson, EpisimPerson, Map, EpisimConfigGroup.InfectionParams, EpisimConfigGroup.InfectionParams, double)
+	 */
+	default double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+											EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2,
+											double jointTimeInContainer, SplittableRandom rnd) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, jointTimeInContainer);
+	}
+
+	/**
+	 * Calculates the infection probability with the given contact intensities instead of the ones from the activity params,
+	 * e.g. when they are scaled to the size of the container. This avoids creating copies of the params for each contact.
+	 * The default implementation copies the params, models should override this method.
+	 *
+	 * @param contactIntensity1 contact intensity of target
+	 * @param contactIntensity2 contact intensity of infector
+	 * @see #calcInfectionProbability(EpisimPerson, EpisimPerson, Map, EpisimConfigGroup.InfectionParams, EpisimConfigGroup.InfectionParams, double, SplittableRandom)
+	 */
+	default double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+											EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2,
+											double contactIntensity1, double contactIntensity2, double jointTimeInContainer, SplittableRandom rnd) {
+		return calcInfectionProbability(target, infector, restrictions, act1.copy(contactIntensity1), act2.copy(contactIntensity2), jointTimeInContainer, rnd);
+	}
 }
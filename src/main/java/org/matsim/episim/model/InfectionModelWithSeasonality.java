@@ -14,11 +14,13 @@ import java.util.SplittableRandom;
 /**
  * Extension of the {@link DefaultInfectionModel} with a seasonality component.
  */
-public final class InfectionModelWithSeasonality implements InfectionModel {
+public final class InfectionModelWithSeasonality implements BatchInfectionModel {
 
 	private final FaceMaskModel maskModel;
 	private final SplittableRandom rnd;
 	private final EpisimConfigGroup episimConfig;
+	private RestrictionTable table = RestrictionTable.EMPTY;
+	private final boolean fastExp;
 	private final EpisimReporting reporting;
 	private final VaccinationConfigGroup vaccinationConfig;
 
@@ -30,6 +32,7 @@ public final class InfectionModelWithSeasonality implements InfectionModel {
 		this.maskModel = faceMaskModel;
 		this.rnd = rnd;
 		this.episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		this.fastExp = episimConfig.isFastExp();
 		this.vaccinationConfig = ConfigUtils.addOrGetModule(config, VaccinationConfigGroup.class);
 		this.reporting = reporting;
 	}
@@ -41,13 +44,33 @@ public final class InfectionModelWithSeasonality implements InfectionModel {
 		reporting.reportOutdoorFraction(this.outdoorFactor, iteration);
 	}
 
+	@Override
+	public void setRestrictions(RestrictionTable restrictions) {
+		this.table = restrictions;
+	}
+
 	@Override
 	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
 										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, double jointTimeInContainer) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, jointTimeInContainer, rnd);
+	}
+
+	@Override
+	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, double jointTimeInContainer,
+										   SplittableRandom rnd) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, act1.getContactIntensity(), act2.getContactIntensity(),
+				jointTimeInContainer, rnd);
+	}
+
+	@Override
+	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2,
+										   double contactIntensity1, double contactIntensity2, double jointTimeInContainer, SplittableRandom rnd) {
 
 		// ci corr can not be null, because sim is initialized with non null value
-		double ciCorrection = Math.min(restrictions.get(act1.getContainerName()).getCiCorrection(), restrictions.get(act2.getContainerName()).getCiCorrection());
-		double contactIntensity = Math.min(act1.getContactIntensity(), act2.getContactIntensity());
+		double ciCorrection = table.getCiCorrection(restrictions, act1, act2);
+		double contactIntensity = Math.min(contactIntensity1, contactIntensity2);
 
 		// note that for 1pct runs, calibParam is of the order of one, which means that for typical times of 100sec or more,
 		// exp( - 1 * 1 * 100 ) \approx 0, and thus the infection proba becomes 1.  Which also means that changes in contactIntensity has
@@ -55,16 +78,40 @@ public final class InfectionModelWithSeasonality implements InfectionModel {
 		double susceptibility = target.getVaccinationStatus() == EpisimPerson.VaccinationStatus.no ? 1
 				: DefaultInfectionModel.getVaccinationEffectiveness(target, vaccinationConfig, iteration);
 
-		return 1 - Math.exp(-episimConfig.getCalibrationParameter() * contactIntensity * jointTimeInContainer * ciCorrection
+		return 1 - exp(-episimConfig.getCalibrationParameter() * contactIntensity * jointTimeInContainer * ciCorrection
 				* susceptibility
 				* infector.getVirusStrain().infectiousness
-				* maskModel.getWornMask(infector, act2, restrictions.get(act2.getContainerName())).shedding
-				* maskModel.getWornMask(target, act1, restrictions.get(act1.getContainerName())).intake
+				* maskModel.getWornMask(infector, act2, table.get(restrictions, act2), rnd).shedding
+				* maskModel.getWornMask(target, act1, table.get(restrictions, act1), rnd).intake
 				* getIndoorOutdoorFactor(outdoorFactor, rnd, act1, act2)
 		);
 
 	}
 
+	@Override
+	public double getSusceptibility(EpisimPerson target, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd) {
+		double susceptibility = target.getVaccinationStatus() == EpisimPerson.VaccinationStatus.no ? 1
+				: DefaultInfectionModel.getVaccinationEffectiveness(target, vaccinationConfig, iteration);
+
+		return susceptibility * maskModel.getWornMask(target, act, restrictions.get(act), rnd).intake;
+	}
+
+	@Override
+	public double getInfectivity(EpisimPerson infector, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd) {
+		return infector.getVirusStrain().infectiousness * maskModel.getWornMask(infector, act, restrictions.get(act), rnd).shedding;
+	}
+
+	@Override
+	public double getCiCorrection(EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, RestrictionTable restrictions, SplittableRandom rnd) {
+		return Math.min(restrictions.getCiCorrection(act1), restrictions.getCiCorrection(act2)) * getIndoorOutdoorFactor(outdoorFactor, rnd, act1, act2);
+	}
+
+	@Override
+	public void calcInfectionProbabilities(int n, double[] contactIntensity, double[] jointTime, double[] susceptibility, double[] infectivity,
+										   double[] ciCorrection, double[] prob) {
+		InfectionBatch.calcProbabilities(episimConfig.getCalibrationParameter(), fastExp, n, contactIntensity, jointTime, susceptibility, infectivity, ciCorrection, prob);
+	}
+
 	/**
 	 * Interpolate outdoor fraction for current day.
 	 */
@@ -85,4 +132,8 @@ public final class InfectionModelWithSeasonality implements InfectionModel {
 		return indoorOutdoorFactor;
 
 	}
+
+	private double exp(double x) {
+		return fastExp ? EpisimUtils.fastExp(x) : Math.exp(x);
+	}
 }
@@ -5,47 +5,104 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.episim.EpisimConfigGroup;
 import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimUtils;
 import org.matsim.episim.policy.Restriction;
 
 import java.util.Map;
+import java.util.SplittableRandom;
 
 /**
  * Extension of the {@link DefaultInfectionModel}, with additional parameter {@link #SUSCEPTIBILITY} and {@link #VIRAL_LOAD},
  *  which are read from each person individually.
  */
-public final class InfectionModelWithViralLoad implements InfectionModel {
+public final class InfectionModelWithViralLoad implements BatchInfectionModel {
 
 	public static final String SUSCEPTIBILITY = "susceptibility";
 	public static final String VIRAL_LOAD = "viralLoad";
 
 	private final FaceMaskModel maskModel;
 	private final EpisimConfigGroup episimConfig;
+	private RestrictionTable table = RestrictionTable.EMPTY;
+	private final boolean fastExp;
 
 	@Inject
 	public InfectionModelWithViralLoad(FaceMaskModel faceMaskModel, Config config) {
 		this.maskModel = faceMaskModel;
 		this.episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		this.fastExp = episimConfig.isFastExp();
 	}
 
 
+	@Override
+	public void setRestrictions(RestrictionTable restrictions) {
+		this.table = restrictions;
+	}
+
 	@Override
 	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
 										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, double jointTimeInContainer) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, act1.getContactIntensity(), act2.getContactIntensity(), jointTimeInContainer,
+				maskModel.getWornMask(infector, act2, table.get(restrictions, act2)),
+				maskModel.getWornMask(target, act1, table.get(restrictions, act1)));
+	}
+
+	@Override
+	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2, double jointTimeInContainer,
+										   SplittableRandom rnd) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, act1.getContactIntensity(), act2.getContactIntensity(),
+				jointTimeInContainer, rnd);
+	}
+
+	@Override
+	public double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+										   EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2,
+										   double contactIntensity1, double contactIntensity2, double jointTimeInContainer, SplittableRandom rnd) {
+		return calcInfectionProbability(target, infector, restrictions, act1, act2, contactIntensity1, contactIntensity2, jointTimeInContainer,
+				maskModel.getWornMask(infector, act2, table.get(restrictions, act2), rnd),
+				maskModel.getWornMask(target, act1, table.get(restrictions, act1), rnd));
+	}
+
+	private double calcInfectionProbability(EpisimPerson target, EpisimPerson infector, Map<String, Restriction> restrictions,
+											EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2,
+											double contactIntensity1, double contactIntensity2, double jointTimeInContainer,
+											FaceMask infectorMask, FaceMask targetMask) {
 
 		// ci corr can not be null, because sim is initialized with non null value
-		double ciCorrection = Math.min(restrictions.get(act1.getContainerName()).getCiCorrection(), restrictions.get(act2.getContainerName()).getCiCorrection());
-		double contactIntensity = Math.min(act1.getContactIntensity(), act2.getContactIntensity());
+		double ciCorrection = table.getCiCorrection(restrictions, act1, act2);
+		double contactIntensity = Math.min(contactIntensity1, contactIntensity2);
 
 		// note that for 1pct runs, calibParam is of the order of one, which means that for typical times of 100sec or more, exp( - 1 * 1 * 100 ) \approx 0, and
 		// thus the infection proba becomes 1.  Which also means that changes in contactIntensity has no effect.  kai, mar'20
 
-		double susceptibility = (double) target.getAttributes().getAttribute(SUSCEPTIBILITY);
-		double infectability = (double) infector.getAttributes().getAttribute(VIRAL_LOAD);
+		double susceptibility = target.getSusceptibility();
+		double infectability = infector.getViralLoad();
 
-		return 1 - Math.exp(-episimConfig.getCalibrationParameter() * susceptibility * infectability * contactIntensity * jointTimeInContainer * ciCorrection
+		return 1 - exp(-episimConfig.getCalibrationParameter() * susceptibility * infectability * contactIntensity * jointTimeInContainer * ciCorrection
 				* infector.getVirusStrain().infectiousness
-				* maskModel.getWornMask(infector, act2, restrictions.get(act2.getContainerName())).shedding
-				* maskModel.getWornMask(target, act1, restrictions.get(act1.getContainerName())).intake
+				* infectorMask.shedding
+				* targetMask.intake
 		);
 	}
+
+	@Override
+	public double getSusceptibility(EpisimPerson target, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd) {
+		return target.getSusceptibility() * maskModel.getWornMask(target, act, restrictions.get(act), rnd).intake;
+	}
+
+	@Override
+	public double getInfectivity(EpisimPerson infector, EpisimConfigGroup.InfectionParams act, RestrictionTable restrictions, SplittableRandom rnd) {
+		return infector.getViralLoad() * infector.getVirusStrain().infectiousness
+				* maskModel.getWornMask(infector, act, restrictions.get(act), rnd).shedding;
+	}
+
+	@Override
+	public void calcInfectionProbabilities(int n, double[] contactIntensity, double[] jointTime, double[] susceptibility, double[] infectivity,
+										   double[] ciCorrection, double[] prob) {
+		InfectionBatch.calcProbabilities(episimConfig.getCalibrationParameter(), fastExp, n, contactIntensity, jointTime, susceptibility, infectivity, ciCorrection, prob);
+	}
+
+	private double exp(double x) {
+		return fastExp ? EpisimUtils.fastExp(x) : Math.exp(x);
+	}
 }
@@ -50,11 +50,6 @@ public final class OldSymmetricContactModel extends AbstractContactModel {
 	 */
 	private final boolean traceSusceptible;
 
-	/**
-	 * This buffer is used to store the infection type.
-	 */
-	private final StringBuilder buffer = new StringBuilder();
-
 	@Inject
 	/* package */
 	OldSymmetricContactModel(SplittableRandom rnd, Config config, TracingConfigGroup tracingConfig,
@@ -65,6 +60,17 @@ public final class OldSymmetricContactModel extends AbstractContactModel {
 		this.traceSusceptible = tracingConfig.getTraceSusceptible();
 	}
 
+	private OldSymmetricContactModel(OldSymmetricContactModel other) {
+		super(other);
+		this.trackingAfterDay = other.trackingAfterDay;
+		this.traceSusceptible = other.traceSusceptible;
+	}
+
+	@Override
+	public ContactModel newInstance() {
+		return new OldSymmetricContactModel(this);
+	}
+
 	@Override
 	public void infectionDynamicsVehicle(EpisimPerson personLeavingVehicle, InfectionEventHandler.EpisimVehicle vehicle, double now) {
 		infectionDynamicsGeneralized(personLeavingVehicle, vehicle, now);
@@ -76,13 +82,14 @@ public final class OldSymmetricContactModel extends AbstractContactModel {
 	}
 
 	private void infectionDynamicsGeneralized(EpisimPerson personLeavingContainer, EpisimContainer<?> container, double now) {
+		SplittableRandom rnd = getRandom(container);
 
 		// no infection possible if there is only one person
 		if (iteration == 0 || container.getPersons().size() == 1) {
 			return;
 		}
 
-		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictions(), rnd)) {
+		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictionTable(), rnd)) {
 			return;
 		}
 
@@ -122,7 +129,7 @@ public final class OldSymmetricContactModel extends AbstractContactModel {
 			// since every pair of persons interacts only once, there is now a constant interaction probability per pair
 			// if we want superspreading events, then maxInteractions needs to be much larger than 3 or 10.
 
-			if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictions(), rnd)) {
+			if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictionTable(), rnd)) {
 				continue;
 			}
 
@@ -141,34 +148,27 @@ public final class OldSymmetricContactModel extends AbstractContactModel {
 					&& contactPerson.getDiseaseStatus() == DiseaseStatus.susceptible)
 				continue;
 
-			String leavingPersonsActivity = personLeavingContainer.getTrajectory().get(personLeavingContainer.getCurrentPositionInTrajectory()).actType;
-			String otherPersonsActivity = contactPerson.getTrajectory().get(contactPerson.getCurrentPositionInTrajectory()).actType;
+			EpisimPerson.Activity leavingPersonsActivity = personLeavingContainer.getCurrentActivity();
+			EpisimPerson.Activity otherPersonsActivity = contactPerson.getCurrentActivity();
 
-			StringBuilder infectionType = getInfectionType(buffer, container, leavingPersonsActivity, otherPersonsActivity);
+			int infectionType = pairs.pair(container, leavingPersonsActivity, otherPersonsActivity);
 
-			double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer.getPersonId());
-			double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson.getPersonId());
+			double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer);
+			double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson);
 			double jointTimeInContainer = calculateJointTimeInContainer(now, personLeavingContainer, containerEnterTimeOfPersonLeaving, containerEnterTimeOfOtherPerson);
 
 			//forbid certain cross-activity interactions, keep track of contacts
 			if (container instanceof InfectionEventHandler.EpisimFacility) {
-				//home can only interact with home, leisure or work
-				if (infectionType.indexOf("home") >= 0 && infectionType.indexOf("leis") == -1 && infectionType.indexOf("work") == -1
-						&& !(leavingPersonsActivity.startsWith("home") && otherPersonsActivity.startsWith("home"))) {
-					// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
-					continue;
-				} else if (infectionType.indexOf("edu") >= 0 && infectionType.indexOf("work") == -1 && !(leavingPersonsActivity.startsWith("edu") && otherPersonsActivity.startsWith("edu"))) {
-					//edu can only interact with work or edu
-					// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
+				if (!pairs.isAllowed(infectionType)) {
 					continue;
 				}
-				if (trackingEnabled) {
-					trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer, infectionType);
+				if (trackingEnabled && pairs.isTrackable(infectionType)) {
+					trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer);
 				}
 
 				// Only a subset of contacts are reported at the moment
 				// tracking has to be enabled to report more contacts
-				reporting.reportContact(now, personLeavingContainer, contactPerson, container, infectionType, jointTimeInContainer);
+				reporting.reportContact(now, personLeavingContainer, contactPerson, container, pairs.getName(infectionType), jointTimeInContainer);
 			}
 
 			if (!AbstractContactModel.personsCanInfectEachOther(personLeavingContainer, contactPerson)) {
@@ -210,16 +210,16 @@ public final class OldSymmetricContactModel extends AbstractContactModel {
 			if (personLeavingContainer.getDiseaseStatus() == DiseaseStatus.susceptible) {
 
 				double prob = infectionModel.calcInfectionProbability(personLeavingContainer, contactPerson, getRestrictions(),
-						leavingParams, contactParams, jointTimeInContainer);
+						leavingParams, contactParams, jointTimeInContainer, rnd);
 				if (rnd.nextDouble() < prob)
-					infectPerson(personLeavingContainer, contactPerson, now, infectionType, container);
+					infectPerson(personLeavingContainer, contactPerson, now, pairs.getName(infectionType), container);
 
 			} else {
 				double prob = infectionModel.calcInfectionProbability(contactPerson, personLeavingContainer, getRestrictions(),
-						contactParams, leavingParams, jointTimeInContainer);
+						contactParams, leavingParams, jointTimeInContainer, rnd);
 
 				if (rnd.nextDouble() < prob)
-					infectPerson(contactPerson, personLeavingContainer, now, infectionType, container);
+					infectPerson(contactPerson, personLeavingContainer, now, pairs.getName(infectionType), container);
 			}
 		}
 	}
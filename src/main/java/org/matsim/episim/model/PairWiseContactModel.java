@@ -21,6 +21,8 @@
 package org.matsim.episim.model;
 
 import com.google.inject.Inject;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.core.config.Config;
@@ -50,16 +52,28 @@ public final class PairWiseContactModel extends AbstractContactModel {
 	private final boolean traceSusceptible;
 
 	/**
-	 * This buffer is used to store the infection type.
+	 * Persons available for a contact in each container, indexed by container index.
 	 */
-	private final StringBuilder buffer = new StringBuilder();
+	private Pool[] pools = new Pool[0];
 
 	/**
-	 * Reusable list for contact persons.
+	 * Pools of containers without an index.
 	 */
-	private final List<EpisimPerson> contactPersons = new ArrayList<>();
+	private final Map<EpisimContainer<?>, Pool> unindexedPools = new IdentityHashMap<>();
 
-	private final Map<EpisimContainer<?>, Set<EpisimPerson>> contacts = new IdentityHashMap<>();
+	/**
+	 * Position of a person within a pool, see {@link #key(Pool, EpisimPerson)}.
+	 */
+	private final Long2IntMap positions = new Long2IntOpenHashMap();
+
+	/**
+	 * Number of created pools, used as their id.
+	 */
+	private int numPools = 0;
+
+	{
+		positions.defaultReturnValue(-1);
+	}
 
 	@Inject
 		/*package*/ PairWiseContactModel(SplittableRandom rnd, Config config, TracingConfigGroup tracingConfig,
@@ -69,6 +83,17 @@ public final class PairWiseContactModel extends AbstractContactModel {
 		this.traceSusceptible = tracingConfig.getTraceSusceptible();
 	}
 
+	private PairWiseContactModel(PairWiseContactModel other) {
+		super(other);
+		this.trackingAfterDay = other.trackingAfterDay;
+		this.traceSusceptible = other.traceSusceptible;
+	}
+
+	@Override
+	public ContactModel newInstance() {
+		return new PairWiseContactModel(this);
+	}
+
 	@Override
 	public void infectionDynamicsVehicle(EpisimPerson personLeavingVehicle, EpisimVehicle vehicle, double now) {
 		infectionDynamicsGeneralized(personLeavingVehicle, vehicle, now);
@@ -90,9 +115,11 @@ public final class PairWiseContactModel extends AbstractContactModel {
 	}
 
 	private void notifyEnterContainerGeneralized(EpisimPerson personEnteringContainer, EpisimContainer<?> container, double now) {
+		SplittableRandom rnd = getRandom(container);
+
 		try {
-			if (checkPersonInContainer(personEnteringContainer, container, getRestrictions(), rnd)) {
-				contacts.computeIfAbsent(container, (k) -> new HashSet<>()).add(personEnteringContainer);
+			if (checkPersonInContainer(personEnteringContainer, container, getRestrictionTable(), rnd)) {
+				add(getPool(container, true), personEnteringContainer);
 			}
 		} catch (IndexOutOfBoundsException | NullPointerException e) {
 			// these exceptions happen during init and are ignored
@@ -100,32 +127,32 @@ public final class PairWiseContactModel extends AbstractContactModel {
 	}
 
 	private void infectionDynamicsGeneralized(EpisimPerson personLeavingContainer, EpisimContainer<?> container, double now) {
+		SplittableRandom rnd = getRandom(container);
+
+		Pool pool = getPool(container, false);
+
 		// no infection possible if there is only one person
 		if (iteration == 0 || container.getPersons().size() == 1) {
 
-			if (contacts.containsKey(container))
-				contacts.get(container).remove(personLeavingContainer);
+			if (pool != null)
+				remove(pool, personLeavingContainer);
 
 			return;
 		}
 
 		// person leaving was already a contact, or never present
-		if (!contacts.containsKey(container) || !contacts.get(container).contains(personLeavingContainer)) {
+		if (pool == null || !remove(pool, personLeavingContainer)) {
 			return;
 		}
 
 		// start tracking late as possible because of computational costs
 		boolean trackingEnabled = iteration >= trackingAfterDay;
 
-		contacts.get(container).remove(personLeavingContainer);
-		contactPersons.addAll(contacts.get(container));
-
-		if (contactPersons.size() == 0)
+		if (pool.size == 0)
 			return;
 
-		EpisimPerson contactPerson = contactPersons.get(rnd.nextInt(contactPersons.size()));
-		contacts.get(container).remove(contactPerson);
-		contactPersons.clear();
+		EpisimPerson contactPerson = pool.persons[rnd.nextInt(pool.size)];
+		remove(pool, contactPerson);
 
 		if (!personHasRelevantStatus(personLeavingContainer) || !personHasRelevantStatus(contactPerson)) {
 			return;
@@ -146,34 +173,27 @@ public final class PairWiseContactModel extends AbstractContactModel {
 				&& contactPerson.getDiseaseStatus() == DiseaseStatus.susceptible)
 			return;
 
-		String leavingPersonsActivity = personLeavingContainer.getTrajectory().get(personLeavingContainer.getCurrentPositionInTrajectory()).actType;
-		String otherPersonsActivity = contactPerson.getTrajectory().get(contactPerson.getCurrentPositionInTrajectory()).actType;
+		EpisimPerson.Activity leavingPersonsActivity = personLeavingContainer.getCurrentActivity();
+		EpisimPerson.Activity otherPersonsActivity = contactPerson.getCurrentActivity();
 
-		StringBuilder infectionType = getInfectionType(buffer, container, leavingPersonsActivity, otherPersonsActivity);
+		int infectionType = pairs.pair(container, leavingPersonsActivity, otherPersonsActivity);
 
-		double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer.getPersonId());
-		double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson.getPersonId());
+		double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer);
+		double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson);
 		double jointTimeInContainer = calculateJointTimeInContainer(now, personLeavingContainer, containerEnterTimeOfPersonLeaving, containerEnterTimeOfOtherPerson);
 
 		//forbid certain cross-activity interactions, keep track of contacts
 		if (container instanceof EpisimFacility) {
-			//home can only interact with home, leisure or work
-			if (infectionType.indexOf("home") >= 0 && infectionType.indexOf("leis") == -1 && infectionType.indexOf("work") == -1
-					&& !(leavingPersonsActivity.startsWith("home") && otherPersonsActivity.startsWith("home"))) {
-				// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
-				return;
-			} else if (infectionType.indexOf("edu") >= 0 && infectionType.indexOf("work") == -1 && !(leavingPersonsActivity.startsWith("edu") && otherPersonsActivity.startsWith("edu"))) {
-				//edu can only interact with work or edu
-				// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
+			if (!pairs.isAllowed(infectionType)) {
 				return;
 			}
-			if (trackingEnabled) {
-				trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer, infectionType);
+			if (trackingEnabled && pairs.isTrackable(infectionType)) {
+				trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer);
 			}
 
 			// Only a subset of contacts are reported at the moment
 			// tracking has to be enabled to report more contacts
-			reporting.reportContact(now, personLeavingContainer, contactPerson, container, infectionType, jointTimeInContainer);
+			reporting.reportContact(now, personLeavingContainer, contactPerson, container, pairs.getName(infectionType), jointTimeInContainer);
 		}
 
 		if (!AbstractContactModel.personsCanInfectEachOther(personLeavingContainer, contactPerson)) {
@@ -213,17 +233,100 @@ public final class PairWiseContactModel extends AbstractContactModel {
 		if (personLeavingContainer.getDiseaseStatus() == DiseaseStatus.susceptible) {
 
 			double prob = infectionModel.calcInfectionProbability(personLeavingContainer, contactPerson, getRestrictions(),
-					leavingParams, contactParams, jointTimeInContainer);
+					leavingParams, contactParams, jointTimeInContainer, rnd);
 			if (rnd.nextDouble() < prob)
-				infectPerson(personLeavingContainer, contactPerson, now, infectionType, container);
+				infectPerson(personLeavingContainer, contactPerson, now, pairs.getName(infectionType), container);
 
 		} else {
 			double prob = infectionModel.calcInfectionProbability(contactPerson, personLeavingContainer, getRestrictions(),
-					contactParams, leavingParams, jointTimeInContainer);
+					contactParams, leavingParams, jointTimeInContainer, rnd);
 
 			if (rnd.nextDouble() < prob)
-				infectPerson(contactPerson, personLeavingContainer, now, infectionType, container);
+				infectPerson(contactPerson, personLeavingContainer, now, pairs.getName(infectionType), container);
 		}
 //		}
 	}
+
+	/**
+	 * Returns the pool of a container, which is only created if requested.
+	 */
+	private Pool getPool(EpisimContainer<?> container, boolean create) {
+		int idx = container.getIndex();
+		if (idx < 0) {
+			Pool pool = unindexedPools.get(container);
+			if (pool == null && create) {
+				pool = new Pool(numPools++);
+				unindexedPools.put(container, pool);
+			}
+			return pool;
+		}
+
+		if (idx >= pools.length) {
+			if (!create)
+				return null;
+
+			pools = Arrays.copyOf(pools, Math.max(idx + 1, pools.length + (pools.length >> 1)));
+		}
+
+		if (pools[idx] == null && create)
+			pools[idx] = new Pool(numPools++);
+
+		return pools[idx];
+	}
+
+	/**
+	 * Key of a person in a pool.
+	 */
+	private static long key(Pool pool, EpisimPerson person) {
+		return ((long) pool.id << 32) | (person.getIndex() & 0xffffffffL);
+	}
+
+	/**
+	 * Adds a person to a pool, if not already present.
+	 */
+	private void add(Pool pool, EpisimPerson person) {
+		long key = key(pool, person);
+		if (positions.get(key) != -1)
+			return;
+
+		if (pool.size == pool.persons.length)
+			pool.persons = Arrays.copyOf(pool.persons, pool.size + (pool.size >> 1) + 1);
+
+		pool.persons[pool.size] = person;
+		positions.put(key, pool.size++);
+	}
+
+	/**
+	 * Removes a person from a pool by moving the last person to its position.
+	 *
+	 * @return whether the person was present
+	 */
+	private boolean remove(Pool pool, EpisimPerson person) {
+		int pos = positions.remove(key(pool, person));
+		if (pos == -1)
+			return false;
+
+		EpisimPerson last = pool.persons[--pool.size];
+		pool.persons[pos] = last;
+		pool.persons[pool.size] = null;
+
+		if (last != person)
+			positions.put(key(pool, last), pos);
+
+		return true;
+	}
+
+	/**
+	 * Persons of one container that are available for a contact.
+	 */
+	private static final class Pool {
+
+		private final int id;
+		private EpisimPerson[] persons = new EpisimPerson[4];
+		private int size = 0;
+
+		private Pool(int id) {
+			this.id = id;
+		}
+	}
 }
@@ -44,6 +44,14 @@ public interface ProgressionModel {
 	 */
 	void updateState(EpisimPerson person, int day);
 
+	/**
+	 * Called at the start of the day for every person instead of {@link #updateState(EpisimPerson, int)}.
+	 * Models that schedule their transitions only need to update persons with due transitions.
+	 */
+	default void updateStateIfDue(EpisimPerson person, int day) {
+		updateState(person, day);
+	}
+
 	/**
 	 * Called before all state updates for all persons have been done.
 	 */
@@ -10,6 +10,7 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.episim.EpisimConfigGroup;
 import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimRandom;
 import org.matsim.episim.EpisimUtils;
 
 import java.time.LocalDate;
@@ -26,15 +27,24 @@ public class RandomInitialInfections implements InitialInfectionHandler {
 
 	private static final Logger log = LogManager.getLogger(RandomInitialInfections.class);
 
+	/**
+	 * Attribute with the age used for the age boundaries of initial infections.
+	 */
+	public static final String MODELED_AGE = "microm:modeled:age";
+
 	private final EpisimConfigGroup episimConfig;
-	private final SplittableRandom rnd;
+	private final EpisimRandom streams;
 
 	private int initialInfectionsLeft;
 
 	@Inject
-	public RandomInitialInfections(Config config, SplittableRandom rnd) {
+	public RandomInitialInfections(Config config, EpisimRandom streams) {
 		this.episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
-		this.rnd = rnd;
+		this.streams = streams;
+	}
+
+	public RandomInitialInfections(Config config, SplittableRandom rnd) {
+		this(config, new EpisimRandom(rnd));
 	}
 
 	@Override
@@ -53,14 +63,16 @@ public class RandomInitialInfections implements InitialInfectionHandler {
 
 		int infected = 0;
 
+		SplittableRandom rnd = streams.stream(EpisimRandom.Purpose.initialInfection, iteration, EpisimRandom.NONE, EpisimRandom.NONE);
+
 		for (Map.Entry<VirusStrain, NavigableMap<LocalDate, Integer>> e : episimConfig.getInfections_pers_per_day().entrySet()) {
 
 			int numInfections = EpisimUtils.findValidEntry(e.getValue(), 1, date);
 
 			List<EpisimPerson> candidates = persons.values().stream()
-					.filter(p -> district == null || district.equals(p.getAttributes().getAttribute("district")))
-					.filter(p -> lowerAgeBoundaryForInitInfections == -1 || (int) p.getAttributes().getAttribute("microm:modeled:age") >= lowerAgeBoundaryForInitInfections)
-					.filter(p -> upperAgeBoundaryForInitInfections == -1 || (int) p.getAttributes().getAttribute("microm:modeled:age") <= upperAgeBoundaryForInitInfections)
+					.filter(p -> district == null || district.equals(p.getDistrict()))
+					.filter(p -> lowerAgeBoundaryForInitInfections == -1 || p.getModeledAge() >= lowerAgeBoundaryForInitInfections)
+					.filter(p -> upperAgeBoundaryForInitInfections == -1 || (p.getModeledAge() != -1 && p.getModeledAge() <= upperAgeBoundaryForInitInfections))
 					.filter(p -> p.getDiseaseStatus() == EpisimPerson.DiseaseStatus.susceptible)
 					.collect(Collectors.toList());
 
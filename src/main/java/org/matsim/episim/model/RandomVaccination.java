@@ -6,6 +6,8 @@ import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimRandom;
+import org.matsim.episim.VaccinationConfigGroup;
 
 import java.util.List;
 import java.util.Map;
@@ -19,15 +21,34 @@ public class RandomVaccination implements VaccinationModel {
 
 	private static final Logger log = LogManager.getLogger(RandomVaccination.class);
 
-	private final SplittableRandom rnd;
+	private final EpisimRandom streams;
+	private final VaccinationConfigGroup vaccinationConfig;
+
+	/**
+	 * Eligible persons, only used if {@link VaccinationConfigGroup#getCandidatePool()} is enabled.
+	 */
+	private final VaccinationCandidates candidates = new VaccinationCandidates();
 
 	@Inject
+	public RandomVaccination(EpisimRandom streams, VaccinationConfigGroup vaccinationConfig) {
+		this.streams = streams;
+		this.vaccinationConfig = vaccinationConfig;
+	}
+
+	public RandomVaccination(EpisimRandom streams) {
+		this(streams, new VaccinationConfigGroup());
+	}
+
 	public RandomVaccination(SplittableRandom rnd) {
-		this.rnd = rnd;
+		this(new EpisimRandom(rnd));
 	}
 
 	@Override
 	public int handleVaccination(Map<Id<Person>, EpisimPerson> persons, int availableVaccinations, int iteration, double now) {
+
+		if (vaccinationConfig.getCandidatePool())
+			return handleVaccinationFromPool(persons, availableVaccinations, iteration);
+
 		List<EpisimPerson> candidates = persons.values().stream()
 				.filter(p -> p.getDiseaseStatus() == EpisimPerson.DiseaseStatus.susceptible)
 				.filter(p -> p.getVaccinationStatus() == EpisimPerson.VaccinationStatus.no)
@@ -38,6 +59,8 @@ public class RandomVaccination implements VaccinationModel {
 			return 0;
 		}
 
+		SplittableRandom rnd = streams.stream(EpisimRandom.Purpose.vaccination, iteration, EpisimRandom.NONE, EpisimRandom.NONE);
+
 		int vaccinationsLeft = availableVaccinations;
 		int vaccinated = 0;
 		while (vaccinationsLeft > 0) {
@@ -50,4 +73,38 @@ public class RandomVaccination implements VaccinationModel {
 
 		return vaccinated;
 	}
+
+	/**
+	 * Draws the persons from the maintained pool, each person is vaccinated at most once.
+	 */
+	private int handleVaccinationFromPool(Map<Id<Person>, EpisimPerson> persons, int availableVaccinations, int iteration) {
+
+		if (availableVaccinations <= 0)
+			return 0;
+
+		candidates.init(persons.values());
+
+		// size is only an upper bound
+		if (candidates.size() < availableVaccinations)
+			candidates.prune();
+
+		if (candidates.size() < availableVaccinations) {
+			log.warn("Not enough people to vaccinate left ({})", availableVaccinations);
+			return 0;
+		}
+
+		SplittableRandom rnd = streams.stream(EpisimRandom.Purpose.vaccination, iteration, EpisimRandom.NONE, EpisimRandom.NONE);
+
+		int vaccinated = 0;
+		while (vaccinated < availableVaccinations) {
+			EpisimPerson randomPerson = candidates.draw(rnd);
+			if (randomPerson == null)
+				break;
+
+			randomPerson.setVaccinationStatus(EpisimPerson.VaccinationStatus.yes, iteration);
+			vaccinated++;
+		}
+
+		return vaccinated;
+	}
 }
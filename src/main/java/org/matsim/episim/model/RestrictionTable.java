@@ -0,0 +1,179 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim.model;
+
+import com.google.common.collect.ImmutableMap;
+import org.matsim.episim.EpisimConfigGroup;
+import org.matsim.episim.policy.Restriction;
+
+import java.util.Map;
+
+/**
+ * Restrictions of one iteration compiled into arrays with primitive values, indexed by {@link EpisimConfigGroup.InfectionParams#getIndex()}.
+ * The contact model creates this view at the start of each iteration and passes it to the {@link InfectionModel}, so that no map lookups
+ * and unboxing are needed for each contact.
+ * <p>
+ * Only immutable maps are compiled, because other maps might still be changed during the iteration.
+ * For all other maps the values are looked up in the map on each access.
+ */
+public final class RestrictionTable {
+
+	/**
+	 * Table without any restrictions.
+	 */
+	static final RestrictionTable EMPTY = new RestrictionTable(ImmutableMap.of());
+
+	private final Map<String, Restriction> source;
+	private final Restriction[] restrictions;
+	private final double[] remainingFraction;
+	private final double[] ciCorrection;
+
+	/**
+	 * Group sizes are -1 if not set.
+	 */
+	private final int[] maxGroupSize;
+	private final int[] reducedGroupSize;
+	private final boolean[] closingHours;
+
+	/**
+	 * Compiles the given restrictions.
+	 */
+	public RestrictionTable(Map<String, Restriction> restrictions) {
+		this.source = restrictions;
+
+		int n = 0;
+		if (restrictions instanceof ImmutableMap) {
+			for (String name : restrictions.keySet()) {
+				n = Math.max(n, EpisimConfigGroup.InfectionParams.indexOf(name) + 1);
+			}
+		}
+
+		this.restrictions = new Restriction[n];
+		this.remainingFraction = new double[n];
+		this.ciCorrection = new double[n];
+		this.maxGroupSize = new int[n];
+		this.reducedGroupSize = new int[n];
+		this.closingHours = new boolean[n];
+
+		if (n == 0)
+			return;
+
+		for (Map.Entry<String, Restriction> e : restrictions.entrySet()) {
+			int idx = EpisimConfigGroup.InfectionParams.indexOf(e.getKey());
+			Restriction r = e.getValue();
+
+			this.restrictions[idx] = r;
+			this.remainingFraction[idx] = unbox(r.getRemainingFraction());
+			this.ciCorrection[idx] = unbox(r.getCiCorrection());
+			this.maxGroupSize[idx] = unbox(r.getMaxGroupSize());
+			this.reducedGroupSize[idx] = unbox(r.getReducedGroupSize());
+			this.closingHours[idx] = r.hasClosingHours();
+		}
+	}
+
+	private static double unbox(Double value) {
+		return value == null ? Double.NaN : value;
+	}
+
+	private static int unbox(Integer value) {
+		return value == null ? -1 : value;
+	}
+
+	/**
+	 * Index of an activity in the arrays, or -1 if it needs to be looked up in the map.
+	 */
+	private int index(EpisimConfigGroup.InfectionParams act) {
+		int idx = act.getIndex();
+		return idx < restrictions.length && restrictions[idx] != null ? idx : -1;
+	}
+
+	/**
+	 * Restrictions this table was created from.
+	 */
+	public Map<String, Restriction> getMap() {
+		return source;
+	}
+
+	/**
+	 * Restriction for the container of an activity.
+	 */
+	public Restriction get(EpisimConfigGroup.InfectionParams act) {
+		int idx = index(act);
+		return idx == -1 ? source.get(act.getContainerName()) : restrictions[idx];
+	}
+
+	/**
+	 * See {@link Restriction#getRemainingFraction()}.
+	 */
+	public double getRemainingFraction(EpisimConfigGroup.InfectionParams act) {
+		int idx = index(act);
+		return idx == -1 ? unbox(get(act).getRemainingFraction()) : remainingFraction[idx];
+	}
+
+	/**
+	 * See {@link Restriction#getCiCorrection()}.
+	 */
+	public double getCiCorrection(EpisimConfigGroup.InfectionParams act) {
+		int idx = index(act);
+		return idx == -1 ? unbox(get(act).getCiCorrection()) : ciCorrection[idx];
+	}
+
+	/**
+	 * See {@link Restriction#getMaxGroupSize()}, -1 if not set.
+	 */
+	public int getMaxGroupSize(EpisimConfigGroup.InfectionParams act) {
+		int idx = index(act);
+		return idx == -1 ? unbox(get(act).getMaxGroupSize()) : maxGroupSize[idx];
+	}
+
+	/**
+	 * See {@link Restriction#getReducedGroupSize()}, -1 if not set.
+	 */
+	public int getReducedGroupSize(EpisimConfigGroup.InfectionParams act) {
+		int idx = index(act);
+		return idx == -1 ? unbox(get(act).getReducedGroupSize()) : reducedGroupSize[idx];
+	}
+
+	/**
+	 * See {@link Restriction#hasClosingHours()}.
+	 */
+	public boolean hasClosingHours(EpisimConfigGroup.InfectionParams act) {
+		int idx = index(act);
+		return idx == -1 ? get(act).hasClosingHours() : closingHours[idx];
+	}
+
+	/**
+	 * Restriction for an activity from the given map, which uses the table if it was created from the same map.
+	 */
+	Restriction get(Map<String, Restriction> restrictions, EpisimConfigGroup.InfectionParams act) {
+		return restrictions == source ? get(act) : restrictions.get(act.getContainerName());
+	}
+
+	/**
+	 * The lower ci correction of the containers of both activities, see {@link #get(Map, EpisimConfigGroup.InfectionParams)}.
+	 */
+	double getCiCorrection(Map<String, Restriction> restrictions, EpisimConfigGroup.InfectionParams act1, EpisimConfigGroup.InfectionParams act2) {
+		if (restrictions == source)
+			return Math.min(getCiCorrection(act1), getCiCorrection(act2));
+
+		return Math.min(restrictions.get(act1.getContainerName()).getCiCorrection(), restrictions.get(act2.getContainerName()).getCiCorrection());
+	}
+}
@@ -44,11 +44,6 @@ public final class SqrtContactModel extends AbstractContactModel {
 	 */
 	private final int trackingAfterDay;
 
-	/**
-	 * This buffer is used to store the infection type.
-	 */
-	private final StringBuilder buffer = new StringBuilder();
-
 	@Inject
 	/* package */
 	SqrtContactModel( SplittableRandom rnd, Config config, TracingConfigGroup tracingConfig,
@@ -58,6 +53,16 @@ public final class SqrtContactModel extends AbstractContactModel {
 		this.trackingAfterDay = tracingConfig.getPutTraceablePersonsInQuarantineAfterDay();
 	}
 
+	private SqrtContactModel(SqrtContactModel other) {
+		super(other);
+		this.trackingAfterDay = other.trackingAfterDay;
+	}
+
+	@Override
+	public ContactModel newInstance() {
+		return new SqrtContactModel(this);
+	}
+
 	@Override
 	public void infectionDynamicsVehicle(EpisimPerson personLeavingVehicle, InfectionEventHandler.EpisimVehicle vehicle, double now) {
 		infectionDynamicsGeneralized(personLeavingVehicle, vehicle, now);
@@ -69,18 +74,23 @@ public final class SqrtContactModel extends AbstractContactModel {
 	}
 
 	private void infectionDynamicsGeneralized(EpisimPerson personLeavingContainer, EpisimContainer<?> container, double now) {
+		SplittableRandom rnd = getRandom(container);
 
 		// no infection possible if there is only one person
 		if (iteration == 0 || container.getPersons().size() == 1) {
 			return;
 		}
 
-		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictions(), rnd)) {
+		// start tracking late as possible because of computational costs
+		boolean trackingEnabled = iteration >= trackingAfterDay;
+
+		if (canSkipInteractions(personLeavingContainer, container, trackingEnabled)) {
 			return;
 		}
 
-		// start tracking late as possible because of computational costs
-		boolean trackingEnabled = iteration >= trackingAfterDay;
+		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictionTable(), rnd)) {
+			return;
+		}
 
 		EpisimConfigGroup.InfectionParams leavingParams = null;
 
@@ -96,7 +106,7 @@ public final class SqrtContactModel extends AbstractContactModel {
 			// since every pair of persons interacts only once, there is now a constant interaction probability per pair
 			// if we want superspreading events, then maxInteractions needs to be much larger than 3 or 10.
 
-			if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictions(), rnd)) {
+			if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictionTable(), rnd)) {
 				continue;
 			}
 
@@ -113,32 +123,27 @@ public final class SqrtContactModel extends AbstractContactModel {
 				}
 			}
 
-			String leavingPersonsActivity = personLeavingContainer.getTrajectory().get(personLeavingContainer.getCurrentPositionInTrajectory()).actType;
-			String otherPersonsActivity = contactPerson.getTrajectory().get(contactPerson.getCurrentPositionInTrajectory()).actType;
+			EpisimPerson.Activity leavingPersonsActivity = personLeavingContainer.getCurrentActivity();
+			EpisimPerson.Activity otherPersonsActivity = contactPerson.getCurrentActivity();
 
-			StringBuilder infectionType = getInfectionType(buffer, container, leavingPersonsActivity, otherPersonsActivity);
+			int infectionType = pairs.pair(container, leavingPersonsActivity, otherPersonsActivity);
 
-			double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer.getPersonId());
-			double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson.getPersonId());
+			double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer);
+			double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson);
 			double jointTimeInContainer = now - Math.max(containerEnterTimeOfPersonLeaving, containerEnterTimeOfOtherPerson);
 
 			//forbid certain cross-activity interactions, keep track of contacts
 			if (container instanceof InfectionEventHandler.EpisimFacility) {
-				//home can only interact with home, leisure or work
-				if (infectionType.indexOf("home") >= 0 && infectionType.indexOf("leis") == -1 && infectionType.indexOf("work") == -1
-						&& !(leavingPersonsActivity.startsWith("home") && otherPersonsActivity.startsWith("home"))) {
-					continue;
-				} else if (infectionType.indexOf("edu") >= 0 && infectionType.indexOf("work") == -1 && !(leavingPersonsActivity.startsWith("edu") && otherPersonsActivity.startsWith("edu"))) {
-					//edu can only interact with work or edu
+				if (!pairs.isAllowed(infectionType)) {
 					continue;
 				}
-				if (trackingEnabled) {
-					trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer, infectionType);
+				if (trackingEnabled && pairs.isTrackable(infectionType)) {
+					trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer);
 				}
 
 				// Only a subset of contacts are reported at the moment
 				// tracking has to be enabled to report more contacts
-				reporting.reportContact(now, personLeavingContainer, contactPerson, container, infectionType, jointTimeInContainer);
+				reporting.reportContact(now, personLeavingContainer, contactPerson, container, pairs.getName(infectionType), jointTimeInContainer);
 			}
 
 			if (!AbstractContactModel.personsCanInfectEachOther(personLeavingContainer, contactPerson)) {
@@ -180,16 +185,16 @@ public final class SqrtContactModel extends AbstractContactModel {
 			if (personLeavingContainer.getDiseaseStatus() == DiseaseStatus.susceptible) {
 
 				double prob = infectionModel.calcInfectionProbability(personLeavingContainer, contactPerson, getRestrictions(),
-						leavingParams, contactParams, jointTimeInContainer);
+						leavingParams, contactParams, jointTimeInContainer, rnd);
 				if (rnd.nextDouble() < prob)
-					infectPerson(personLeavingContainer, contactPerson, now, infectionType, container);
+					infectPerson(personLeavingContainer, contactPerson, now, pairs.getName(infectionType), container);
 
 			} else {
 				double prob = infectionModel.calcInfectionProbability(contactPerson, personLeavingContainer, getRestrictions(),
-						contactParams, leavingParams, jointTimeInContainer);
+						contactParams, leavingParams, jointTimeInContainer, rnd);
 
 				if (rnd.nextDouble() < prob)
-					infectPerson(contactPerson, personLeavingContainer, now, infectionType, container);
+					infectPerson(contactPerson, personLeavingContainer, now, pairs.getName(infectionType), container);
 			}
 		}
 	}
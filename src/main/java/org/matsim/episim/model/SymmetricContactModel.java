@@ -26,6 +26,8 @@ import org.apache.logging.log4j.Logger;
 import org.matsim.core.config.Config;
 import org.matsim.episim.*;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.SplittableRandom;
 
 import static org.matsim.episim.EpisimPerson.DiseaseStatus;
@@ -48,9 +50,27 @@ public final class SymmetricContactModel extends AbstractContactModel {
 	private final boolean traceSusceptible;
 
 	/**
-	 * This buffer is used to store the infection type.
+	 * Whether contact persons are sampled with geometric skips, see {@link EpisimConfigGroup.ContactSampling}.
 	 */
-	private final StringBuilder buffer = new StringBuilder();
+	private final boolean skipSampling;
+
+	/**
+	 * Infection model that evaluates probabilities in batches, see {@link EpisimConfigGroup#isBatchInfections()}.
+	 * Null if batches are not used or not supported by the infection model.
+	 */
+	private final BatchInfectionModel batchModel;
+	private final InfectionBatch candidates = new InfectionBatch();
+
+	/**
+	 * Infection params and scaled contact intensities of contact persons in {@link #cachedContainer}, indexed by activity type and home quarantine.
+	 * Entries are only valid if their stamp is equal to {@link #generation}.
+	 */
+	private EpisimConfigGroup.InfectionParams[] cachedParams = new EpisimConfigGroup.InfectionParams[0];
+	private double[] cachedIntensity = new double[0];
+	private long[] stamps = new long[0];
+	private long generation = 0;
+	private EpisimContainer<?> cachedContainer;
+	private int cachedIteration = -1;
 
 	@Inject
 		/* package */
@@ -60,6 +80,22 @@ public final class SymmetricContactModel extends AbstractContactModel {
 		super(rnd, config, infectionModel, reporting);
 		this.trackingAfterDay = tracingConfig.getPutTraceablePersonsInQuarantineAfterDay();
 		this.traceSusceptible = tracingConfig.getTraceSusceptible();
+		this.skipSampling = episimConfig.getContactSampling() == EpisimConfigGroup.ContactSampling.geometric;
+		this.batchModel = episimConfig.isBatchInfections() && infectionModel instanceof BatchInfectionModel ?
+				(BatchInfectionModel) infectionModel : null;
+	}
+
+	private SymmetricContactModel(SymmetricContactModel other) {
+		super(other);
+		this.trackingAfterDay = other.trackingAfterDay;
+		this.traceSusceptible = other.traceSusceptible;
+		this.skipSampling = other.skipSampling;
+		this.batchModel = other.batchModel;
+	}
+
+	@Override
+	public ContactModel newInstance() {
+		return new SymmetricContactModel(this);
 	}
 
 	@Override
@@ -73,22 +109,37 @@ public final class SymmetricContactModel extends AbstractContactModel {
 	}
 
 	private void infectionDynamicsGeneralized(EpisimPerson personLeavingContainer, EpisimContainer<?> container, double now) {
+		SplittableRandom rnd = getRandom(container);
 
 		// no infection possible if there is only one person
 		if (iteration == 0 || container.getPersons().size() == 1) {
 			return;
 		}
 
-		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictions(), rnd)) {
+		// start tracking late as possible because of computational costs
+		boolean trackingEnabled = iteration >= trackingAfterDay;
+
+		if (canSkipInteractions(personLeavingContainer, container, trackingEnabled)) {
 			return;
 		}
 
-		// start tracking late as possible because of computational costs
-		boolean trackingEnabled = iteration >= trackingAfterDay;
+		if (!personRelevantForTrackingOrInfectionDynamics(personLeavingContainer, container, getRestrictionTable(), rnd)) {
+			return;
+		}
 
 		EpisimConfigGroup.InfectionParams leavingParams = null;
+		double leavingIntensity = 0;
+
+		List<EpisimPerson> persons = container.getPersons();
+		int n = persons.size();
 
-		for (EpisimPerson contactPerson : container.getPersons()) {
+		// log of the probability that another person is not in the same space
+		double p = 1. / container.getNumSpaces();
+		double logQ = p >= 1 ? Double.NEGATIVE_INFINITY : Math.log1p(-p);
+
+		for (int i = skipSampling ? nextContact(rnd, -1, logQ) : 0; i < n; i = skipSampling ? nextContact(rnd, i, logQ) : i + 1) {
+
+			EpisimPerson contactPerson = persons.get(i);
 
 			// no contact with self, especially no tracing
 			if (personLeavingContainer == contactPerson) {
@@ -124,11 +175,12 @@ public final class SymmetricContactModel extends AbstractContactModel {
 			*/
 
 			double nSpacesPerFacility = container.getNumSpaces();
-			if (rnd.nextDouble() > 1. / nSpacesPerFacility) { // i.e. other person is in other space
+			// with skip sampling only persons in the same space are visited
+			if (!skipSampling && rnd.nextDouble() > 1. / nSpacesPerFacility) { // i.e. other person is in other space
 				continue;
 			}
 
-			if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictions(), rnd)) {
+			if (!personRelevantForTrackingOrInfectionDynamics(contactPerson, container, getRestrictionTable(), rnd)) {
 				continue;
 			}
 
@@ -147,34 +199,27 @@ public final class SymmetricContactModel extends AbstractContactModel {
 					&& contactPerson.getDiseaseStatus() == DiseaseStatus.susceptible)
 				continue;
 
-			String leavingPersonsActivity = personLeavingContainer.getTrajectory().get(personLeavingContainer.getCurrentPositionInTrajectory()).actType;
-			String otherPersonsActivity = contactPerson.getTrajectory().get(contactPerson.getCurrentPositionInTrajectory()).actType;
+			EpisimPerson.Activity leavingPersonsActivity = personLeavingContainer.getCurrentActivity();
+			EpisimPerson.Activity otherPersonsActivity = contactPerson.getCurrentActivity();
 
-			StringBuilder infectionType = getInfectionType(buffer, container, leavingPersonsActivity, otherPersonsActivity);
+			int infectionType = pairs.pair(container, leavingPersonsActivity, otherPersonsActivity);
 
-			double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer.getPersonId());
-			double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson.getPersonId());
+			double containerEnterTimeOfPersonLeaving = container.getContainerEnteringTime(personLeavingContainer);
+			double containerEnterTimeOfOtherPerson = container.getContainerEnteringTime(contactPerson);
 			double jointTimeInContainer = calculateJointTimeInContainer(now, personLeavingContainer, containerEnterTimeOfPersonLeaving, containerEnterTimeOfOtherPerson);
 
 			//forbid certain cross-activity interactions, keep track of contacts
 			if (container instanceof InfectionEventHandler.EpisimFacility) {
-				//home can only interact with home, leisure or work
-				if (infectionType.indexOf("home") >= 0 && infectionType.indexOf("leis") == -1 && infectionType.indexOf("work") == -1
-						&& !(leavingPersonsActivity.startsWith("home") && otherPersonsActivity.startsWith("home"))) {
-					// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
-					continue;
-				} else if (infectionType.indexOf("edu") >= 0 && infectionType.indexOf("work") == -1 && !(leavingPersonsActivity.startsWith("edu") && otherPersonsActivity.startsWith("edu"))) {
-					//edu can only interact with work or edu
-					// yyyyyy we need to move out of these string convention based rules in code.  kai, aug'20
+				if (!pairs.isAllowed(infectionType)) {
 					continue;
 				}
-				if (trackingEnabled) {
-					trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer, infectionType);
+				if (trackingEnabled && pairs.isTrackable(infectionType)) {
+					trackContactPerson(personLeavingContainer, contactPerson, now, jointTimeInContainer);
 				}
 
 				// Only a subset of contacts are reported at the moment
 				// tracking has to be enabled to report more contacts
-				reporting.reportContact(now, personLeavingContainer, contactPerson, container, infectionType, jointTimeInContainer);
+				reporting.reportContact(now, personLeavingContainer, contactPerson, container, pairs.getName(infectionType), jointTimeInContainer);
 			}
 
 			if (!AbstractContactModel.personsCanInfectEachOther(personLeavingContainer, contactPerson)) {
@@ -206,36 +251,129 @@ public final class SymmetricContactModel extends AbstractContactModel {
 
 			// Parameter will only be retrieved one time
 			if (leavingParams == null) {
-				EpisimConfigGroup.InfectionParams tmp = getInfectionParams(container, personLeavingContainer, leavingPersonsActivity);
-
-				double ci = tmp.getContactIntensity();
+				leavingParams = getInfectionParams(container, personLeavingContainer, leavingPersonsActivity);
 
 				// this is currently 1 / (sqmPerPerson * airExchangeRate).  Need to multiply sqmPerPerson with maxPersonsInSpace to obtain room size:
-				leavingParams = tmp.copy(ci / (maxPersonsInContainer / tmp.getSpacesPerFacility()));
+				leavingIntensity = leavingParams.getContactIntensity() / (maxPersonsInContainer / leavingParams.getSpacesPerFacility());
 			}
 
-			// activity params of the contact person and leaving person
-			EpisimConfigGroup.InfectionParams tmp = getInfectionParams(container, contactPerson, otherPersonsActivity);
-			double ci2 = tmp.getContactIntensity();
-			EpisimConfigGroup.InfectionParams contactParams = tmp.copy(ci2 / (maxPersonsInContainer / nSpacesPerFacility));
-			// (same computation as above; could just memorize)
+			// activity params of the contact person
+			int key = cacheContactParams(container, contactPerson, otherPersonsActivity, maxPersonsInContainer);
+			EpisimConfigGroup.InfectionParams contactParams = cachedParams[key];
+			double contactIntensity = cachedIntensity[key];
+
+			if (batchModel != null) {
+				if (personLeavingContainer.getDiseaseStatus() == DiseaseStatus.susceptible)
+					addCandidate(personLeavingContainer, contactPerson, leavingParams, contactParams, leavingIntensity, contactIntensity,
+							infectionType, jointTimeInContainer, rnd);
+				else
+					addCandidate(contactPerson, personLeavingContainer, contactParams, leavingParams, contactIntensity, leavingIntensity,
+							infectionType, jointTimeInContainer, rnd);
+
+				continue;
+			}
 
 			// need to differentiate which person might be the infector
 			if (personLeavingContainer.getDiseaseStatus() == DiseaseStatus.susceptible) {
 
 				double prob = infectionModel.calcInfectionProbability(personLeavingContainer, contactPerson, getRestrictions(),
-						leavingParams, contactParams, jointTimeInContainer);
+						leavingParams, contactParams, leavingIntensity, contactIntensity, jointTimeInContainer, rnd);
 				if (rnd.nextDouble() < prob)
-					infectPerson(personLeavingContainer, contactPerson, now, infectionType, container);
+					infectPerson(personLeavingContainer, contactPerson, now, pairs.getName(infectionType), container);
 
 			} else {
 				double prob = infectionModel.calcInfectionProbability(contactPerson, personLeavingContainer, getRestrictions(),
-						contactParams, leavingParams, jointTimeInContainer);
+						contactParams, leavingParams, contactIntensity, leavingIntensity, jointTimeInContainer, rnd);
 
 				if (rnd.nextDouble() < prob)
-					infectPerson(contactPerson, personLeavingContainer, now, infectionType, container);
+					infectPerson(contactPerson, personLeavingContainer, now, pairs.getName(infectionType), container);
 			}
 		}
+
+		if (batchModel != null && candidates.size > 0)
+			infectCandidates(container, now, rnd);
 	}
 
+	/**
+	 * Gathers a contact for the batch evaluation. Random numbers for the masks and the ci correction of this contact are drawn here,
+	 * those for the infection only after all candidates are gathered, see {@link #infectCandidates(EpisimContainer, double, SplittableRandom)}.
+	 */
+	private void addCandidate(EpisimPerson target, EpisimPerson infector, EpisimConfigGroup.InfectionParams targetParams,
+							  EpisimConfigGroup.InfectionParams infectorParams, double targetIntensity, double infectorIntensity,
+							  int infectionType, double jointTime, SplittableRandom rnd) {
+
+		double infectivity = batchModel.getInfectivity(infector, infectorParams, getRestrictionTable(), rnd);
+		double susceptibility = batchModel.getSusceptibility(target, targetParams, getRestrictionTable(), rnd);
+		double ciCorrection = batchModel.getCiCorrection(targetParams, infectorParams, getRestrictionTable(), rnd);
+
+		candidates.add(target, infector, infectionType, Math.min(targetIntensity, infectorIntensity), jointTime,
+				susceptibility, infectivity, ciCorrection);
+	}
+
+	/**
+	 * Evaluates all gathered contacts and draws their infections in the order they were gathered.
+	 */
+	private void infectCandidates(EpisimContainer<?> container, double now, SplittableRandom rnd) {
+
+		candidates.evaluate(batchModel);
+
+		for (int i = 0; i < candidates.size; i++) {
+			EpisimPerson target = candidates.target[i];
+
+			// the leaving person can only be infected once
+			if (target.getDiseaseStatus() != DiseaseStatus.susceptible)
+				continue;
+
+			if (rnd.nextDouble() < candidates.prob[i])
+				infectPerson(target, candidates.infector[i], now, pairs.getName(candidates.infectionType[i]), container);
+		}
+
+		candidates.clear();
+	}
+
+	/**
+	 * Retrieves infection params of a contact person and its contact intensity scaled to the container size, unless they are cached already.
+	 * These only depend on the container, iteration, activity type and whether the person is in home quarantine.
+	 *
+	 * @return key of the entry in {@link #cachedParams} and {@link #cachedIntensity}
+	 */
+	private int cacheContactParams(EpisimContainer<?> container, EpisimPerson person, EpisimPerson.Activity act, int maxPersonsInContainer) {
+
+		if (container != cachedContainer || iteration != cachedIteration) {
+			cachedContainer = container;
+			cachedIteration = iteration;
+			generation++;
+		}
+
+		int key = act.typeId * 2 + (person.getQuarantineStatus() == EpisimPerson.QuarantineStatus.atHome ? 1 : 0);
+		if (key >= stamps.length) {
+			int size = Math.max(key + 2, EpisimPerson.Activity.getNumberOfTypes() * 2);
+			cachedParams = Arrays.copyOf(cachedParams, size);
+			cachedIntensity = Arrays.copyOf(cachedIntensity, size);
+			stamps = Arrays.copyOf(stamps, size);
+		}
+
+		if (stamps[key] != generation) {
+			EpisimConfigGroup.InfectionParams params = getInfectionParams(container, person, act);
+			cachedParams[key] = params;
+			cachedIntensity[key] = params.getContactIntensity() / (maxPersonsInContainer / container.getNumSpaces());
+			stamps[key] = generation;
+		}
+
+		return key;
+	}
+
+	/**
+	 * Index of the next contact person after {@code i}, when each person is selected independently with probability {@code 1 - exp(logQ)}.
+	 * The number of skipped persons is geometrically distributed, so only one random number is needed per selected person.
+	 */
+	static int nextContact(SplittableRandom rnd, int i, double logQ) {
+		if (logQ == Double.NEGATIVE_INFINITY)
+			return i + 1;
+		if (logQ == 0)
+			return Integer.MAX_VALUE;
+
+		double skip = Math.floor(Math.log(1 - rnd.nextDouble()) / logQ);
+		return skip >= Integer.MAX_VALUE - i - 1 ? Integer.MAX_VALUE : i + 1 + (int) skip;
+	}
 }
@@ -0,0 +1,158 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim.model;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Calendar queue of scheduled state updates, which stores person indices in one bucket per day of a ring.
+ * Days further in the future share the bucket of the same day modulo the ring size and are kept until they are due.
+ * Entries are not removed when a person is rescheduled, instead outdated entries are ignored when their bucket is processed.
+ */
+final class TransitionSchedule {
+
+	/**
+	 * Number of buckets in the ring.
+	 */
+	static final int DAYS = 64;
+
+	/**
+	 * Marks persons that are not scheduled or days that were not processed yet.
+	 */
+	private static final int NONE = Integer.MIN_VALUE;
+
+	private final IntArrayList[] buckets = new IntArrayList[DAYS];
+
+	/**
+	 * Persons with due updates.
+	 */
+	private final BitSet due = new BitSet();
+
+	/**
+	 * Scheduled day of each person, {@link #NONE} if there is none.
+	 */
+	private int[] scheduled = new int[0];
+
+	/**
+	 * Disease status ordinal at the last update of each person, -1 if it was never updated.
+	 */
+	private byte[] status = new byte[0];
+
+	/**
+	 * Last processed day.
+	 */
+	private int day = NONE;
+
+	TransitionSchedule() {
+		for (int i = 0; i < DAYS; i++) {
+			buckets[i] = new IntArrayList();
+		}
+	}
+
+	/**
+	 * Moves all persons that are scheduled until {@code day} into the set of due persons.
+	 */
+	void advance(int day) {
+
+		if (day == this.day)
+			return;
+
+		// process all buckets when days were skipped
+		if (this.day == NONE || day - this.day >= DAYS || day < this.day) {
+			for (int i = 0; i < DAYS; i++)
+				poll(i, day);
+		} else {
+			for (int d = this.day + 1; d <= day; d++)
+				poll(Math.floorMod(d, DAYS), day);
+		}
+
+		this.day = day;
+	}
+
+	/**
+	 * Processes one bucket and keeps only the entries that are scheduled later.
+	 */
+	private void poll(int bucket, int day) {
+
+		IntArrayList persons = buckets[bucket];
+		int size = 0;
+		for (int i = 0; i < persons.size(); i++) {
+			int p = persons.getInt(i);
+			int at = scheduled[p];
+
+			// outdated entry
+			if (at == NONE || Math.floorMod(at, DAYS) != bucket)
+				continue;
+
+			if (at <= day) {
+				due.set(p);
+				scheduled[p] = NONE;
+			} else
+				persons.set(size++, p);
+		}
+
+		persons.size(size);
+	}
+
+	/**
+	 * Whether a person needs to be updated, because it is scheduled or its disease status changed since the last update.
+	 */
+	boolean isDue(int person, int status) {
+		return person >= this.status.length || this.status[person] != status || due.get(person);
+	}
+
+	/**
+	 * Record the update of a person and schedule the next one.
+	 *
+	 * @param status disease status ordinal after the update
+	 * @param at     day of the next update, or {@link Integer#MAX_VALUE} if there is none
+	 */
+	void update(int person, int status, int at) {
+
+		if (person >= this.status.length) {
+			int capacity = Math.max(person + 1, this.status.length + (this.status.length >> 1));
+			int n = this.status.length;
+			this.status = Arrays.copyOf(this.status, capacity);
+			this.scheduled = Arrays.copyOf(this.scheduled, capacity);
+			Arrays.fill(this.status, n, capacity, (byte) -1);
+			Arrays.fill(this.scheduled, n, capacity, NONE);
+		}
+
+		this.status[person] = (byte) status;
+		due.clear(person);
+
+		if (at == Integer.MAX_VALUE) {
+			scheduled[person] = NONE;
+			return;
+		}
+
+		if (day != NONE && at <= day) {
+			scheduled[person] = NONE;
+			due.set(person);
+		} else {
+			scheduled[person] = at;
+			buckets[Math.floorMod(at, DAYS)].add(person);
+		}
+	}
+}
@@ -4,6 +4,8 @@ import com.google.inject.Inject;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimRandom;
+import org.matsim.episim.VaccinationConfigGroup;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -13,20 +15,40 @@ import java.util.stream.Collectors;
  */
 public class VaccinationByAge implements VaccinationModel {
 
-	private final SplittableRandom rnd;
+	private final EpisimRandom streams;
+	private final VaccinationConfigGroup vaccinationConfig;
+
+	/**
+	 * Eligible persons by age, only used if {@link VaccinationConfigGroup#getCandidatePool()} is enabled.
+	 */
+	private final VaccinationCandidates candidates = new VaccinationCandidates();
 
 	@Inject
+	public VaccinationByAge(EpisimRandom streams, VaccinationConfigGroup vaccinationConfig) {
+		this.streams = streams;
+		this.vaccinationConfig = vaccinationConfig;
+	}
+
+	public VaccinationByAge(EpisimRandom streams) {
+		this(streams, new VaccinationConfigGroup());
+	}
+
 	public VaccinationByAge(SplittableRandom rnd) {
-		this.rnd = rnd;
+		this(new EpisimRandom(rnd));
 	}
 
 	@Override
 	public int handleVaccination(Map<Id<Person>, EpisimPerson> persons, int availableVaccinations, int iteration, double now) {
+
+		if (vaccinationConfig.getCandidatePool())
+			return handleVaccinationFromPool(persons, availableVaccinations, iteration);
+
 		List<EpisimPerson> candidates = persons.values().stream()
 				.filter(p -> p.getDiseaseStatus() == EpisimPerson.DiseaseStatus.susceptible)
 				.filter(p -> p.getVaccinationStatus() == EpisimPerson.VaccinationStatus.no)
 				.collect(Collectors.toList());
 
+		SplittableRandom rnd = streams.stream(EpisimRandom.Purpose.vaccination, iteration, EpisimRandom.NONE, EpisimRandom.NONE);
 		Collections.shuffle(candidates, new Random(rnd.nextLong()));
 		candidates = candidates.stream()
 				.sorted(Comparator.comparingInt(EpisimPerson::getAge).reversed())
@@ -42,4 +64,29 @@ public class VaccinationByAge implements VaccinationModel {
 
 		return vaccinated;
 	}
+
+	/**
+	 * Vaccinates the oldest persons from the maintained pool, persons of the same age are drawn randomly.
+	 */
+	private int handleVaccinationFromPool(Map<Id<Person>, EpisimPerson> persons, int availableVaccinations, int iteration) {
+
+		if (availableVaccinations <= 0)
+			return 0;
+
+		candidates.init(persons.values());
+
+		SplittableRandom rnd = streams.stream(EpisimRandom.Purpose.vaccination, iteration, EpisimRandom.NONE, EpisimRandom.NONE);
+
+		int vaccinated = 0;
+		while (vaccinated < availableVaccinations) {
+			EpisimPerson person = candidates.drawOldest(rnd);
+			if (person == null)
+				break;
+
+			person.setVaccinationStatus(EpisimPerson.VaccinationStatus.yes, iteration);
+			vaccinated++;
+		}
+
+		return vaccinated;
+	}
 }
@@ -0,0 +1,170 @@
+/*-
+ * #%L
+ * MATSim Episim
+ * %%
+ * Copyright (C) 2020 matsim-org
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.matsim.episim.model;
+
+import org.matsim.episim.EpisimPerson;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * Pool of persons that can be vaccinated, i.e. are susceptible and not vaccinated, with one bucket per age.
+ * <p>
+ * Persons never become eligible again once they got infected or vaccinated. Therefore the pool only needs to be created once,
+ * persons that are not eligible anymore are removed when they are drawn or the pool is pruned.
+ */
+final class VaccinationCandidates {
+
+	/**
+	 * Persons of each age, persons without age are stored in the first bucket.
+	 */
+	private EpisimPerson[][] buckets;
+	private int[] sizes;
+
+	/**
+	 * Number of persons in all buckets, including persons that are not eligible anymore.
+	 */
+	private int size = -1;
+
+	/**
+	 * Whether a person can be vaccinated.
+	 */
+	static boolean isEligible(EpisimPerson p) {
+		return p.getDiseaseStatus() == EpisimPerson.DiseaseStatus.susceptible &&
+				p.getVaccinationStatus() == EpisimPerson.VaccinationStatus.no;
+	}
+
+	/**
+	 * Creates the pool on first use.
+	 */
+	void init(Collection<EpisimPerson> persons) {
+
+		if (size >= 0)
+			return;
+
+		int n = 1;
+		for (EpisimPerson p : persons) {
+			n = Math.max(n, bucket(p) + 1);
+		}
+
+		buckets = new EpisimPerson[n][];
+		sizes = new int[n];
+
+		for (EpisimPerson p : persons) {
+			if (isEligible(p))
+				sizes[bucket(p)]++;
+		}
+
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new EpisimPerson[sizes[i]];
+			sizes[i] = 0;
+		}
+
+		size = 0;
+		for (EpisimPerson p : persons) {
+			if (isEligible(p)) {
+				int b = bucket(p);
+				buckets[b][sizes[b]++] = p;
+				size++;
+			}
+		}
+	}
+
+	private static int bucket(EpisimPerson p) {
+		return Math.max(0, p.getAgeOrDefault(-1) + 1);
+	}
+
+	/**
+	 * Upper bound of eligible persons, exact after {@link #prune()}.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all persons that are not eligible anymore.
+	 */
+	void prune() {
+		for (int b = 0; b < buckets.length; b++) {
+			for (int i = sizes[b] - 1; i >= 0; i--) {
+				if (!isEligible(buckets[b][i]))
+					remove(b, i);
+			}
+		}
+	}
+
+	/**
+	 * Draws a random eligible person, which is removed from the pool.
+	 *
+	 * @return eligible person or null if there is none
+	 */
+	EpisimPerson draw(SplittableRandom rnd) {
+		while (size > 0) {
+			int i = rnd.nextInt(size);
+
+			int b = 0;
+			while (i >= sizes[b]) {
+				i -= sizes[b++];
+			}
+
+			EpisimPerson p = remove(b, i);
+			if (isEligible(p))
+				return p;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Draws a random eligible person of the oldest age, which is removed from the pool.
+	 *
+	 * @return eligible person or null if there is none
+	 */
+	EpisimPerson drawOldest(SplittableRandom rnd) {
+		for (int b = buckets.length - 1; b >= 0; b--) {
+			while (sizes[b] > 0) {
+				EpisimPerson p = remove(b, rnd.nextInt(sizes[b]));
+				if (isEligible(p))
+					return p;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes a person by moving the last person of the bucket to its position.
+	 */
+	private EpisimPerson remove(int b, int i) {
+		EpisimPerson[] persons = buckets[b];
+		EpisimPerson p = persons[i];
+		persons[i] = persons[--sizes[b]];
+		persons[sizes[b]] = null;
+		size--;
+		return p;
+	}
+
+	@Override
+	public String toString() {
+		return "VaccinationCandidates{size=" + size + ", sizes=" + Arrays.toString(sizes) + '}';
+	}
+}
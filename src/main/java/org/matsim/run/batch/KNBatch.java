@@ -180,6 +180,9 @@ public class KNBatch implements BatchRun<KNBatch.Params> {
 		@Override public void updateState( EpisimPerson person, int day ){
 			delegate.updateState( person, day );
 		}
+		@Override public void updateStateIfDue( EpisimPerson person, int day ){
+			delegate.updateStateIfDue( person, day );
+		}
 		@Override public boolean canProgress( EpisimReporting.InfectionReport report ){
 //			return report.nTotalInfected > 0 || report.nInQuarantine > 0;
 			return report.nInfectedButNotContagious + report.nContagious + report.nShowingSymptoms > 0 ;
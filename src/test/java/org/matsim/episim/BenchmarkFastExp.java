@@ -0,0 +1,60 @@
+package org.matsim.episim;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link EpisimUtils#fastExp(double)} with {@link Math#exp(double)} on arguments of typical infection probabilities.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BenchmarkFastExp {
+
+	private final double[] args = new double[4096];
+
+	public static void main(String[] args) throws RunnerException {
+
+		Options opt = new OptionsBuilder()
+				.include(BenchmarkFastExp.class.getSimpleName())
+				.warmupIterations(5).warmupTime(TimeValue.seconds(1))
+				.measurementIterations(10).measurementTime(TimeValue.seconds(1))
+				.forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+	@Setup
+	public void setup() {
+		SplittableRandom rnd = new SplittableRandom(1);
+		for (int i = 0; i < args.length; i++) {
+			args[i] = -rnd.nextDouble() * 20;
+		}
+	}
+
+	@Benchmark
+	public double exact() {
+		double sum = 0;
+		for (double x : args) {
+			sum += 1 - Math.exp(x);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public double fast() {
+		double sum = 0;
+		for (double x : args) {
+			sum += 1 - EpisimUtils.fastExp(x);
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,250 @@
+package org.matsim.episim;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContactLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void contacts() {
+
+		ContactLog log = new ContactLog(new PersonStore(10));
+
+		log.add(0, 1, 100);
+		log.add(0, 2, 50);
+		log.add(1, 0, 100);
+		log.add(0, 1, 200);
+		log.add(0, 3, 150);
+
+		// buffered contacts are visible before sealing, repeated contacts keep their first position
+		assertThat(log.getContacts(0, 0).toIntArray()).containsExactly(1, 2, 3);
+		assertThat(log.getContacts(0, 120).toIntArray()).containsExactly(1, 3);
+
+		log.seal();
+		assertThat(log.size()).isEqualTo(4);
+		assertThat(log.getContacts(0, 0).toIntArray()).containsExactly(1, 2, 3);
+		assertThat(log.getContacts(0, 120).toIntArray()).containsExactly(1, 3);
+		assertThat(log.getContacts(1, 0).toIntArray()).containsExactly(0);
+		assertThat(log.getContacts(2, 0).toIntArray()).isEmpty();
+
+		// the removal only affects contacts added before it
+		log.removeBefore(0, 160);
+		log.add(0, 4, 90);
+		assertThat(log.getContacts(0, 0).toIntArray()).containsExactly(1, 4);
+		assertThat(log.getContacts(1, 0).toIntArray()).containsExactly(0);
+
+		// queries do not modify the log
+		assertThat(log.size()).isEqualTo(5);
+
+		log.seal();
+		assertThat(log.size()).isEqualTo(3);
+
+		IntArrayList others = new IntArrayList();
+		DoubleArrayList times = new DoubleArrayList();
+		log.get(0, Double.NEGATIVE_INFINITY, others, times);
+		assertThat(others.toIntArray()).containsExactly(1, 4);
+		assertThat(times.toDoubleArray()).containsExactly(200, 90);
+	}
+
+	@Test
+	public void sameAsTraceableContacts() {
+
+		int n = 20;
+		ContactLog log = new ContactLog(new PersonStore(n));
+		TraceableContacts[] expected = new TraceableContacts[n];
+		for (int i = 0; i < n; i++)
+			expected[i] = new TraceableContacts();
+
+		Random rnd = new Random(1);
+		for (int day = 1; day <= 30; day++) {
+
+			if (rnd.nextBoolean())
+				log.seal();
+
+			for (int i = 0; i < 200; i++) {
+				int owner = rnd.nextInt(n);
+				double time = day * 100 + rnd.nextInt(100);
+
+				switch (rnd.nextInt(10)) {
+					case 0:
+						log.removeBefore(owner, time - 300);
+						expected[owner].removeBefore(time - 300);
+						break;
+					case 1:
+						// different time than the pending removals
+						log.removeBefore(owner, time - 250);
+						expected[owner].removeBefore(time - 250);
+						break;
+					case 2:
+						assertSame(log, expected[owner], owner, time - 200);
+						break;
+					default:
+						int other = rnd.nextInt(n);
+						log.add(owner, other, time);
+						expected[owner].add(other, time);
+				}
+			}
+
+			for (int owner = 0; owner < n; owner++)
+				assertSame(log, expected[owner], owner, Double.NEGATIVE_INFINITY);
+		}
+	}
+
+	@Test
+	public void threads() throws InterruptedException {
+
+		ContactLog log = new ContactLog(new PersonStore(40));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		// contacts of one owner are added by one thread
+		for (int t = 0; t < 4; t++) {
+			int thread = t;
+			executor.submit(() -> {
+				for (int i = 0; i < 5000; i++)
+					log.add(thread * 10 + i % 10, (i * 7) % 40, i);
+			});
+		}
+
+		executor.shutdown();
+		assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+		assertThat(log.size()).isEqualTo(20000);
+
+		log.seal();
+		assertThat(log.size()).isEqualTo(40 * 4);
+
+		for (int owner = 0; owner < 40; owner++) {
+			TraceableContacts expected = new TraceableContacts();
+			for (int i = 0; i < 5000; i++)
+				if (i % 10 == owner % 10)
+					expected.add((i * 7) % 40, i);
+
+			assertSame(log, expected, owner, 4900);
+		}
+	}
+
+	@Test
+	public void sameOutput() throws IOException {
+
+		File perPerson = run(false);
+		File shared = run(true);
+
+		// persons have been traced
+		List<String> infections = Files.readAllLines(perPerson.toPath().resolve("infections.txt"));
+		int column = Arrays.asList(infections.get(0).split("\t")).indexOf("nInQuarantineHome");
+		assertThat(infections.stream().skip(1).mapToLong(l -> Long.parseLong(l.split("\t")[column])).sum())
+				.isGreaterThan(0);
+
+		for (String name : List.of("infections.txt", "infectionEvents.txt"))
+			assertThat(new File(shared, name)).hasSameTextualContentAs(new File(perPerson, name));
+	}
+
+	/**
+	 * Runs two weeks with tracing, where the order of the contacts matters because of the tracing probability and capacity.
+	 */
+	private File run(boolean contactLog) throws IOException {
+
+		File out = folder.newFolder("contactLog" + contactLog);
+
+		Config config = ConfigUtils.createConfig(new EpisimConfigGroup());
+		config.controler().setOutputDirectory(out.getPath());
+
+		EpisimConfigGroup episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		episimConfig.setSampleSize(1);
+		episimConfig.setCalibrationParameter(0.002);
+		episimConfig.setStartDate("2020-02-18");
+		episimConfig.setInitialInfections(10);
+		episimConfig.setInfections_pers_per_day(Map.of(LocalDate.parse("2020-02-18"), 5));
+		for (String act : ParallelReplayTest.ACTS)
+			episimConfig.getOrAddContainerParams(act).setContactIntensity(1).setSpacesPerFacility(5);
+
+		episimConfig.getOrAddContainerParams("home").setContactIntensity(1);
+		episimConfig.getOrAddContainerParams("quarantine_home").setContactIntensity(0.3);
+		episimConfig.getOrAddContainerParams("tr").setContactIntensity(10).setSpacesPerFacility(5);
+
+		TracingConfigGroup tracingConfig = ConfigUtils.addOrGetModule(config, TracingConfigGroup.class);
+		tracingConfig.setContactLog(contactLog);
+		tracingConfig.setPutTraceablePersonsInQuarantineAfterDay(1);
+		tracingConfig.setTracingProbability(0.5);
+		tracingConfig.setTracingCapacity_pers_per_day(20);
+		tracingConfig.setCapacityType(TracingConfigGroup.CapacityType.PER_CONTACT_PERSON);
+		tracingConfig.setTracingDelay_days(1);
+		tracingConfig.setTracingPeriod_days(3);
+		tracingConfig.setQuarantineDuration(3);
+
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		List<Id<Person>> ids = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Person p = scenario.getPopulation().getFactory().createPerson(Id.createPersonId("p" + i));
+			p.getAttributes().putAttribute("microm:modeled:age", i % 90);
+			p.getAttributes().putAttribute("homeId", "home" + (i / 3));
+			scenario.getPopulation().addPerson(p);
+			ids.add(p.getId());
+		}
+
+		Map<DayOfWeek, List<Event>> events = new EnumMap<>(DayOfWeek.class);
+		for (DayOfWeek day : DayOfWeek.values())
+			events.put(day, ParallelReplayTest.createDay(ids, new Random(day.getValue())));
+
+		Injector injector = Guice.createInjector(Modules.override(new EpisimModule()).with(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(Config.class).toInstance(config);
+				bind(Scenario.class).toInstance(scenario);
+				bind(ReplayHandler.class).toInstance(new ReplayHandler(events));
+			}
+		}));
+
+		injector.getInstance(EpisimRunner.class).run(14);
+
+		return out;
+	}
+
+	private static void assertSame(ContactLog log, TraceableContacts expected, int owner, double after) {
+
+		IntArrayList others = new IntArrayList();
+		DoubleArrayList times = new DoubleArrayList();
+		for (int i = 0; i < expected.size(); i++) {
+			if (expected.getTime(i) >= after) {
+				others.add(expected.getPerson(i));
+				times.add(expected.getTime(i));
+			}
+		}
+
+		IntArrayList actualOthers = new IntArrayList();
+		DoubleArrayList actualTimes = new DoubleArrayList();
+		log.get(owner, after, actualOthers, actualTimes);
+
+		assertThat(actualOthers.toIntArray()).as("contacts of %d", owner).containsExactly(others.toIntArray());
+		assertThat(actualTimes.toDoubleArray()).as("times of %d", owner).containsExactly(times.toDoubleArray());
+	}
+}
@@ -0,0 +1,81 @@
+package org.matsim.episim;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EpisimContainerTest {
+
+	private static List<EpisimPerson> fill(EpisimContainer<?> container, int n) {
+		List<EpisimPerson> persons = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			EpisimPerson p = EpisimTestUtils.createPerson("c10", null);
+			container.addPerson(p, i);
+			persons.add(p);
+		}
+		return persons;
+	}
+
+	@Test
+	public void ordered() {
+
+		EpisimContainer<?> container = EpisimTestUtils.createFacility();
+		List<EpisimPerson> persons = fill(container, 5);
+
+		container.removePerson(persons.get(1));
+		container.removePerson(persons.get(3));
+
+		assertThat(container.getPersons())
+				.containsExactly(persons.get(0), persons.get(2), persons.get(4));
+
+		assertThat(container.getContainerEnteringTime(persons.get(4))).isEqualTo(4);
+	}
+
+	@Test
+	public void unordered() {
+
+		EpisimContainer<?> container = EpisimTestUtils.createFacility();
+		container.setOrdered(false);
+		List<EpisimPerson> persons = fill(container, 5);
+
+		container.removePerson(persons.get(1));
+
+		// last person moved into the free slot
+		assertThat(container.getPersons())
+				.containsExactly(persons.get(0), persons.get(4), persons.get(2), persons.get(3));
+
+		container.removePerson(persons.get(3));
+		container.removePerson(persons.get(0));
+
+		assertThat(container.getPersons())
+				.containsExactlyInAnyOrder(persons.get(2), persons.get(4));
+
+		for (EpisimPerson p : container.getPersons()) {
+			assertThat(container.getContainerEnteringTime(p)).isEqualTo(persons.indexOf(p));
+		}
+
+		EpisimPerson p = EpisimTestUtils.createPerson("c10", null);
+		container.addPerson(p, 10);
+
+		assertThat(container.getPersons()).hasSize(3)
+				.contains(p);
+		assertThat(container.getContainerEnteringTime(p)).isEqualTo(10);
+	}
+
+	@Test
+	public void switchOrder() {
+
+		EpisimContainer<?> container = EpisimTestUtils.createFacility();
+		List<EpisimPerson> persons = fill(container, 4);
+
+		container.removePerson(persons.get(0));
+		container.setOrdered(false);
+		container.removePerson(persons.get(1));
+
+		assertThat(container.getPersons())
+				.containsExactly(persons.get(3), persons.get(2));
+	}
+}
@@ -1,17 +1,32 @@
 package org.matsim.episim;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.utils.objectattributes.attributable.Attributes;
 
 import java.io.*;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
 
 public class EpisimPersonTest {
 
+	@Before
+	public void setup() {
+		EpisimTestUtils.sharePersonStore();
+	}
+
+	@After
+	public void tearDown() {
+		EpisimTestUtils.resetPersonStore();
+	}
+
 	@Test
 	public void daysSince() {
 
@@ -67,12 +82,60 @@ public class EpisimPersonTest {
 
 	}
 
+	@Test
+	public void traceableContacts() {
+
+		EpisimPerson p1 = EpisimTestUtils.createPerson("work", null);
+		EpisimPerson p2 = EpisimTestUtils.createPerson("work", null);
+		EpisimPerson p3 = EpisimTestUtils.createPerson("work", null);
+
+		double day = 24 * 3600;
+
+		p1.addTraceableContactPerson(p2, 100);
+		p1.addTraceableContactPerson(p3, 200);
+		p1.addTraceableContactPerson(p2, 300);
+		p1.addTraceableContactPerson(p2, day + 100);
+		p1.addTraceableContactPerson(p3, day + 200);
+
+		// repeated contacts keep the order of the first contact, but count with their latest time
+		assertThat(p1.getTraceableContactPersons(0)).containsExactly(p2, p3);
+		assertThat(p1.getTraceableContactPersons(250)).containsExactly(p2, p3);
+		assertThat(p1.getTraceableContactPersons(day + 150)).containsExactly(p3);
+
+		p1.clearTraceableContractPersons(day + 150);
+		assertThat(p1.getTraceableContactPersons(0)).containsExactly(p3);
+
+		p1.addTraceableContactPerson(p2, day + 300);
+		assertThat(p1.getTraceableContactPersons(0)).containsExactly(p3, p2);
+	}
+
+	@Test
+	public void infectionContainer() {
+
+		InfectionEventHandler.EpisimFacility f1 = EpisimTestUtils.createFacility();
+		InfectionEventHandler.EpisimFacility f2 = EpisimTestUtils.createFacility();
+
+		EpisimPerson p1 = EpisimTestUtils.createPerson("work", null);
+		EpisimPerson p2 = EpisimTestUtils.createPerson("work", null);
+
+		p1.setInfectionContainer(f1);
+		p2.setInfectionContainer(f1);
+		p2.setInfectionContainer(f2);
+
+		assertThat(p2.getInfectionContainer()).isEqualTo(f2.getContainerId());
+		assertThat(p2.getInfectionLocation()).isSameAs(f2);
+
+		assertThat(f1.getInfectedPersons()).containsExactly(p1, p2);
+		assertThat(f2.getInfectedPersons()).containsExactly(p2);
+	}
+
 	@Test
 	public void readWrite() throws IOException {
 
 		EpisimPerson p1 = EpisimTestUtils.createPerson("work", null);
+		EpisimPerson contact = EpisimTestUtils.createPerson("home", null);
 
-		p1.addTraceableContactPerson(EpisimTestUtils.createPerson("home", null), 100);
+		p1.addTraceableContactPerson(contact, 100);
 		p1.setDiseaseStatus(100, EpisimPerson.DiseaseStatus.showingSymptoms);
 		p1.setTraceable(true);
 
@@ -84,6 +147,7 @@ public class EpisimPersonTest {
 		bout.flush();
 
 		Map<Id<Person>, EpisimPerson> persons = new HashMap<>();
+		persons.put(contact.getPersonId(), contact);
 
 		EpisimPerson p2 = EpisimTestUtils.createPerson("c1.0", null);
 		p2.read(new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())), persons, null, null);
@@ -91,5 +155,62 @@ public class EpisimPersonTest {
 		assertThat(p2.getDiseaseStatus())
 				.isEqualTo(EpisimPerson.DiseaseStatus.showingSymptoms);
 
+		assertThat(p2.getTraceableContactPersons(0)).containsExactly(contact);
+
+	}
+
+	@Test
+	public void containerStatusCounts() {
+
+		InfectionEventHandler.EpisimFacility container = EpisimTestUtils.createFacility(3, "work", p -> {});
+		EpisimPerson p1 = container.getPersons().get(0);
+		EpisimPerson p2 = container.getPersons().get(1);
+
+		assertThat(container.getNumSusceptible()).isEqualTo(3);
+		assertThat(container.getNumInfectious()).isEqualTo(0);
+
+		p1.setDiseaseStatus(0, EpisimPerson.DiseaseStatus.infectedButNotContagious);
+		p2.setDiseaseStatus(0, EpisimPerson.DiseaseStatus.contagious);
+
+		assertThat(container.getNumSusceptible()).isEqualTo(1);
+		assertThat(container.getNumInfectious()).isEqualTo(1);
+
+		p2.setDiseaseStatus(0, EpisimPerson.DiseaseStatus.showingSymptoms);
+		assertThat(container.getNumInfectious()).isEqualTo(1);
+
+		EpisimTestUtils.removePerson(container, p2);
+		assertThat(container.getNumInfectious()).isEqualTo(0);
+
+		// status changes outside of the container are not counted
+		p2.setDiseaseStatus(0, EpisimPerson.DiseaseStatus.recovered);
+		container.addPerson(p2, 0);
+
+		assertThat(container.getNumSusceptible()).isEqualTo(1);
+		assertThat(container.getNumInfectious()).isEqualTo(0);
+	}
+
+	@Test
+	public void internTrajectory() {
+
+		PersonStore store = new PersonStore(1);
+		EpisimPerson p = new EpisimPerson(Id.createPersonId("p"), new Attributes(), true, mock(EpisimReporting.class), store);
+
+		EpisimPerson.Activity work = new EpisimPerson.Activity("work", EpisimTestUtils.TEST_CONFIG.selectInfectionParams("work"));
+		EpisimPerson.Activity home = new EpisimPerson.Activity("home", EpisimTestUtils.TEST_CONFIG.selectInfectionParams("home"));
+		p.addToTrajectory(home);
+		p.addToTrajectory(work);
+
+		store.trajectories = new TrajectoryPool();
+		p.internTrajectory(store.trajectories);
+
+		assertThat(p.getTrajectory()).containsExactly(home, work);
+		assertThat(p.getActivity(1)).isSameAs(work);
+
+		// view is not created again
+		assertThat(p.getTrajectory()).isSameAs(p.getTrajectory());
+
+		assertThatThrownBy(() -> p.addToTrajectory(work)).isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> p.getTrajectory().add(work)).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> p.getActivity(2)).isInstanceOf(IndexOutOfBoundsException.class);
 	}
 }
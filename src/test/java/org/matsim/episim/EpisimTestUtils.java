@@ -30,6 +30,11 @@ public class EpisimTestUtils {
 	private static final AtomicLong ID = new AtomicLong(0);
 	private static final EpisimReporting reporting = Mockito.mock(EpisimReporting.class, Mockito.withSettings().stubOnly());
 
+	/**
+	 * Store shared by all created persons, null if each person has its own store.
+	 */
+	private static PersonStore store = null;
+
 	public static final EpisimConfigGroup TEST_CONFIG = ConfigUtils.addOrGetModule( createTestConfig(), EpisimConfigGroup.class );
 
 	/**
@@ -93,7 +98,7 @@ public class EpisimTestUtils {
 	 * Create a person and add to container.
 	 */
 	public static EpisimPerson createPerson(String currentAct, @Nullable EpisimContainer<?> container) {
-		EpisimPerson p = new EpisimPerson(Id.createPersonId(ID.getAndIncrement()), new Attributes(), reporting);
+		EpisimPerson p = createPerson(reporting, new Attributes());
 
 		p.getTrajectory().add(new EpisimPerson.Activity(currentAct, TEST_CONFIG.selectInfectionParams(currentAct)));
 
@@ -108,7 +113,29 @@ public class EpisimTestUtils {
 	 * Create a person with specific reporting.
 	 */
 	public static EpisimPerson createPerson(EpisimReporting reporting) {
-		return new EpisimPerson(Id.createPersonId(ID.getAndIncrement()), new Attributes(), reporting);
+		return createPerson(reporting, new Attributes());
+	}
+
+	/**
+	 * Create a person with specific reporting and attributes.
+	 */
+	public static EpisimPerson createPerson(EpisimReporting reporting, Attributes attrs) {
+		return new EpisimPerson(Id.createPersonId(ID.getAndIncrement()), attrs, true, reporting, store != null ? store : new PersonStore(1));
+	}
+
+	/**
+	 * Persons created afterwards share one store, so they can be traced as contacts of each other.
+	 * Call {@link #resetPersonStore()} afterwards to release these persons.
+	 */
+	public static void sharePersonStore() {
+		store = new PersonStore(16);
+	}
+
+	/**
+	 * Each person created afterwards has its own store again.
+	 */
+	public static void resetPersonStore() {
+		store = null;
 	}
 
 	/**
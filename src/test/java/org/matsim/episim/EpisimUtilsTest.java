@@ -189,4 +189,26 @@ public class EpisimUtilsTest {
 				.isEqualTo(30);
 
 	}
+
+	@Test
+	public void fastExp() {
+
+		SplittableRandom rnd = new SplittableRandom(1);
+
+		for (int i = 0; i < 1_000_000; i++) {
+			double x = -rnd.nextDouble() * 50;
+			assertThat(EpisimUtils.fastExp(x))
+					.isCloseTo(Math.exp(x), Percentage.withPercentage(1e-10));
+		}
+
+		for (double x : new double[]{0, -1e-12, 1e-3, -700, 700}) {
+			assertThat(EpisimUtils.fastExp(x))
+					.isCloseTo(Math.exp(x), Percentage.withPercentage(1e-10));
+		}
+
+		assertThat(EpisimUtils.fastExp(0)).isEqualTo(1);
+		assertThat(EpisimUtils.fastExp(-1000)).isEqualTo(0);
+		assertThat(EpisimUtils.fastExp(Double.NEGATIVE_INFINITY)).isEqualTo(0);
+		assertThat(EpisimUtils.fastExp(Double.NaN)).isNaN();
+	}
 }
@@ -0,0 +1,145 @@
+package org.matsim.episim;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.*;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.internal.HasPersonId;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.facilities.ActivityFacility;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventCacheTest {
+
+	static final String EVENTS = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+			"<events version=\"1.0\">\n" +
+			"\t<event time=\"21600.0\" type=\"actend\" person=\"p1\" link=\"l1\" facility=\"home1\" actType=\"home\"  />\n" +
+			"\t<event time=\"21600.5\" type=\"PersonEntersVehicle\" person=\"p1\" vehicle=\"v1\"  />\n" +
+			"\t<event time=\"21900.25\" type=\"PersonLeavesVehicle\" person=\"p1\" vehicle=\"v1\"  />\n" +
+			"\t<event time=\"22000.0\" type=\"actstart\" person=\"p1\" link=\"l2\" actType=\"work\" x=\"1.5\" y=\"2.5\"  />\n" +
+			"\t<event time=\"22000.0\" type=\"actstart\" person=\"p2\" facility=\"work1\" actType=\"work\" x=\"3.0\" y=\"4.0\" z=\"5.0\"  />\n" +
+			"\t<event time=\"23000.0\" type=\"actend\" person=\"p2\" facility=\"work1\" actType=\"work\"  />\n" +
+			"</events>\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTrip() throws IOException {
+
+		Path source = write("events.xml", EVENTS);
+		Path cache = EventCache.getCacheFile(source.toString());
+
+		assertThat(EventCache.isValid(source, cache)).isFalse();
+		assertThat(EventCache.convert(source, cache)).isTrue();
+		assertThat(EventCache.isValid(source, cache)).isTrue();
+
+		List<Event> expected = List.of(
+				new ActivityEndEvent(21600, Id.createPersonId("p1"), Id.createLinkId("l1"), Id.create("home1", ActivityFacility.class), "home"),
+				new PersonEntersVehicleEvent(21600.5, Id.createPersonId("p1"), Id.createVehicleId("v1")),
+				new PersonLeavesVehicleEvent(21900.25, Id.createPersonId("p1"), Id.createVehicleId("v1")),
+				new ActivityStartEvent(22000, Id.createPersonId("p1"), Id.createLinkId("l2"), null, "work", new Coord(1.5, 2.5)),
+				new ActivityStartEvent(22000, Id.createPersonId("p2"), null, Id.create("work1", ActivityFacility.class), "work", new Coord(3, 4, 5)),
+				new ActivityEndEvent(23000, Id.createPersonId("p2"), null, Id.create("work1", ActivityFacility.class), "work")
+		);
+
+		List<Event> events = read(cache);
+
+		assertThat(events).hasSameSizeAs(expected);
+		for (int i = 0; i < events.size(); i++) {
+			assertThat(events.get(i)).isExactlyInstanceOf(expected.get(i).getClass());
+			assertThat(events.get(i).getTime()).isEqualTo(expected.get(i).getTime());
+			assertThat(events.get(i).toString()).isEqualTo(expected.get(i).toString());
+		}
+
+		ActivityStartEvent withZ = (ActivityStartEvent) events.get(4);
+		assertThat(withZ.getCoord().hasZ()).isTrue();
+		assertThat(withZ.getCoord().getZ()).isEqualTo(5);
+		assertThat(((ActivityStartEvent) events.get(3)).getCoord().hasZ()).isFalse();
+
+		// no temporary files are left
+		try (var files = Files.list(folder.getRoot().toPath())) {
+			assertThat(files.map(p -> p.getFileName().toString()))
+					.containsExactlyInAnyOrder("events.xml", "events.xml" + EventCache.SUFFIX);
+		}
+	}
+
+	@Test
+	public void invalidation() throws IOException {
+
+		Path source = write("events.xml", EVENTS);
+		Path cache = EventCache.getCacheFile(source.toString());
+
+		assertThat(EventCache.convert(source, cache)).isTrue();
+
+		// same size, but different content
+		write("events.xml", EVENTS.replace("person=\"p2\"", "person=\"p3\""));
+		assertThat(EventCache.isValid(source, cache)).isFalse();
+
+		assertThat(EventCache.convert(source, cache)).isTrue();
+		assertThat(EventCache.isValid(source, cache)).isTrue();
+		assertThat(read(cache).stream().map(e -> ((HasPersonId) e).getPersonId().toString()).collect(Collectors.toList()))
+				.containsExactly("p1", "p1", "p1", "p1", "p3", "p3");
+
+		// different size
+		write("events.xml", EVENTS.replace("time=\"23000.0\"", "time=\"23000.75\""));
+		assertThat(EventCache.isValid(source, cache)).isFalse();
+
+		// unsupported events are not cached
+		write("events.xml", EVENTS.replace("type=\"actend\" person=\"p2\"", "type=\"departure\" person=\"p2\""));
+		assertThat(EventCache.convert(source, cache)).isFalse();
+		assertThat(EventCache.isValid(source, cache)).isFalse();
+
+		// as well as unknown attributes, which would be lost
+		write("events.xml", EVENTS.replace("vehicle=\"v1\"  />", "vehicle=\"v1\" seat=\"2\"  />"));
+		assertThat(EventCache.convert(source, cache)).isFalse();
+	}
+
+	@Test
+	public void sameAsEventsReader() throws IOException {
+
+		Path source = write("events.xml", EVENTS);
+		Path cache = EventCache.getCacheFile(source.toString());
+		assertThat(EventCache.convert(source, cache)).isTrue();
+
+		List<Event> xml = new ArrayList<>();
+		EventsManager manager = EventsUtils.createEventsManager();
+		manager.addHandler((BasicEventHandler) xml::add);
+		new MatsimEventsReader(manager).readFile(source.toString());
+
+		List<Event> cached = read(cache);
+
+		assertThat(cached).hasSameSizeAs(xml);
+		for (int i = 0; i < xml.size(); i++) {
+			assertThat(cached.get(i)).isExactlyInstanceOf(xml.get(i).getClass());
+			assertThat(cached.get(i).getAttributes()).isEqualTo(xml.get(i).getAttributes());
+			assertThat(cached.get(i).toString()).isEqualTo(xml.get(i).toString());
+		}
+	}
+
+	private Path write(String name, String content) throws IOException {
+		Path path = folder.getRoot().toPath().resolve(name);
+		Files.writeString(path, content, StandardCharsets.UTF_8);
+		return path;
+	}
+
+	static List<Event> read(Path cache) throws IOException {
+		List<Event> events = new ArrayList<>();
+		EventCache.open(cache).read(events::add);
+		return events;
+	}
+}
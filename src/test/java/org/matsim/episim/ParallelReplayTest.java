@@ -0,0 +1,168 @@
+package org.matsim.episim;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.google.inject.util.Modules;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.*;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.episim.model.*;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the parallel replay produces the same output as the single threaded replay with independent random streams.
+ */
+@RunWith(Parameterized.class)
+public class ParallelReplayTest {
+
+	static final String[] ACTS = {"work", "leisure", "edu", "shopping"};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Parameterized.Parameter
+	public Class<? extends ContactModel> contactModel;
+
+	@Parameterized.Parameters(name = "{0}")
+	public static Iterable<Class<? extends ContactModel>> parameters() {
+		return Arrays.asList(DefaultContactModel.class, SymmetricContactModel.class, DirectContactModel.class, PairWiseContactModel.class);
+	}
+
+	@Test
+	public void sameOutput() throws IOException {
+
+		File single = run(1);
+		File parallel = run(3);
+
+		List<String> infections = Files.readAllLines(single.toPath().resolve("infections.txt"));
+		assertThat(infections).hasSize(1 + 7);
+
+		// there need to be infections during the replay, not only the initial ones
+		assertThat(Files.readAllLines(single.toPath().resolve("infectionEvents.txt")))
+				.hasSizeGreaterThan(1 + 10);
+
+		for (String name : List.of("infections.txt", "infectionEvents.txt")) {
+			assertThat(new File(parallel, name)).hasSameTextualContentAs(new File(single, name));
+		}
+	}
+
+	private File run(int threads) throws IOException {
+
+		File out = folder.newFolder("threads" + threads);
+
+		Config config = ConfigUtils.createConfig(new EpisimConfigGroup());
+		config.controler().setOutputDirectory(out.getPath());
+
+		EpisimConfigGroup episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		episimConfig.setThreads(threads);
+		episimConfig.setRandomStreams(EpisimConfigGroup.RandomStreams.independent);
+		episimConfig.setSampleSize(1);
+		episimConfig.setCalibrationParameter(0.001);
+		episimConfig.setStartDate("2020-02-18");
+		episimConfig.setInitialInfections(10);
+		episimConfig.setInfections_pers_per_day(Map.of(LocalDate.parse("2020-02-18"), 5));
+		for (String act : ACTS)
+			episimConfig.getOrAddContainerParams(act).setContactIntensity(1).setSpacesPerFacility(5);
+
+		episimConfig.getOrAddContainerParams("home").setContactIntensity(1);
+		episimConfig.getOrAddContainerParams("quarantine_home").setContactIntensity(0.3);
+		episimConfig.getOrAddContainerParams("tr").setContactIntensity(10).setSpacesPerFacility(5);
+
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		List<Id<Person>> ids = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Person p = scenario.getPopulation().getFactory().createPerson(Id.createPersonId("p" + i));
+			p.getAttributes().putAttribute("microm:modeled:age", i % 90);
+			p.getAttributes().putAttribute("homeId", "home" + (i / 3));
+			scenario.getPopulation().addPerson(p);
+			ids.add(p.getId());
+		}
+
+		Map<DayOfWeek, List<Event>> events = new EnumMap<>(DayOfWeek.class);
+		for (DayOfWeek day : DayOfWeek.values())
+			events.put(day, createDay(ids, new Random(day.getValue())));
+
+		Injector injector = Guice.createInjector(Modules.override(new EpisimModule()).with(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(ContactModel.class).to(contactModel).in(Singleton.class);
+				bind(Config.class).toInstance(config);
+				bind(Scenario.class).toInstance(scenario);
+				bind(ReplayHandler.class).toInstance(new ReplayHandler(events));
+			}
+		}));
+
+		injector.getInstance(EpisimRunner.class).run(7);
+
+		return out;
+	}
+
+	/**
+	 * Persons leave home, visit up to two facilities, partly by vehicle, and return home.
+	 */
+	static List<Event> createDay(List<Id<Person>> ids, Random r) {
+
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < ids.size(); i++) {
+
+			Id<Person> id = ids.get(i);
+			Id<ActivityFacility> home = Id.create("home" + (i / 3), ActivityFacility.class);
+			Id<Link> homeLink = Id.createLinkId("home" + (i / 3));
+
+			double t = 6 * 3600 + r.nextInt(4 * 3600);
+			String prevAct = "home";
+			Id<ActivityFacility> prevFacility = home;
+			Id<Link> prevLink = homeLink;
+
+			int n = 1 + r.nextInt(2);
+			for (int k = 0; k < n; k++) {
+				events.add(new ActivityEndEvent(t, id, prevLink, prevFacility, prevAct));
+
+				if (r.nextBoolean()) {
+					Id<Vehicle> vehicle = Id.createVehicleId("v" + r.nextInt(10));
+					events.add(new PersonEntersVehicleEvent(t + 60, id, vehicle));
+					events.add(new PersonLeavesVehicleEvent(t + 60 + r.nextInt(1800), id, vehicle));
+				}
+
+				t += 3600;
+				String act = ACTS[r.nextInt(ACTS.length)];
+				Id<ActivityFacility> facility = Id.create(act + r.nextInt(20), ActivityFacility.class);
+				Id<Link> link = Id.createLinkId(facility.toString());
+				events.add(new ActivityStartEvent(t, id, link, facility, act, null));
+
+				t += 600 + r.nextInt(3 * 3600);
+				prevAct = act;
+				prevFacility = facility;
+				prevLink = link;
+			}
+
+			events.add(new ActivityEndEvent(t, id, prevLink, prevFacility, prevAct));
+			events.add(new ActivityStartEvent(t + 1800, id, homeLink, home, "home", null));
+		}
+
+		events.sort(Comparator.comparingDouble(Event::getTime));
+		return events;
+	}
+}
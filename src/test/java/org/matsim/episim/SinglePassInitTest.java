@@ -0,0 +1,153 @@
+package org.matsim.episim;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import org.junit.Before;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+import java.time.DayOfWeek;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SinglePassInitTest {
+
+	private InfectionEventHandler twoPass;
+	private InfectionEventHandler singlePass;
+
+	@Before
+	public void setup() {
+		twoPass = init(false);
+		singlePass = init(true);
+	}
+
+	@Test
+	public void sameUsage() {
+
+		EpisimContainer<?>[] expected = twoPass.getContainers();
+		EpisimContainer<?>[] actual = singlePass.getContainers();
+
+		assertThat(actual).hasSameSizeAs(expected);
+
+		for (int i = 0; i < expected.length; i++) {
+			assertThat(actual[i].getContainerId()).isEqualTo(expected[i].getContainerId());
+			assertThat(actual[i].getMaxGroupSize()).as("max group size of %s", expected[i].getContainerId())
+					.isEqualTo(expected[i].getMaxGroupSize());
+			assertThat(actual[i].getTotalUsers()).as("total users of %s", expected[i].getContainerId())
+					.isEqualTo(expected[i].getTotalUsers());
+			assertThat(actual[i].getTypicalCapacity()).as("typical capacity of %s", expected[i].getContainerId())
+					.isEqualTo(expected[i].getTypicalCapacity());
+			assertThat(actual[i].getNumSpaces()).as("spaces of %s", expected[i].getContainerId())
+					.isEqualTo(expected[i].getNumSpaces());
+			assertThat(actual[i].getPersons()).hasSameSizeAs(expected[i].getPersons());
+		}
+	}
+
+	@Test
+	public void trajectories() {
+
+		Map<Id<Person>, EpisimPerson> persons = new HashMap<>();
+		singlePass.getPersons().forEach(p -> persons.put(p.getPersonId(), p));
+
+		assertThat(persons).hasSameSizeAs(twoPass.getPersons());
+
+		int longer = 0;
+		for (EpisimPerson expected : twoPass.getPersons()) {
+			EpisimPerson actual = persons.get(expected.getPersonId());
+
+			for (DayOfWeek day : DayOfWeek.values()) {
+				assertThat(actual.getFirstFacilityId(day)).isEqualTo(expected.getFirstFacilityId(day));
+				assertThat(actual.getStartOfDay(day)).isEqualTo(expected.getStartOfDay(day));
+				assertThat(actual.getEndOfDay(day)).isEqualTo(expected.getEndOfDay(day));
+			}
+
+			assertThat(actual.getCurrentContainer().getContainerId()).isEqualTo(expected.getCurrentContainer().getContainerId());
+
+			// the week is the same
+			int end = expected.getEndOfDay(DayOfWeek.SUNDAY);
+			for (int i = 0; i <= end; i++)
+				assertThat(actual.getActivity(i).actType).isEqualTo(expected.getActivity(i).actType);
+
+			// but the second pass appends activities after the end of the week, which are only reached on the last day
+			assertThat(actual.getTrajectory()).hasSize(end + 1);
+			if (expected.getTrajectory().size() > end + 1)
+				longer++;
+		}
+
+		// all persons with events
+		assertThat(longer).isEqualTo(450);
+	}
+
+	/**
+	 * Init the handler for a week where some persons appear late, do not appear at all, or do not return home.
+	 */
+	private static InfectionEventHandler init(boolean singlePass) {
+
+		Config config = ConfigUtils.createConfig(new EpisimConfigGroup());
+		EpisimConfigGroup episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		episimConfig.setSinglePassInit(singlePass);
+		episimConfig.setSampleSize(1);
+
+		for (String act : ParallelReplayTest.ACTS)
+			episimConfig.getOrAddContainerParams(act).setContactIntensity(1).setSpacesPerFacility(5);
+
+		episimConfig.getOrAddContainerParams("home").setContactIntensity(1);
+		episimConfig.getOrAddContainerParams("quarantine_home").setContactIntensity(0.3);
+		episimConfig.getOrAddContainerParams("tr").setContactIntensity(10).setSpacesPerFacility(5);
+
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		List<Id<Person>> ids = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Person p = scenario.getPopulation().getFactory().createPerson(Id.createPersonId("p" + i));
+			p.getAttributes().putAttribute("microm:modeled:age", i % 90);
+			p.getAttributes().putAttribute("homeId", "home" + (i / 3));
+			scenario.getPopulation().addPerson(p);
+			ids.add(p.getId());
+		}
+
+		Map<DayOfWeek, List<Event>> events = new EnumMap<>(DayOfWeek.class);
+		for (DayOfWeek day : DayOfWeek.values()) {
+
+			// the last 50 persons are stationary, the 50 before only appear from wednesday on
+			List<Event> eventsForDay = ParallelReplayTest.createDay(ids.subList(0, day.getValue() < 3 ? 400 : 450), new Random(day.getValue()));
+
+			// some persons stay away over night
+			if (day == DayOfWeek.TUESDAY) {
+				Set<Id<Person>> away = new HashSet<>(ids.subList(0, 50));
+				Map<Id<Person>, Event> lastEnd = new HashMap<>();
+				for (Event e : eventsForDay)
+					if (e instanceof ActivityEndEvent && away.contains(((ActivityEndEvent) e).getPersonId()))
+						lastEnd.put(((ActivityEndEvent) e).getPersonId(), e);
+
+				eventsForDay.removeIf(e -> lastEnd.containsValue(e) || (e instanceof ActivityStartEvent &&
+						away.contains(((ActivityStartEvent) e).getPersonId()) && ((ActivityStartEvent) e).getActType().equals("home")));
+			}
+
+			events.put(day, eventsForDay);
+		}
+
+		Injector injector = Guice.createInjector(Modules.override(new EpisimModule()).with(new AbstractModule() {
+			@Override
+			protected void configure() {
+				bind(Config.class).toInstance(config);
+				bind(Scenario.class).toInstance(scenario);
+				bind(ReplayHandler.class).toInstance(new ReplayHandler(events));
+			}
+		}));
+
+		InfectionEventHandler handler = injector.getInstance(InfectionEventHandler.class);
+		handler.init(events);
+		return handler;
+	}
+}
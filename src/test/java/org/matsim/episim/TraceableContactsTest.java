@@ -0,0 +1,73 @@
+package org.matsim.episim;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TraceableContactsTest {
+
+	@Test
+	public void ordered() {
+
+		int p1 = 1;
+		int p2 = 2;
+		int p3 = 3;
+
+		TraceableContacts contacts = new TraceableContacts();
+
+		contacts.add(p1, 10);
+		contacts.add(p2, 20);
+		contacts.add(p3, 25);
+		contacts.add(p2, 30);
+
+		// repeated contact keeps its position, but has the latest time
+		assertThat(contacts.size()).isEqualTo(3);
+
+		assertThat(contacts.getPerson(0)).isEqualTo(p1);
+		assertThat(contacts.getPerson(1)).isEqualTo(p2);
+		assertThat(contacts.getTime(1)).isEqualTo(30);
+		assertThat(contacts.getPerson(2)).isEqualTo(p3);
+
+		contacts.removeBefore(26);
+		assertThat(contacts.size()).isEqualTo(1);
+		assertThat(contacts.getPerson(0)).isEqualTo(p2);
+
+		// removed persons are added at the end again
+		contacts.add(p1, 40);
+		contacts.add(p2, 50);
+		assertThat(contacts.size()).isEqualTo(2);
+		assertThat(contacts.getPerson(0)).isEqualTo(p2);
+		assertThat(contacts.getPerson(1)).isEqualTo(p1);
+	}
+
+	@Test
+	public void removeBefore() {
+
+		TraceableContacts contacts = new TraceableContacts();
+
+		// contacts with the first persons are repeated, they stay in front
+		for (int i = 0; i < 100; i++) {
+			contacts.add(i, i);
+			contacts.add(i % 3, i);
+			contacts.removeBefore(i - 5);
+
+			assertThat(contacts.getPerson(0)).isEqualTo(0);
+			assertThat(contacts.getTime(contacts.size() - 1)).isEqualTo(i);
+		}
+
+		assertThat(contacts.size()).isEqualTo(9);
+		for (int i = 0; i < 3; i++)
+			assertThat(contacts.getPerson(i)).isEqualTo(i);
+
+		for (int i = 3; i < contacts.size(); i++) {
+			assertThat(contacts.getPerson(i)).isEqualTo(91 + i);
+			assertThat(contacts.getTime(i)).isEqualTo(91 + i);
+		}
+
+		contacts.clear();
+		assertThat(contacts.size()).isEqualTo(0);
+
+		contacts.add(5, 1);
+		assertThat(contacts.getPerson(0)).isEqualTo(5);
+	}
+}
@@ -4,10 +4,12 @@ import com.google.common.primitives.Doubles;
 import com.typesafe.config.Config;
 import org.apache.commons.math3.stat.descriptive.moment.Mean;
 import org.assertj.core.data.Percentage;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.matsim.episim.*;
 import org.matsim.episim.EpisimPerson.DiseaseStatus;
+import org.matsim.utils.objectattributes.attributable.Attributes;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -50,6 +52,7 @@ public class ConfigurableProgressionModelTest {
 
 	@Before
 	public void setup() {
+		EpisimTestUtils.sharePersonStore();
 		reporting = mock(EpisimReporting.class);
 		tracingConfig = new TracingConfigGroup();
 		episimConfig = new EpisimConfigGroup();
@@ -59,6 +62,11 @@ public class ConfigurableProgressionModelTest {
 		model.setIteration(1);
 	}
 
+	@After
+	public void tearDown() {
+		EpisimTestUtils.resetPersonStore();
+	}
+
 	@Test
 	public void tracing() {
 
@@ -199,17 +207,17 @@ public class ConfigurableProgressionModelTest {
 		// needed to update probability
 		model.setIteration(1);
 
-		EpisimPerson p = EpisimTestUtils.createPerson(reporting);
+		Attributes home = new Attributes();
+		home.putAttribute("homeId", "1");
+
+		EpisimPerson p = EpisimTestUtils.createPerson(reporting, home);
 		p.setDiseaseStatus(0, DiseaseStatus.infectedButNotContagious);
 		for (int day = 0; day <= 5; day++) {
 			model.setIteration(day);
 			model.updateState(p, day);
 		}
 
-		p.getAttributes().putAttribute("homeId", "1");
-
-		EpisimPerson contact = EpisimTestUtils.createPerson(reporting);
-		contact.getAttributes().putAttribute("homeId", "1");
+		EpisimPerson contact = EpisimTestUtils.createPerson(reporting, home);
 
 		p.addTraceableContactPerson(contact, 5 * 24 * 3600);
 
@@ -4,6 +4,7 @@ import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.tuple.Pair;
 import org.assertj.core.data.Offset;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.matsim.core.config.Config;
@@ -51,6 +52,11 @@ public class DefaultContactModelTest {
 
 	}
 
+	@After
+	public void tearDown() {
+		EpisimTestUtils.resetPersonStore();
+	}
+
 	/**
 	 * Samples how many time person {@code p} gets infected over many runs.
 	 *
@@ -394,6 +400,7 @@ public class DefaultContactModelTest {
 
 
 		EpisimTestUtils.resetIds();
+		EpisimTestUtils.sharePersonStore();
 		EpisimReporting rTracking = mock(EpisimReporting.class);
 		tracingConfig.setPutTraceablePersonsInQuarantineAfterDay(0);
 		tracingConfig.setMinContactDuration_sec(0);
@@ -1,5 +1,7 @@
 package org.matsim.episim.model;
 
+import com.google.common.collect.ImmutableMap;
+import org.assertj.core.data.Offset;
 import org.junit.Before;
 import org.junit.Test;
 import org.matsim.core.config.Config;
@@ -16,7 +18,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class InfectionModelWithSeasonalityTest {
 
-	private InfectionModel model;
+	private BatchInfectionModel model;
 	private EpisimReporting reporting;
 	private Map<String, Restriction> restrictions;
 	private EpisimConfigGroup.InfectionParams act;
@@ -68,4 +70,74 @@ public class InfectionModelWithSeasonalityTest {
 
 
 	}
+
+	@Test
+	public void fastExp() {
+
+		Config config = EpisimTestUtils.createTestConfig();
+		EpisimConfigGroup episimConfig = ConfigUtils.addOrGetModule(config, EpisimConfigGroup.class);
+		episimConfig.setFastExp(true);
+
+		SplittableRandom rnd = new SplittableRandom(0);
+		InfectionModel fast = new InfectionModelWithSeasonality(new DefaultFaceMaskModel(rnd), rnd, config, reporting);
+
+		EpisimPerson infector = EpisimTestUtils.createPerson(reporting);
+		infector.setDiseaseStatus(0, EpisimPerson.DiseaseStatus.contagious);
+		EpisimPerson target = EpisimTestUtils.createPerson(reporting);
+
+		model.setIteration(1);
+		fast.setIteration(1);
+
+		double before = model.calcInfectionProbability(target, infector, restrictions, act, act, 60);
+
+		// restrictions of the iteration are looked up from the table
+		restrictions = ImmutableMap.copyOf(restrictions);
+		model.setRestrictions(new RestrictionTable(restrictions));
+		fast.setRestrictions(new RestrictionTable(restrictions));
+
+		assertThat(model.calcInfectionProbability(target, infector, restrictions, act, act, 60))
+				.isEqualTo(before);
+
+		for (int t = 1; t < 86400; t += 7) {
+			double exact = model.calcInfectionProbability(target, infector, restrictions, act, act, t);
+			assertThat(fast.calcInfectionProbability(target, infector, restrictions, act, act, t))
+					.isCloseTo(exact, Offset.offset(1e-12));
+		}
+	}
+
+	@Test
+	public void batch() {
+
+		EpisimPerson infector = EpisimTestUtils.createPerson(reporting);
+		infector.setDiseaseStatus(0, EpisimPerson.DiseaseStatus.contagious);
+		EpisimPerson target = EpisimTestUtils.createPerson(reporting);
+
+		RestrictionTable table = new RestrictionTable(ImmutableMap.copyOf(restrictions));
+		model.setIteration(1);
+		model.setRestrictions(table);
+
+		int n = 100;
+		double[] ci = new double[n];
+		double[] time = new double[n];
+		double[] susceptibility = new double[n];
+		double[] infectivity = new double[n];
+		double[] ciCorrection = new double[n];
+		double[] prob = new double[n];
+
+		SplittableRandom rnd = new SplittableRandom(1);
+		for (int i = 0; i < n; i++) {
+			ci[i] = act.getContactIntensity();
+			time[i] = i * 300;
+			infectivity[i] = model.getInfectivity(infector, act, table, rnd);
+			susceptibility[i] = model.getSusceptibility(target, act, table, rnd);
+			ciCorrection[i] = model.getCiCorrection(act, act, table, rnd);
+		}
+
+		model.calcInfectionProbabilities(n, ci, time, susceptibility, infectivity, ciCorrection, prob);
+
+		for (int i = 0; i < n; i++) {
+			assertThat(prob[i])
+					.isCloseTo(model.calcInfectionProbability(target, infector, table.getMap(), act, act, time[i]), Offset.offset(1e-12));
+		}
+	}
 }
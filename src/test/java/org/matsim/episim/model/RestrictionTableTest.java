@@ -0,0 +1,57 @@
+package org.matsim.episim.model;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.episim.EpisimConfigGroup;
+import org.matsim.episim.EpisimTestUtils;
+import org.matsim.episim.policy.Restriction;
+import org.matsim.episim.policy.RestrictionTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RestrictionTableTest {
+
+	private EpisimConfigGroup episimConfig;
+	private EpisimConfigGroup.InfectionParams act;
+
+	@Before
+	public void setUp() {
+		episimConfig = ConfigUtils.addOrGetModule(EpisimTestUtils.createTestConfig(), EpisimConfigGroup.class);
+		act = episimConfig.getInfectionParam("c10");
+	}
+
+	@Test
+	public void compiled() {
+
+		Map<String, Restriction> restrictions = episimConfig.createInitialRestrictions();
+		restrictions.put("c10", RestrictionTest.update(restrictions.get("c10"), Restriction.ofGroupSize(20)));
+
+		RestrictionTable table = new RestrictionTable(ImmutableMap.copyOf(restrictions));
+
+		assertThat(table.get(act)).isSameAs(restrictions.get("c10"));
+		assertThat(table.getRemainingFraction(act)).isEqualTo(1);
+		assertThat(table.getCiCorrection(act)).isEqualTo(1);
+		assertThat(table.getMaxGroupSize(act)).isEqualTo(20);
+		assertThat(table.getReducedGroupSize(act)).isEqualTo(Integer.MAX_VALUE);
+		assertThat(table.hasClosingHours(act)).isFalse();
+	}
+
+	@Test
+	public void mutable() {
+
+		Map<String, Restriction> restrictions = episimConfig.createInitialRestrictions();
+		RestrictionTable table = new RestrictionTable(restrictions);
+
+		assertThat(table.getRemainingFraction(act)).isEqualTo(1);
+
+		// changes of mutable maps are visible
+		restrictions.put("c10", Restriction.of(0.5, 0.3));
+
+		assertThat(table.getRemainingFraction(act)).isEqualTo(0.5);
+		assertThat(table.getCiCorrection(act)).isEqualTo(0.3);
+	}
+}
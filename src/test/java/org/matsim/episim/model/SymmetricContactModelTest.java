@@ -0,0 +1,47 @@
+package org.matsim.episim.model;
+
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SymmetricContactModelTest {
+
+	@Test
+	public void skipSampling() {
+
+		SplittableRandom rnd = new SplittableRandom(0);
+
+		int n = 50;
+		int runs = 100_000;
+		double p = 0.1;
+		double logQ = Math.log1p(-p);
+
+		int[] selected = new int[n];
+		for (int r = 0; r < runs; r++) {
+			for (int i = SymmetricContactModel.nextContact(rnd, -1, logQ); i < n; i = SymmetricContactModel.nextContact(rnd, i, logQ)) {
+				selected[i]++;
+			}
+		}
+
+		// every person is selected with the same probability as with one draw per person
+		for (int i = 0; i < n; i++) {
+			assertThat((double) selected[i] / runs)
+					.isCloseTo(p, Offset.offset(0.005));
+		}
+	}
+
+	@Test
+	public void skipSamplingAll() {
+
+		SplittableRandom rnd = new SplittableRandom(0);
+
+		assertThat(SymmetricContactModel.nextContact(rnd, 4, Double.NEGATIVE_INFINITY))
+				.isEqualTo(5);
+
+		assertThat(SymmetricContactModel.nextContact(rnd, 4, 0))
+				.isEqualTo(Integer.MAX_VALUE);
+	}
+}
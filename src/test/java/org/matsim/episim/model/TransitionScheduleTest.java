@@ -0,0 +1,57 @@
+package org.matsim.episim.model;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransitionScheduleTest {
+
+	@Test
+	public void schedule() {
+
+		TransitionSchedule schedule = new TransitionSchedule();
+
+		// never updated persons are always due
+		assertThat(schedule.isDue(0, 0)).isTrue();
+
+		schedule.advance(1);
+		schedule.update(0, 1, 3);
+		schedule.update(1, 1, 3 + TransitionSchedule.DAYS);
+		schedule.update(2, 1, Integer.MAX_VALUE);
+
+		schedule.advance(2);
+		assertThat(schedule.isDue(0, 1)).isFalse();
+		assertThat(schedule.isDue(2, 1)).isFalse();
+
+		// status changed since last update
+		assertThat(schedule.isDue(2, 2)).isTrue();
+
+		schedule.advance(3);
+		assertThat(schedule.isDue(0, 1)).isTrue();
+		assertThat(schedule.isDue(1, 1)).isFalse();
+
+		schedule.update(0, 1, Integer.MAX_VALUE);
+		assertThat(schedule.isDue(0, 1)).isFalse();
+
+		schedule.advance(3 + TransitionSchedule.DAYS);
+		assertThat(schedule.isDue(1, 1)).isTrue();
+	}
+
+	@Test
+	public void reschedule() {
+
+		TransitionSchedule schedule = new TransitionSchedule();
+
+		schedule.advance(1);
+		schedule.update(0, 1, 5);
+		schedule.update(0, 2, 7);
+
+		// old entry is ignored
+		schedule.advance(5);
+		assertThat(schedule.isDue(0, 2)).isFalse();
+
+		// skipped days are processed as well
+		schedule.advance(10);
+		assertThat(schedule.isDue(0, 2)).isTrue();
+	}
+}
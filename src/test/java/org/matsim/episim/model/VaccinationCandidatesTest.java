@@ -0,0 +1,85 @@
+package org.matsim.episim.model;
+
+import org.junit.Test;
+import org.matsim.episim.EpisimPerson;
+import org.matsim.episim.EpisimReporting;
+import org.matsim.episim.EpisimTestUtils;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VaccinationCandidatesTest {
+
+	private static EpisimPerson createPerson(int age) {
+		Attributes attrs = new Attributes();
+		attrs.putAttribute("age", age);
+		return EpisimTestUtils.createPerson(Mockito.mock(EpisimReporting.class), attrs);
+	}
+
+	@Test
+	public void oldest() {
+
+		List<EpisimPerson> persons = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			persons.add(createPerson(i % 10 * 10));
+		}
+
+		// not eligible
+		persons.get(99).setDiseaseStatus(0, EpisimPerson.DiseaseStatus.infectedButNotContagious);
+		persons.get(98).setVaccinationStatus(EpisimPerson.VaccinationStatus.yes, 0);
+
+		VaccinationCandidates candidates = new VaccinationCandidates();
+		candidates.init(persons);
+
+		assertThat(candidates.size()).isEqualTo(98);
+
+		SplittableRandom rnd = new SplittableRandom(1);
+		for (int i = 0; i < 9; i++) {
+			assertThat(candidates.drawOldest(rnd).getAge()).isEqualTo(90);
+		}
+
+		// infected after the pool was created
+		persons.get(88).setDiseaseStatus(0, EpisimPerson.DiseaseStatus.infectedButNotContagious);
+
+		for (int i = 0; i < 8; i++) {
+			EpisimPerson p = candidates.drawOldest(rnd);
+			assertThat(p.getAge()).isEqualTo(80);
+			assertThat(p).isNotSameAs(persons.get(88));
+		}
+
+		assertThat(candidates.drawOldest(rnd).getAge()).isEqualTo(70);
+	}
+
+	@Test
+	public void draw() {
+
+		List<EpisimPerson> persons = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			persons.add(createPerson(i));
+		}
+
+		VaccinationCandidates candidates = new VaccinationCandidates();
+		candidates.init(persons);
+
+		for (int i = 0; i < 25; i++) {
+			persons.get(i * 2).setVaccinationStatus(EpisimPerson.VaccinationStatus.yes, 0);
+		}
+
+		candidates.prune();
+		assertThat(candidates.size()).isEqualTo(25);
+
+		SplittableRandom rnd = new SplittableRandom(1);
+		for (int i = 0; i < 25; i++) {
+			EpisimPerson p = candidates.draw(rnd);
+			assertThat(VaccinationCandidates.isEligible(p)).isTrue();
+			p.setVaccinationStatus(EpisimPerson.VaccinationStatus.yes, 1);
+		}
+
+		assertThat(candidates.draw(rnd)).isNull();
+	}
+}